@@ -0,0 +1,167 @@
+package org.gladiator.util.connection;
+
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.gladiator.exception.EndApplicationException;
+import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.gladiator.util.crypto.CryptographyManager;
+import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the fan-out of chat messages to every recipient: each message is encoded and
+ * encrypted with the key of each recipient, then written to its channel. The channels discard what
+ * is written, so only the work of the server is measured.
+ *
+ * <p>The messages are either written one after the other from the calling thread, or queued to
+ * the outbound queue of a {@link Connection} of each recipient, as the server broadcasts, whose
+ * drain tasks pack the messages queued meanwhile in {@code BatchMessage} frames.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class FanOutBenchmark {
+
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int BUFFERS_PER_SLAB = 64;
+  private static final int MAX_SLABS = 16;
+  private static final int MAX_BATCH = 256;
+
+  @Param({"10", "100", "1000"})
+  private int recipients;
+
+  @Param({"1", "16"})
+  private int messages;
+
+  private final List<Recipient> recipientList = new ArrayList<>();
+  private final List<Connection> connections = new ArrayList<>();
+  private CryptographyManager cryptographyManager;
+  private ExecutorService executor;
+  private Message message;
+  private long sentPerConnection;
+
+  /**
+   * Creates the recipients, each one with its own key and channel, and the connections of the
+   * same recipients with their outbound queues.
+   *
+   * @throws EndApplicationException if a key cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws EndApplicationException {
+    final BufferPool bufferPool = new BufferPool(BUFFER_SIZE, BUFFERS_PER_SLAB, MAX_SLABS, false);
+    cryptographyManager = CryptographyManager.create();
+    executor = NamedVirtualThreadExecutorFactory.create("fan_out");
+    for (int i = 0; i < recipients; i++) {
+      final SecretKey aesKey = CryptographyManager.create().getAesKey();
+      recipientList.add(new Recipient(aesKey, new MessageWriter(new DiscardingChannel(),
+          bufferPool)));
+      final Connection connection = Connection.create("recipient" + i, new Socket(),
+          new MessageReader(new DiscardingChannel(), bufferPool),
+          new MessageWriter(new DiscardingChannel(), bufferPool), aesKey);
+      connection.startOutboundQueue(executor, Duration.ZERO, MAX_BATCH, true);
+      connection.releaseOutboundQueue();
+      connections.add(connection);
+    }
+    message = new SimpleMessage(42, 1_760_000_000_000L, "alice",
+        "Hello everyone, the benchmark is about to start");
+  }
+
+  /**
+   * Closes the connections and stops the drain tasks of their outbound queues.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    connections.forEach(Connection::close);
+    executor.shutdownNow();
+  }
+
+  /**
+   * Sends the messages to every recipient from the calling thread.
+   */
+  @Benchmark
+  public void sequential() {
+    for (int i = 0; i < messages; i++) {
+      for (final Recipient recipient : recipientList) {
+        send(recipient);
+      }
+    }
+  }
+
+  /**
+   * Queues the messages to the connection of every recipient, like the server broadcasts, and
+   * waits until all of them are written.
+   */
+  @Benchmark
+  public void outboundQueues() {
+    for (int i = 0; i < messages; i++) {
+      for (final Connection connection : connections) {
+        connection.queueOutput(message, cryptographyManager, i);
+      }
+    }
+    sentPerConnection += messages;
+    for (final Connection connection : connections) {
+      while (connection.sentMessages() < sentPerConnection) {
+        Thread.onSpinWait();
+      }
+    }
+  }
+
+  private void send(final Recipient recipient) {
+    recipient.writer().writeLine(
+        cryptographyManager.encrypt(recipient.aesKey(), message.toTransportString()));
+  }
+
+  private record Recipient(SecretKey aesKey, MessageWriter writer) {
+
+  }
+
+  /**
+   * A channel that discards everything written to it.
+   */
+  private static final class DiscardingChannel implements ByteChannel {
+
+    @Override
+    public int read(final ByteBuffer dst) {
+      return -1;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+      final int written = src.remaining();
+      src.position(src.limit());
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
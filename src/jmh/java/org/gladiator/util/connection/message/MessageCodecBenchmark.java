@@ -0,0 +1,84 @@
+package org.gladiator.util.connection.message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.gladiator.exception.InvalidMessageException;
+import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.connection.message.model.SearchResultMessage;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the encoding of the messages to their transport strings and their decoding, for a
+ * chat message and for a search result with many messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageCodecBenchmark {
+
+  private static final int SEARCH_RESULTS = 20;
+
+  @Param({"SIMPLE", "SEARCH_RESULT"})
+  private ConnectionMessageType type;
+
+  private Message message;
+  private String transportMessage;
+
+  /**
+   * Creates the message and its transport string.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    final SimpleMessage chatMessage = new SimpleMessage(42, 1_760_000_000_000L, "alice",
+        "Hello everyone, the benchmark is about to start");
+    message = switch (type) {
+      case SIMPLE -> chatMessage;
+      case SEARCH_RESULT -> {
+        final List<SimpleMessage> results = new ArrayList<>(SEARCH_RESULTS);
+        for (int i = 0; i < SEARCH_RESULTS; i++) {
+          results.add(chatMessage.withSequence(i, chatMessage.timestamp() + i));
+        }
+        yield new SearchResultMessage("benchmark", results);
+      }
+      default -> throw new IllegalArgumentException("Unsupported message type " + type);
+    };
+    transportMessage = message.toTransportString();
+  }
+
+  /**
+   * Encodes the message to its transport string.
+   *
+   * @return the transport string
+   */
+  @Benchmark
+  public String toTransportString() {
+    return message.toTransportString();
+  }
+
+  /**
+   * Decodes the message from its transport string.
+   *
+   * @return the decoded message
+   * @throws InvalidMessageException if the transport string is not valid
+   */
+  @Benchmark
+  public Message createFromString() throws InvalidMessageException {
+    return ConnectionMessageFactory.createFromString(transportMessage);
+  }
+}
@@ -0,0 +1,71 @@
+package org.gladiator.util.crypto;
+
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.gladiator.exception.EndApplicationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the AES encryption and decryption of every message sent and received, at several
+ * message sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AesKeyManagerBenchmark {
+
+  @Param({"32", "256", "4096", "65536"})
+  private int messageSize;
+
+  private AesKeyManager aesKeyManager;
+  private SecretKey aesKey;
+  private String message;
+  private String encryptedMessage;
+
+  /**
+   * Creates the key and the messages.
+   *
+   * @throws EndApplicationException if the AES key cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws EndApplicationException {
+    aesKeyManager = AesKeyManager.create();
+    aesKey = aesKeyManager.getKey();
+    message = "m".repeat(messageSize);
+    encryptedMessage = aesKeyManager.encrypt(aesKey, message);
+  }
+
+  /**
+   * Encrypts a message.
+   *
+   * @return the encrypted message
+   */
+  @Benchmark
+  public String encrypt() {
+    return aesKeyManager.encrypt(aesKey, message);
+  }
+
+  /**
+   * Decrypts a message.
+   *
+   * @return the decrypted message
+   */
+  @Benchmark
+  public String decrypt() {
+    return aesKeyManager.decrypt(aesKey, encryptedMessage);
+  }
+}
@@ -0,0 +1,86 @@
+package org.gladiator.util.crypto;
+
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import org.gladiator.exception.EndApplicationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the RSA operations of a handshake: the client decodes the public key of the server
+ * and encrypts its AES key with it, the server decrypts the AES key with its private key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RsaKeysManagerBenchmark {
+
+  private RsaKeysManager rsaKeysManager;
+  private byte[] encodedPublicKey;
+  private PublicKey publicKey;
+  private SecretKey aesKey;
+  private String encryptedAesKey;
+
+  /**
+   * Generates the RSA key pair and the AES key.
+   *
+   * @throws EndApplicationException if a key cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws EndApplicationException {
+    rsaKeysManager = RsaKeysManager.create();
+    publicKey = rsaKeysManager.getPublicKey();
+    encodedPublicKey = publicKey.getEncoded();
+    aesKey = AesKeyManager.create().getKey();
+    encryptedAesKey = rsaKeysManager.encrypt(publicKey, aesKey);
+  }
+
+  /**
+   * Decodes the public key received by a client, like the client does.
+   *
+   * @return the decoded public key
+   * @throws NoSuchAlgorithmException if RSA is not supported
+   * @throws InvalidKeySpecException  if the encoded key is not valid
+   */
+  @Benchmark
+  public PublicKey decodePublicKey() throws NoSuchAlgorithmException, InvalidKeySpecException {
+    return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(encodedPublicKey));
+  }
+
+  /**
+   * Encrypts an AES key with the public key, on the client side of a handshake.
+   *
+   * @return the encrypted AES key
+   */
+  @Benchmark
+  public String encryptAesKey() {
+    return rsaKeysManager.encrypt(publicKey, aesKey);
+  }
+
+  /**
+   * Decrypts an AES key with the private key, on the server side of a handshake.
+   *
+   * @return the decrypted AES key
+   */
+  @Benchmark
+  public SecretKey decryptAesKey() {
+    return rsaKeysManager.decrypt(encryptedAesKey);
+  }
+}
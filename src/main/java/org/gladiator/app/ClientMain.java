@@ -1,7 +1,11 @@
 package org.gladiator.app;
 
 
+import java.io.IOException;
+import java.util.List;
 import org.gladiator.client.Client;
+import org.gladiator.client.config.ClientSettings;
+import org.gladiator.client.console.HeadlessClientConsole;
 import org.gladiator.exception.EndApplicationException;
 import org.gladiator.util.chat.ChatUtils;
 import org.slf4j.Logger;
@@ -10,6 +14,10 @@ import org.slf4j.LoggerFactory;
 /**
  * The main entry point for the client application. This class is responsible for starting and
  * running the client.
+ *
+ * <p>Without arguments, the client runs interactively on the terminal. With {@code --headless},
+ * it runs without a terminal and is configured by the arguments, the environment and a properties
+ * file, see {@link ClientSettings}.</p>
  */
 public final class ClientMain {
 
@@ -24,6 +32,48 @@ public final class ClientMain {
    * @param args command-line arguments
    */
   public static void main(final String... args) {
+    final ClientSettings settings;
+    try {
+      settings = ClientSettings.load(List.of(args), System.getenv());
+    } catch (final EndApplicationException e) {
+      LOGGER.error(e.getMessage());
+      LOGGER.debug("Invalid settings", e);
+      return;
+    }
+
+    if (settings.headless()) {
+      runHeadless(settings);
+    } else {
+      runInteractive();
+    }
+  }
+
+  /**
+   * Runs a single session of a headless client, which ends with its input or its connection.
+   *
+   * @param settings the settings of the headless client
+   */
+  private static void runHeadless(final ClientSettings settings) {
+    final HeadlessClientConsole console;
+    try {
+      console = HeadlessClientConsole.open(settings.input(), System.out);
+    } catch (final IOException e) {
+      LOGGER.error("Error opening the input {}", settings.input());
+      LOGGER.debug("Error opening the input", e);
+      return;
+    }
+
+    try (console; final Client client = Client.createClient(console, settings.clientConfig())) {
+      client.run();
+    } catch (final EndApplicationException e) {
+      LOGGER.debug("Client Ended", e);
+    }
+  }
+
+  /**
+   * Runs the interactive client, asking for another server after each session.
+   */
+  private static void runInteractive() {
     final ChatUtils chatUtils = ChatUtils.create(">");
 
     while (true) {
@@ -38,4 +88,3 @@ public final class ClientMain {
     chatUtils.close();
   }
 }
-
@@ -0,0 +1,80 @@
+package org.gladiator.app;
+
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.gladiator.exception.EndApplicationException;
+import org.gladiator.loadtest.LoadGenerator;
+import org.gladiator.loadtest.LoadReport;
+import org.gladiator.loadtest.LoadReport.LatencySummary;
+import org.gladiator.loadtest.config.LoadSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Main class for running a load test against a server. It is configured by the arguments, the
+ * environment and a properties file, see {@link LoadSettings}, and writes its results as a JSON
+ * file.
+ */
+public final class LoadGeneratorMain {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadGeneratorMain.class);
+
+  private LoadGeneratorMain() {
+  }
+
+  /**
+   * The main method to run a load test.
+   *
+   * @param args Command line arguments.
+   */
+  public static void main(final String... args) {
+    final LoadSettings settings;
+    try {
+      settings = LoadSettings.load(List.of(args), System.getenv());
+    } catch (final EndApplicationException e) {
+      LOGGER.error(e.getMessage());
+      LOGGER.debug("Invalid settings", e);
+      return;
+    }
+
+    final LoadReport report;
+    try {
+      report = LoadGenerator.run(settings);
+    } catch (final EndApplicationException e) {
+      LOGGER.error("Error starting the embedded server");
+      LOGGER.debug("Load test ended", e);
+      return;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.debug("Load test interrupted", e);
+      return;
+    }
+
+    logReport(report);
+    try {
+      Files.writeString(Path.of(settings.output()), report.toJson(), StandardCharsets.UTF_8);
+      LOGGER.info("Results written to {}", settings.output());
+    } catch (final IOException e) {
+      LOGGER.error("Error writing the results to {}", settings.output(), e);
+    }
+  }
+
+  private static void logReport(final LoadReport report) {
+    LOGGER.info("Clients: {} connected, {} failed", report.connectedClients(),
+        report.failedClients());
+    LOGGER.info("Throughput: {} sent ({} per second), {} of {} delivered ({} per second)",
+        report.sentMessages(), Math.round(report.sendThroughput()), report.deliveredMessages(),
+        report.expectedDeliveries(), Math.round(report.deliveryThroughput()));
+    logLatency("Handshake", report.handshakeLatency());
+    logLatency("Delivery", report.deliveryLatency());
+  }
+
+  private static void logLatency(final String name, final LatencySummary latency) {
+    LOGGER.info("{} latency (us): p50 {}, p99 {}, p999 {}, max {}", name, latency.p50(),
+        latency.p99(), latency.p999(), latency.max());
+  }
+}
@@ -1,17 +1,26 @@
 package org.gladiator.app;
 
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.gladiator.exception.EndApplicationException;
 import org.gladiator.server.Server;
+import org.gladiator.server.config.ServerSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Main class for starting the server application.
+ *
+ * <p>Without arguments, the server runs interactively on the terminal. With {@code --headless},
+ * it runs without a terminal and is configured by the arguments, the environment and a properties
+ * file, see {@link ServerSettings}.</p>
  */
 public final class ServerMain {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ServerMain.class);
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
 
   private ServerMain() {
   }
@@ -22,10 +31,45 @@ public final class ServerMain {
    * @param args Command line arguments.
    */
   public static void main(final String... args) {
-    try (final Server server = Server.createServer()) {
+    final ServerSettings settings;
+    try {
+      settings = ServerSettings.load(List.of(args), System.getenv());
+    } catch (final EndApplicationException e) {
+      LOGGER.error(e.getMessage());
+      LOGGER.debug("Invalid settings", e);
+      return;
+    }
+
+    final CountDownLatch closed = new CountDownLatch(1);
+    try (final Server server = Server.createServer(settings)) {
+      if (settings.headless()) {
+        stopOnShutdown(server, closed);
+      }
       server.runServer();
     } catch (final EndApplicationException e) {
       LOGGER.debug("Server Ended", e);
+    } finally {
+      closed.countDown();
     }
   }
+
+  /**
+   * Stops a headless server when the process is asked to stop, such as by a SIGTERM, and waits
+   * for the server to close before letting the process exit.
+   *
+   * @param server the headless server
+   * @param closed the latch released once the server is closed
+   */
+  private static void stopOnShutdown(final Server server, final CountDownLatch closed) {
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      server.stop();
+      try {
+        if (!closed.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          LOGGER.warn("The server did not close in {} seconds", SHUTDOWN_TIMEOUT_SECONDS);
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, "shutdown"));
+  }
 }
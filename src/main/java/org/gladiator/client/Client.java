@@ -3,35 +3,57 @@ package org.gladiator.client;
 
 import java.io.IOException;
 import java.io.ObjectInput;
-import java.io.PrintWriter;
 import java.io.UncheckedIOException;
 import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.KeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
 import javax.crypto.SecretKey;
-import javax.net.SocketFactory;
 import org.gladiator.client.config.ClientConfig;
 import org.gladiator.client.config.ClientConfigProvider;
+import org.gladiator.client.config.ReconnectConfig;
+import org.gladiator.client.console.ClientConsole;
+import org.gladiator.client.console.InteractiveClientConsole;
+import org.gladiator.client.reconnect.DuplicateFilter;
 import org.gladiator.exception.EndApplicationException;
 import org.gladiator.exception.FailedExchangeException;
 import org.gladiator.exception.InvalidMessageException;
 import org.gladiator.util.chat.ChatUtils;
+import org.gladiator.util.chat.ConsoleCommand;
 import org.gladiator.util.connection.Connection;
 import org.gladiator.util.connection.IoUtils;
+import org.gladiator.util.connection.MessageReader;
+import org.gladiator.util.connection.MessageWriter;
 import org.gladiator.util.connection.exchange.NameExchange;
 import org.gladiator.util.connection.message.ConnectionMessageFactory;
+import org.gladiator.util.connection.message.model.BatchMessage;
 import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.connection.message.model.PingMessage;
+import org.gladiator.util.connection.message.model.PongMessage;
+import org.gladiator.util.connection.message.model.SearchMessage;
 import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.gladiator.util.connection.message.model.SyncMessage;
 import org.gladiator.util.crypto.CryptographyManager;
 import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
 import org.jline.reader.EndOfFileException;
@@ -42,73 +64,95 @@ import org.slf4j.LoggerFactory;
 /**
  * The Client class represents a client that connects to a server, exchanges messages, and handles
  * user interactions.
+ *
+ * <p>When the connection to the server is lost, the client reconnects by itself after a growing,
+ * jittered delay, as set by its {@link ReconnectConfig}, and catches up from the last message it
+ * received. The messages typed meanwhile are kept in a bounded buffer and sent once reconnected,
+ * along with the message whose write failed, so none of them can reach the server twice. The chat
+ * messages received again once reconnected are shown only once.</p>
  */
 public final class Client implements AutoCloseable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Client.class);
+  private static final int DUPLICATE_WINDOW = 1024;
 
   private final ClientConfig config;
   private final ExecutorService executor;
-  private final ChatUtils chatUtils;
+  private final ClientConsole console;
   private final CryptographyManager cryptographyManager;
+  private final AtomicLong lastSeenSequence = new AtomicLong();
+  private final DuplicateFilter duplicateFilter = new DuplicateFilter(DUPLICATE_WINDOW);
+  private final CountDownLatch quitSignal = new CountDownLatch(1);
+  private final Lock sendLock = new ReentrantLock();
+  private final Queue<Message> pendingMessages = new ArrayDeque<>();
+  @Nullable
+  private Connection serverConnection;
 
   private Client(final ClientConfig config, final ExecutorService executor,
-      final ChatUtils chatUtils, final CryptographyManager cryptographyManager) {
+      final ClientConsole console, final CryptographyManager cryptographyManager) {
     this.config = config;
     this.executor = executor;
-    this.chatUtils = chatUtils;
+    this.console = console;
     this.cryptographyManager = cryptographyManager;
   }
 
   /**
-   * Creates a new Client instance by initializing the necessary components and establishing a
-   * connection to the server.
+   * Creates a new interactive Client instance, asking the user for its configuration on the
+   * terminal.
    *
+   * @param chatUtils the chat utilities of the terminal
    * @return a new Client instance
    * @throws EndApplicationException if an error occurs during client creation
    */
   public static Client createClient(final ChatUtils chatUtils)
       throws EndApplicationException {
 
-    final Client client;
+    final ClientConfig clientConfig;
     try {
-      final ClientConfig clientConfig = new ClientConfigProvider(
-          chatUtils).createClientConfig();
-
-      final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("client");
-      final CryptographyManager cryptographyManager = CryptographyManager.create();
-
-      client = new Client(clientConfig, executor, chatUtils, cryptographyManager);
+      clientConfig = new ClientConfigProvider(chatUtils).createClientConfig();
     } catch (final UserInterruptException | EndOfFileException e) {
       throw new EndApplicationException(e);
     }
 
-    Objects.requireNonNull(client);
-    return client;
+    return createClient(new InteractiveClientConsole(chatUtils), clientConfig);
+  }
+
+  /**
+   * Creates a new Client instance with a given configuration, such as a headless client.
+   *
+   * @param console      the console the messages are read from and shown on
+   * @param clientConfig the configuration of the client
+   * @return a new Client instance
+   * @throws EndApplicationException if an error occurs during client creation
+   */
+  public static Client createClient(final ClientConsole console,
+      final ClientConfig clientConfig) throws EndApplicationException {
+    final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("client");
+    final CryptographyManager cryptographyManager = CryptographyManager.create();
+
+    return new Client(clientConfig, executor, console, cryptographyManager);
   }
 
 
-  private static Socket createSocket(final ChatUtils chatUtils, final ClientConfig clientConfig)
+  private static Socket createSocket(final ClientConsole console, final ClientConfig clientConfig)
       throws EndApplicationException {
 
     final String serverAddress = clientConfig.serverAddress();
-    final int port = clientConfig.port();
     Socket clientSocket = null;
 
     try {
-      clientSocket = SocketFactory.getDefault()
-          .createSocket(serverAddress, port);
+      clientSocket = openSocket(clientConfig);
     } catch (final UnknownHostException e) {
-      handleException(chatUtils, "Server Address not found",
+      handleException(console, "Server Address not found",
           "Server " + serverAddress + " not Found", e);
     } catch (final ConnectException e) {
-      handleException(chatUtils, "Connection time out with server",
+      handleException(console, "Connection time out with server",
           "Timed out when trying to connect to server: " + serverAddress, e);
     } catch (final SocketException e) {
-      handleException(chatUtils, "Invalid Server IP Address",
+      handleException(console, "Invalid Server IP Address",
           "Server address not valid: " + serverAddress, e);
     } catch (final IOException e) {
-      handleException(chatUtils, "Error connecting to server",
+      handleException(console, "Error connecting to server",
           "Error during connection with server: " + serverAddress, e);
     }
 
@@ -116,66 +160,233 @@ public final class Client implements AutoCloseable {
     return clientSocket;
   }
 
+  /**
+   * Opens a socket connected to the server.
+   *
+   * @param clientConfig the configuration with the address and port of the server
+   * @return the connected socket
+   * @throws IOException if the server cannot be found or reached
+   */
+  private static Socket openSocket(final ClientConfig clientConfig) throws IOException {
+    return SocketChannel.open(new InetSocketAddress(
+        InetAddress.getByName(clientConfig.serverAddress()), clientConfig.port())).socket();
+  }
+
   /**
    * Handles exceptions by logging the message, displaying a user message, and throwing an
    * EndApplicationException.
    *
-   * @param chatUtils   the ChatUtils instance for user interaction
+   * @param console     the console to display the user message on
    * @param logMessage  the message to log
    * @param userMessage the message to display to the user
    * @param exception   the exception to handle
    * @throws EndApplicationException the wrapped exception
    */
-  private static void handleException(final ChatUtils chatUtils, final String logMessage,
+  private static void handleException(final ClientConsole console, final String logMessage,
       final String userMessage,
       final Exception exception)
       throws EndApplicationException {
     LOGGER.debug(logMessage);
-    chatUtils.displayOnScreen(userMessage);
+    console.display(userMessage);
     throw new EndApplicationException(exception);
   }
 
 
   /**
    * Runs the client by establishing a connection, exchanging names with the server, and handling
-   * message sending and receiving.
+   * message sending and receiving. The lost connections are established again until the user
+   * quits or the reconnection attempts run out.
    *
    * @throws EndApplicationException if an error occurs during client execution
    */
   public void run() throws EndApplicationException {
+    Connection connection;
     try {
-      final Socket socket = createSocket(chatUtils, config);
+      connection = connect(createSocket(console, config));
+    } catch (final IOException e) {
+      throw new EndApplicationException("Error creating Socket IO" + e);
+    } catch (final FailedExchangeException e) {
+      throw new EndApplicationException(e);
+    }
+
+    executor.execute(this::sendMessages);
+
+    while (null != connection) {
+      resume(connection);
+      receiveMessages(connection);
+      suspend(connection);
+      connection = isQuitting() ? null : reconnect();
+    }
+
+    executor.shutdownNow();
+    dropPendingMessages();
+    reconnectPrompt();
+  }
 
+  /**
+   * Establishes a connection on a socket connected to the server: exchanges the keys and the names
+   * and asks for the messages sent since the last one received. The socket is closed if any of
+   * the exchanges fails.
+   *
+   * @param socket the socket connected to the server
+   * @return the connection to the server
+   * @throws IOException             if an I/O error occurs
+   * @throws FailedExchangeException if any of the exchanges fails or the server rejected the
+   *                                 connection
+   */
+  private Connection connect(final Socket socket) throws IOException, FailedExchangeException {
+    try {
       final PublicKey serverPublicKey = receiveRsaPublicKey(socket);
-      sendOwnEncryptedAesKey(serverPublicKey, socket);
+
+      final MessageReader reader = IoUtils.createReader(socket);
+      final MessageWriter writer = IoUtils.createWriter(socket);
+      sendOwnEncryptedAesKey(serverPublicKey, writer);
 
       final SecretKey ownAesKey = cryptographyManager.getAesKey();
 
-      final String serverName = new NameExchange(socket, ownAesKey, cryptographyManager,
+      final String serverName = new NameExchange(reader, writer, ownAesKey, cryptographyManager,
           config.name(), executor).exchange();
 
-      final Connection serverConnection = Connection.create(serverName, socket, ownAesKey);
+      final Connection connection = Connection.create(serverName, socket, reader, writer,
+          ownAesKey);
+      connection.writeOutput(new SyncMessage(lastSeenSequence.get(), true), cryptographyManager);
 
-      chatUtils.displayBanner("Connection Established with " + serverName);
+      console.displayBanner("Connection Established with " + serverName);
+      return connection;
+    } catch (final IOException | FailedExchangeException | RuntimeException e) {
+      socket.close();
+      throw e;
+    }
+  }
 
-      chatUtils.displayOnScreen("Type `quit` to exit");
+  /**
+   * Tries to connect to the server again after the connection was lost, waiting a growing,
+   * jittered delay before each attempt.
+   *
+   * @return the new connection, or null if the user quit or the attempts ran out
+   */
+  @Nullable
+  private Connection reconnect() {
+    final ReconnectConfig reconnectConfig = config.reconnect();
+    if (0 < reconnectConfig.maxAttempts()) {
+      console.display("Connection lost, reconnecting");
+    }
 
-      final CompletableFuture<Void> receiveMessagesFuture = CompletableFuture.runAsync(
-          () -> receiveMessages(serverConnection), executor);
+    for (int attempt = 1; attempt <= reconnectConfig.maxAttempts(); attempt++) {
+      final Duration delay = reconnectConfig.delayBefore(attempt,
+          ThreadLocalRandom.current().nextDouble());
+      LOGGER.debug("Reconnection attempt {} in {} ms", attempt, delay.toMillis());
+      try {
+        if (quitSignal.await(delay.toNanos(), TimeUnit.NANOSECONDS)) {
+          return null;
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
 
-      final CompletableFuture<Void> sendMessagesFuture = CompletableFuture.runAsync(
-          () -> sendMessages(serverConnection), executor);
+      try {
+        return connect(openSocket(config));
+      } catch (final IOException | FailedExchangeException e) {
+        LOGGER.debug("Reconnection attempt {} failed", attempt, e);
+      }
+    }
 
-      CompletableFuture.allOf(receiveMessagesFuture, sendMessagesFuture).join();
+    if (0 < reconnectConfig.maxAttempts()) {
+      console.display("Could not reconnect after " + reconnectConfig.maxAttempts()
+          + " attempts");
+    }
+    return null;
+  }
 
-      serverConnection.close();
-      reconnectPrompt();
-    } catch (final IOException e) {
-      throw new EndApplicationException("Error creating Socket IO" + e);
-    } catch (final FailedExchangeException e) {
-      throw new EndApplicationException(e);
+  /**
+   * Sends the messages kept while disconnected on a new connection, then lets the typed messages
+   * be sent on it.
+   *
+   * @param connection the new connection to the server
+   */
+  private void resume(final Connection connection) {
+    sendLock.lock();
+    try {
+      int sent = 0;
+      while (!pendingMessages.isEmpty() && !connection.hasWriteFailed()) {
+        connection.writeOutput(pendingMessages.element(), cryptographyManager);
+        if (!connection.hasWriteFailed()) {
+          pendingMessages.remove();
+          sent++;
+        }
+      }
+      if (0 < sent) {
+        console.display("Sent " + sent + " messages typed while disconnected");
+      }
+      serverConnection = connection;
+    } finally {
+      sendLock.unlock();
+    }
+  }
+
+  /**
+   * Closes a connection that ended, the messages typed from now on are kept until the next
+   * connection.
+   *
+   * @param connection the connection that ended
+   */
+  private void suspend(final Connection connection) {
+    sendLock.lock();
+    try {
+      serverConnection = null;
+      connection.close();
+    } finally {
+      sendLock.unlock();
+    }
+  }
+
+  /**
+   * Sends a message to the server, or keeps it to send once reconnected if the client is not
+   * connected or the write fails. The message is dropped if the buffer is full.
+   *
+   * @param message The message to send.
+   */
+  private void send(final Message message) {
+    sendLock.lock();
+    try {
+      final Connection connection = serverConnection;
+      if (null != connection && !connection.hasWriteFailed()) {
+        connection.writeOutput(message, cryptographyManager);
+        if (!connection.hasWriteFailed()) {
+          return;
+        }
+        connection.closeIfOpen();
+      }
+
+      if (config.reconnect().bufferSize() <= pendingMessages.size()) {
+        console.display("Not connected, the message was not sent");
+      } else {
+        pendingMessages.add(message);
+      }
+    } finally {
+      sendLock.unlock();
+    }
+  }
+
+  /**
+   * Drops the messages kept while disconnected once the client gives up reconnecting.
+   */
+  private void dropPendingMessages() {
+    sendLock.lock();
+    try {
+      if (!pendingMessages.isEmpty()) {
+        console.display(pendingMessages.size() + " messages typed while disconnected were not"
+            + " sent");
+        pendingMessages.clear();
+      }
+    } finally {
+      sendLock.unlock();
     }
+  }
 
+  private boolean isQuitting() {
+    return 0 == quitSignal.getCount();
   }
 
   /**
@@ -187,14 +398,20 @@ public final class Client implements AutoCloseable {
    * @param socket the socket connected to the server
    * @return the received RSA public key
    * @throws IOException             if an I/O error occurs
-   * @throws FailedExchangeException if the key exchange fails
+   * @throws FailedExchangeException if the key exchange fails or the server rejected the
+   *                                 connection
    */
   private PublicKey receiveRsaPublicKey(final Socket socket)
       throws IOException, FailedExchangeException {
     final ObjectInput reader = IoUtils.createObjectReader(socket);
     final PublicKey otherEndPublicKey;
     try {
-      final byte[] publicKeyBytes = (byte[]) reader.readObject();
+      final Object received = reader.readObject();
+      if (received instanceof final String rejectionReason) {
+        console.display("Connection rejected: " + rejectionReason);
+        throw new FailedExchangeException("Connection rejected: " + rejectionReason);
+      }
+      final byte[] publicKeyBytes = (byte[]) received;
       final KeySpec publicKeySpec = new X509EncodedKeySpec(publicKeyBytes);
       final KeyFactory keyFactory = KeyFactory.getInstance("RSA");
       otherEndPublicKey = keyFactory.generatePublic(publicKeySpec);
@@ -221,92 +438,140 @@ public final class Client implements AutoCloseable {
    * Sends the client's AES key encrypted with the server's RSA public key.
    *
    * @param otherEndPublicKey the server's RSA public key
-   * @param socket            the socket connected to the server
-   * @throws UncheckedIOException if an I/O error occurs while sending the AES key
+   * @param writer            the writer of the socket connected to the server
+   */
+  private void sendOwnEncryptedAesKey(final PublicKey otherEndPublicKey,
+      final MessageWriter writer) {
+    final SecretKey aesKey = cryptographyManager.getAesKey();
+    final String encryptedAesKey = cryptographyManager.encryptRsa(otherEndPublicKey, aesKey);
+    writer.writeLine(encryptedAesKey);
+    final String logMessage = "AES key sent";
+    LOGGER.debug(logMessage);
+  }
+
+
+  /**
+   * Sends messages to the server. Reads the lines of the console and sends them as messages to the
+   * server, until the console has no more lines. The user quits then, which closes the connection.
    */
-  private void sendOwnEncryptedAesKey(final PublicKey otherEndPublicKey, final Socket socket) {
+  private void sendMessages() {
     try {
-      final PrintWriter writer = IoUtils.createWriter(socket);
-      final SecretKey aesKey = cryptographyManager.getAesKey();
-      final String encryptedAesKey = cryptographyManager.encryptRsa(otherEndPublicKey, aesKey);
-      writer.println(encryptedAesKey);
-      final String logMessage = "AES key sent";
-      LOGGER.debug(logMessage);
-    } catch (final IOException e) {
-      LOGGER.error("Error sending AES key");
-      throw new UncheckedIOException(e);
+      console.readLines(this::handleInputLine);
+    } finally {
+      quitSignal.countDown();
+      sendLock.lock();
+      try {
+        final Connection connection = serverConnection;
+        if (null != connection) {
+          connection.close();
+        }
+      } finally {
+        sendLock.unlock();
+      }
     }
   }
 
-
   /**
-   * Sends messages to the server. Reads user input and sends it as messages to the server.
-   * Terminates when the user types "quit".
+   * Sends a line read from the console, either as a command or as a chat message.
    *
-   * @param serverConnection The connection to the server.
+   * @param line The line read.
    */
-  private void sendMessages(final Connection serverConnection) {
-
-    try {
-      String line = chatUtils.getUserInput();
+  private void handleInputLine(final String line) {
+    final ConsoleCommand command = ConsoleCommand.parse(line);
+    if (null != command) {
+      runCommand(command);
+    } else if (!line.isBlank()) {
+      send(new SimpleMessage(config.name(), line));
+    }
+  }
 
-      while (null != line) {
-        if ("quit".equals(line)) {
-          break;
+  /**
+   * Runs a command typed on the client console.
+   *
+   * @param command The command typed.
+   */
+  private void runCommand(final ConsoleCommand command) {
+    switch (command.name()) {
+      case ConsoleCommand.SEARCH -> {
+        if (command.argument().isEmpty()) {
+          console.display("Usage: /search <terms> [from:name]");
+        } else {
+          send(new SearchMessage(command.argument()));
         }
+      }
+      default -> console.display("Unknown command /" + command.name());
+    }
+  }
 
-        if (!line.isBlank()) {
-          final Message msg = new SimpleMessage(config.name(), line);
-          serverConnection.writeOutput(msg, cryptographyManager);
+  /**
+   * Handles a message received from the server according to its type. The messages of a batch
+   * are handled one after the other, a batch in a batch is ignored, and a chat message already
+   * received is not shown again.
+   *
+   * @param message          The message received.
+   * @param serverConnection The connection to the server.
+   */
+  private void handleMessage(final Message message, final Connection serverConnection) {
+    switch (message) {
+      case final PingMessage pingMessage ->
+          serverConnection.writeOutput(new PongMessage(pingMessage.timestamp()),
+              cryptographyManager);
+      case final SimpleMessage chatMessage -> {
+        if (duplicateFilter.isFirstReceived(chatMessage)) {
+          lastSeenSequence.accumulateAndGet(chatMessage.sequence(), Math::max);
+          console.showMessage(chatMessage);
         }
-        line = chatUtils.getUserInput();
       }
-    } catch (final EndOfFileException | UserInterruptException e) {
-      LOGGER.debug(ChatUtils.USER_INTERRUPT_MESSAGE, e);
-    } finally {
-      executor.shutdownNow();
+      case final BatchMessage batchMessage -> batchMessage.transportMessages().stream()
+          .map(Client::decode)
+          .filter(Objects::nonNull)
+          .filter(unpacked -> !(unpacked instanceof BatchMessage))
+          .forEach(unpacked -> handleMessage(unpacked, serverConnection));
+      default -> console.showMessage(message);
     }
   }
 
   /**
-   * Receives messages from the server and displays them using ChatUtils.
+   * Receives messages from the server and shows them on the console, until the connection ends.
    *
    * @param serverConnection The connection to the server.
    */
   private void receiveMessages(final Connection serverConnection) {
     try {
       serverConnection.readStream(cryptographyManager)
-          .map(transportMessage -> {
-            try {
-              return ConnectionMessageFactory.createFromString(transportMessage);
-            } catch (final InvalidMessageException e) {
-              LOGGER.debug(InvalidMessageException.DEFAULT_PROMPT, e);
-              return null;
-            }
-          })
+          .map(Client::decode)
           .filter(Objects::nonNull)
-          .forEach(chatUtils::showNewMessage);
+          .forEach(message -> handleMessage(message, serverConnection));
     } catch (final UncheckedIOException e) {
       LOGGER.debug("The connection with the server has ended");
-    } finally {
-      executor.shutdownNow();
     }
   }
 
 
   /**
-   * Prompts the user to reconnect to another server.
+   * Decodes a transport message received from the server.
    *
-   * @throws EndApplicationException if the user chooses not to reconnect or an error occurs
+   * @param transportMessage The transport message.
+   * @return The decoded message, or null if it is invalid.
    */
-  private void reconnectPrompt() throws EndApplicationException {
+  @Nullable
+  private static Message decode(final String transportMessage) {
     try {
-      final String choice = chatUtils.getUserInput("Connect to another server? y/N: ");
-      if (!"Y".equalsIgnoreCase(choice)) {
-        throw new EndApplicationException("User chose to not reconnect");
-      }
-    } catch (final UserInterruptException | EndOfFileException e) {
-      throw new EndApplicationException(e);
+      return ConnectionMessageFactory.createFromString(transportMessage);
+    } catch (final InvalidMessageException e) {
+      LOGGER.debug(InvalidMessageException.DEFAULT_PROMPT, e);
+      return null;
+    }
+  }
+
+  /**
+   * Asks the console whether to reconnect to another server.
+   *
+   * @throws EndApplicationException if the user chooses not to reconnect
+   */
+  private void reconnectPrompt() throws EndApplicationException {
+    if (!console.askReconnect()) {
+      throw new EndApplicationException("User chose to not reconnect");
     }
   }
 
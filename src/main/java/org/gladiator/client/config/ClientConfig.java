@@ -1,13 +1,36 @@
 package org.gladiator.client.config;
 
+import java.util.Objects;
+
 /**
- * Configuration class for the client. This class holds the client's name, server address, and port
- * number.
+ * Configuration class for the client. This class holds the client's name, server address, port
+ * number and how it reconnects to the server.
  *
  * @param name          the name of the client
  * @param serverAddress the address of the server to connect to
  * @param port          the port number to connect to
+ * @param reconnect     how the client reconnects once the connection is lost
  */
-public record ClientConfig(String name, String serverAddress, int port) {
+public record ClientConfig(String name, String serverAddress, int port,
+                           ReconnectConfig reconnect) {
+
+  /**
+   * Constructs a new ClientConfig.
+   *
+   * @throws NullPointerException if the reconnection configuration is null
+   */
+  public ClientConfig {
+    Objects.requireNonNull(reconnect);
+  }
 
+  /**
+   * Constructs a new ClientConfig that reconnects with the default values.
+   *
+   * @param name          the name of the client
+   * @param serverAddress the address of the server to connect to
+   * @param port          the port number to connect to
+   */
+  public ClientConfig(final String name, final String serverAddress, final int port) {
+    this(name, serverAddress, port, new ReconnectConfig());
+  }
 }
@@ -0,0 +1,118 @@
+package org.gladiator.client.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.environment.Port;
+import org.gladiator.exception.EndApplicationException;
+import org.gladiator.util.settings.Settings;
+import org.gladiator.util.validation.InputValidator;
+
+/**
+ * Represents the settings the client is started with, from the command line, the environment or
+ * a properties file.
+ *
+ * <p>Without the headless setting, the client is interactive: its name, the server address and
+ * port are asked on the terminal and the other settings are ignored.</p>
+ *
+ * @param headless          whether the client runs without a terminal
+ * @param name              the name of the headless client
+ * @param address           the address of the server the headless client connects to
+ * @param port              the port of the server the headless client connects to
+ * @param input             the path of the file the headless client reads the messages to send
+ *                          from, or {@value #STANDARD_INPUT} for the standard input
+ * @param reconnectAttempts the attempts of the headless client to reconnect once the connection
+ *                          is lost, zero to end with the connection
+ * @see Settings
+ */
+public record ClientSettings(boolean headless, String name, String address, int port,
+                             String input, int reconnectAttempts) {
+
+  /**
+   * The prefix of the environment variables of the client settings.
+   */
+  public static final String ENV_PREFIX = "JMESSENGER_CLIENT_";
+  /**
+   * The input that stands for the standard input.
+   */
+  public static final String STANDARD_INPUT = "-";
+  private static final String HEADLESS_KEY = "headless";
+  private static final String NAME_KEY = "name";
+  private static final String ADDRESS_KEY = "address";
+  private static final String PORT_KEY = "port";
+  private static final String INPUT_KEY = "input";
+  private static final String RECONNECT_ATTEMPTS_KEY = "reconnect-attempts";
+  private static final Set<String> KEYS = Set.of(HEADLESS_KEY, NAME_KEY, ADDRESS_KEY, PORT_KEY,
+      INPUT_KEY, RECONNECT_ATTEMPTS_KEY);
+  private static final String DEFAULT_NAME = "bot";
+  private static final String DEFAULT_ADDRESS = "localhost";
+
+  /**
+   * Constructs a new ClientSettings with the specified values.
+   *
+   * @throws NullPointerException     if any of the parameters is null
+   * @throws IllegalArgumentException if the name is not valid, the address or the input is blank
+   *                                  the port is out of range or the reconnection attempts are
+   *                                  negative
+   */
+  public ClientSettings {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(address);
+    Objects.requireNonNull(input);
+    Validate.isTrue(!InputValidator.isUserNameNotValid(name), "The client name is not valid");
+    Validate.notBlank(address, "The server address must not be blank");
+    Validate.inclusiveBetween(Port.PORT_MIN, Port.PORT_MAX, port, "The port is out of range");
+    Validate.notBlank(input, "The input must not be blank");
+    Validate.isTrue(0 <= reconnectAttempts, "The reconnection attempts must not be negative");
+  }
+
+  /**
+   * Constructs a new interactive ClientSettings with the default values.
+   */
+  public ClientSettings() {
+    this(false, DEFAULT_NAME, DEFAULT_ADDRESS, Port.PORT_DEFAULT, STANDARD_INPUT,
+        new ReconnectConfig().maxAttempts());
+  }
+
+  /**
+   * Loads the client settings from the command line arguments, the environment variables and the
+   * properties file they may point to.
+   *
+   * @param args        the command line arguments
+   * @param environment the environment variables
+   * @return the loaded settings
+   * @throws EndApplicationException if a setting is unknown or invalid, or the properties file
+   *                                 cannot be read
+   */
+  public static ClientSettings load(final List<String> args,
+      final Map<String, String> environment) throws EndApplicationException {
+    try {
+      final Settings settings = Settings.load(KEYS, ENV_PREFIX, args, environment);
+      final ClientSettings defaults = new ClientSettings();
+      return new ClientSettings(
+          settings.getBoolean(HEADLESS_KEY, defaults.headless()),
+          settings.getString(NAME_KEY, defaults.name()),
+          settings.getString(ADDRESS_KEY, defaults.address()),
+          settings.getInt(PORT_KEY, defaults.port()),
+          settings.getString(INPUT_KEY, defaults.input()),
+          settings.getInt(RECONNECT_ATTEMPTS_KEY, defaults.reconnectAttempts()));
+    } catch (final IllegalArgumentException e) {
+      throw new EndApplicationException("Invalid client settings: " + e.getMessage(), e);
+    } catch (final IOException e) {
+      throw new EndApplicationException("Error reading the client settings file", e);
+    }
+  }
+
+  /**
+   * Creates the configuration of the headless client.
+   *
+   * @return the client configuration with the name, address, port and reconnections of these
+   *     settings
+   */
+  public ClientConfig clientConfig() {
+    return new ClientConfig(name, address, port, new ReconnectConfig(reconnectAttempts));
+  }
+}
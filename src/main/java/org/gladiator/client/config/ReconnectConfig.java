@@ -0,0 +1,79 @@
+package org.gladiator.client.config;
+
+import java.time.Duration;
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents how the client reconnects to the server once the connection is lost.
+ *
+ * <p>The delay before each attempt doubles from the initial delay up to the maximum delay, and the
+ * actual delay is drawn at random between half of it and all of it, so the clients of a server
+ * that restarts do not all reconnect at the same time.</p>
+ *
+ * @param maxAttempts  the attempts before giving up, zero to never reconnect by itself
+ * @param initialDelay the delay before the first attempt
+ * @param maxDelay     the longest delay between two attempts
+ * @param bufferSize   the messages typed while disconnected that are kept to send on reconnection
+ */
+public record ReconnectConfig(int maxAttempts, Duration initialDelay, Duration maxDelay,
+                              int bufferSize) {
+
+  private static final int DEFAULT_MAX_ATTEMPTS = 10;
+  private static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(250);
+  private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(30);
+  private static final int DEFAULT_BUFFER_SIZE = 20;
+
+  /**
+   * Constructs a new ReconnectConfig with the specified values.
+   *
+   * @throws NullPointerException     if any of the delays is null
+   * @throws IllegalArgumentException if the attempts or the buffer size are negative, the initial
+   *                                  delay is not positive or the maximum delay is shorter than it
+   */
+  public ReconnectConfig {
+    Objects.requireNonNull(initialDelay);
+    Objects.requireNonNull(maxDelay);
+    Validate.isTrue(0 <= maxAttempts, "The reconnection attempts must not be negative");
+    Validate.isTrue(initialDelay.isPositive(), "The initial reconnection delay must be positive");
+    Validate.isTrue(0 <= maxDelay.compareTo(initialDelay),
+        "The maximum reconnection delay must not be shorter than the initial one");
+    Validate.isTrue(0 <= bufferSize, "The reconnection buffer size must not be negative");
+  }
+
+  /**
+   * Constructs a new ReconnectConfig with the default values: up to 10 attempts, delays from 250
+   * milliseconds up to 30 seconds, and up to 20 messages kept while disconnected, which the
+   * default burst of the server accepts at once.
+   */
+  public ReconnectConfig() {
+    this(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Constructs a new ReconnectConfig with the default delays and buffer size.
+   *
+   * @param maxAttempts the attempts before giving up, zero to never reconnect by itself
+   */
+  public ReconnectConfig(final int maxAttempts) {
+    this(maxAttempts, DEFAULT_INITIAL_DELAY, DEFAULT_MAX_DELAY, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Gets the delay before an attempt to reconnect: a random delay up to the initial delay doubled
+   * once for each previous attempt, capped by the maximum delay, but never shorter than half of
+   * that bound.
+   *
+   * @param attempt the number of the attempt, starting at 1
+   * @param random  a random number between 0 inclusive and 1 exclusive
+   * @return the delay before the attempt
+   */
+  public Duration delayBefore(final int attempt, final double random) {
+    final int doublings = Math.min(Math.max(0, attempt - 1), Long.SIZE - 2);
+    final long initialNanos = initialDelay.toNanos();
+    final long boundNanos = initialNanos > maxDelay.toNanos() >> doublings
+        ? maxDelay.toNanos() : initialNanos << doublings;
+    final long halfBoundNanos = boundNanos / 2;
+    return Duration.ofNanos(halfBoundNanos + (long) (halfBoundNanos * random));
+  }
+}
@@ -0,0 +1,56 @@
+package org.gladiator.client.console;
+
+import java.util.function.Consumer;
+import org.gladiator.util.connection.message.model.Message;
+
+/**
+ * The console of the client, where the received messages are shown and the messages to send are
+ * typed.
+ *
+ * @see InteractiveClientConsole
+ * @see HeadlessClientConsole
+ */
+public interface ClientConsole extends AutoCloseable {
+
+  /**
+   * Shows a message received from the server.
+   *
+   * @param message The message to show.
+   */
+  void showMessage(Message message);
+
+  /**
+   * Shows an informational text, such as an error or the result of a command.
+   *
+   * @param text The text to show.
+   */
+  void display(String text);
+
+  /**
+   * Shows an informational text that stands out, such as the server the client connected to.
+   *
+   * @param text The text to show.
+   */
+  void displayBanner(String text);
+
+  /**
+   * Reads the lines to send and passes them to the handler, until the user quits, the input ends
+   * or the reading thread is interrupted.
+   *
+   * @param lineHandler The handler of each line.
+   */
+  void readLines(Consumer<String> lineHandler);
+
+  /**
+   * Asks whether to connect to another server once the connection ended.
+   *
+   * @return true to connect to another server
+   */
+  boolean askReconnect();
+
+  /**
+   * Closes the console.
+   */
+  @Override
+  void close();
+}
@@ -0,0 +1,210 @@
+package org.gladiator.client.console;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.gladiator.client.config.ClientSettings;
+import org.gladiator.util.connection.message.model.DisconnectMessage;
+import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.connection.message.model.NewConnectionMessage;
+import org.gladiator.util.connection.message.model.PresenceMessage;
+import org.gladiator.util.connection.message.model.SearchResultMessage;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.gladiator.util.json.Json;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Console of a client run without a terminal, such as a bot or a step of a pipeline.
+ *
+ * <p>It sends every line of the input, the standard input or a file, and ends once the input ends
+ * or a `quit` line is read. Every received message is written to the output as a single JSON
+ * line, such as:</p>
+ *
+ * <pre>
+ * {"type":"message","sequence":42,"timestamp":1760889600000,"sender":"alice","text":"hi"}
+ * {"type":"join","user":"bob"}
+ * {"type":"leave","user":"bob"}
+ * {"type":"search_result","query":"hi","results":[...]}
+ * {"type":"info","text":"Connection Established with Server"}
+ * </pre>
+ *
+ * <p>The input is read by its own thread into a bounded queue, so the thread sending the lines
+ * can be interrupted when the connection ends, even if the input is still open. The standard input
+ * is never closed, its reader holds the lock of the input while it waits for a line, so closing it
+ * would block until the next line, the reading thread ends with the application instead.</p>
+ */
+public final class HeadlessClientConsole implements ClientConsole {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HeadlessClientConsole.class);
+  private static final String QUIT_COMMAND = "quit";
+  private static final int MAX_PENDING_LINES = 1024;
+
+  private final BufferedReader input;
+  private final boolean isStandardInput;
+  private final PrintStream output;
+  private final BlockingQueue<Optional<String>> pendingLines =
+      new ArrayBlockingQueue<>(MAX_PENDING_LINES);
+
+  private HeadlessClientConsole(final BufferedReader input, final boolean isStandardInput,
+      final PrintStream output) {
+    this.input = input;
+    this.isStandardInput = isStandardInput;
+    this.output = output;
+    Thread.ofVirtual().name("console_input").start(this::readInput);
+  }
+
+  /**
+   * Opens a headless console.
+   *
+   * @param inputPath the path of the file to read the lines to send from, or
+   *                  {@value ClientSettings#STANDARD_INPUT} for the standard input
+   * @param output    the stream the received messages are written to
+   * @return the opened console
+   * @throws IOException if the input file cannot be opened
+   */
+  public static HeadlessClientConsole open(final String inputPath, final PrintStream output)
+      throws IOException {
+    final boolean isStandardInput = ClientSettings.STANDARD_INPUT.equals(inputPath);
+    final Reader reader = isStandardInput
+        ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+        : Files.newBufferedReader(Path.of(inputPath), StandardCharsets.UTF_8);
+    return new HeadlessClientConsole(new BufferedReader(reader), isStandardInput, output);
+  }
+
+  /**
+   * Reads the input into the queue of pending lines, followed by an empty line once it ended.
+   */
+  private void readInput() {
+    try {
+      String line = input.readLine();
+      while (null != line) {
+        pendingLines.put(Optional.of(line));
+        line = input.readLine();
+      }
+    } catch (final IOException e) {
+      LOGGER.debug("Error reading the input", e);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    pendingLines.add(Optional.empty());
+  }
+
+  @Override
+  public void showMessage(final Message message) {
+    output.println(toJson(message));
+  }
+
+  @Override
+  public void display(final String text) {
+    output.println(infoJson(text));
+  }
+
+  @Override
+  public void displayBanner(final String text) {
+    display(text);
+  }
+
+  @Override
+  public void readLines(final Consumer<String> lineHandler) {
+    try {
+      Optional<String> line = pendingLines.take();
+      while (line.isPresent() && !QUIT_COMMAND.equals(line.get())) {
+        lineHandler.accept(line.get());
+        line = pendingLines.take();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A headless client never connects to another server.
+   *
+   * @return false
+   */
+  @Override
+  public boolean askReconnect() {
+    return false;
+  }
+
+  /**
+   * Flushes the output and closes the input, unless it is the standard input.
+   */
+  @Override
+  public void close() {
+    output.flush();
+    if (isStandardInput) {
+      return;
+    }
+    try {
+      input.close();
+    } catch (final IOException e) {
+      LOGGER.debug("Error closing the input", e);
+    }
+  }
+
+  private static String toJson(final Message message) {
+    return switch (message) {
+      case final SimpleMessage simpleMessage -> simpleMessageJson(simpleMessage);
+      case final NewConnectionMessage newConnection ->
+          "{\"type\":\"join\",\"user\":" + Json.quote(newConnection.newConnectionUserName()) + "}";
+      case final DisconnectMessage disconnection ->
+          "{\"type\":\"leave\",\"user\":" + Json.quote(disconnection.disconnectedUserName()) + "}";
+      case final PresenceMessage presence -> presenceJson(presence);
+      case final SearchResultMessage searchResult -> searchResultJson(searchResult);
+      default -> "{\"type\":" + Json.quote(message.getType().name().toLowerCase(Locale.ROOT))
+          + ",\"text\":" + Json.quote(message.toString()) + "}";
+    };
+  }
+
+  private static String simpleMessageJson(final SimpleMessage message) {
+    return "{\"type\":\"message\",\"sequence\":" + message.sequence()
+        + ",\"timestamp\":" + message.timestamp()
+        + ",\"sender\":" + Json.quote(message.senderName())
+        + ",\"text\":" + Json.quote(message.message()) + "}";
+  }
+
+  private static String presenceJson(final PresenceMessage message) {
+    return "{\"type\":\"presence\",\"joined_count\":" + message.joinedCount()
+        + ",\"left_count\":" + message.leftCount()
+        + ",\"joined\":" + namesJson(message.joined())
+        + ",\"left\":" + namesJson(message.left()) + "}";
+  }
+
+  private static String namesJson(final List<String> names) {
+    return names.stream()
+        .map(Json::quote)
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  private static String searchResultJson(final SearchResultMessage message) {
+    final StringBuilder json = new StringBuilder("{\"type\":\"search_result\",\"query\":")
+        .append(Json.quote(message.query()))
+        .append(",\"results\":[");
+    for (int i = 0; i < message.results().size(); i++) {
+      if (0 < i) {
+        json.append(',');
+      }
+      json.append(simpleMessageJson(message.results().get(i)));
+    }
+    return json.append("]}").toString();
+  }
+
+  private static String infoJson(final String text) {
+    return "{\"type\":\"info\",\"text\":" + Json.quote(text) + "}";
+  }
+}
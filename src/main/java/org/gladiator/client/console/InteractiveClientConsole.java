@@ -0,0 +1,77 @@
+package org.gladiator.client.console;
+
+import java.util.function.Consumer;
+import org.gladiator.util.chat.ChatUtils;
+import org.gladiator.util.connection.message.model.Message;
+import org.jline.reader.EndOfFileException;
+import org.jline.reader.UserInterruptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Console of a client run on a terminal, it renders every received message and reads the lines
+ * typed by the user until `quit` is typed.
+ */
+public final class InteractiveClientConsole implements ClientConsole {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InteractiveClientConsole.class);
+  private static final String QUIT_COMMAND = "quit";
+
+  private final ChatUtils chatUtils;
+
+  /**
+   * Constructs a new InteractiveClientConsole.
+   *
+   * @param chatUtils the chat utilities of the terminal, closed along with the console
+   */
+  public InteractiveClientConsole(final ChatUtils chatUtils) {
+    this.chatUtils = chatUtils;
+  }
+
+  @Override
+  public void showMessage(final Message message) {
+    chatUtils.showNewMessage(message);
+  }
+
+  @Override
+  public void display(final String text) {
+    chatUtils.displayOnScreen(text);
+  }
+
+  @Override
+  public void displayBanner(final String text) {
+    chatUtils.displayBanner(text);
+  }
+
+  @Override
+  public void readLines(final Consumer<String> lineHandler) {
+    chatUtils.displayOnScreen("Type `" + QUIT_COMMAND + "` to exit");
+
+    try {
+      String line = chatUtils.getUserInput();
+
+      while (null != line && !QUIT_COMMAND.equals(line)) {
+        lineHandler.accept(line);
+        line = chatUtils.getUserInput();
+      }
+    } catch (final EndOfFileException | UserInterruptException e) {
+      LOGGER.debug(ChatUtils.USER_INTERRUPT_MESSAGE, e);
+    }
+  }
+
+  @Override
+  public boolean askReconnect() {
+    try {
+      final String choice = chatUtils.getUserInput("Connect to another server? y/N: ");
+      return "Y".equalsIgnoreCase(choice);
+    } catch (final UserInterruptException | EndOfFileException e) {
+      LOGGER.debug(ChatUtils.USER_INTERRUPT_MESSAGE, e);
+      return false;
+    }
+  }
+
+  @Override
+  public void close() {
+    chatUtils.close();
+  }
+}
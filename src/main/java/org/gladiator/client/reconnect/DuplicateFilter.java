@@ -0,0 +1,55 @@
+package org.gladiator.client.reconnect;
+
+import java.util.LinkedHashSet;
+import java.util.SequencedSet;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+
+/**
+ * Remembers the chat messages received last, so a message received again once the client
+ * reconnects is shown only once. Used by a single thread at a time.
+ *
+ * <p>A message is told apart by the sequence number and the timestamp the server stamped it with,
+ * so the messages of a server that restarted without its history, which reuses the sequence
+ * numbers, are not mistaken for the ones already received. The messages that were not stamped are
+ * never duplicates.</p>
+ */
+public final class DuplicateFilter {
+
+  private final SequencedSet<Stamp> receivedStamps = new LinkedHashSet<>();
+  private final int capacity;
+
+  /**
+   * Constructs a new DuplicateFilter.
+   *
+   * @param capacity the number of messages remembered
+   */
+  public DuplicateFilter(final int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Records a received message, unless it was already received.
+   *
+   * @param message the received message
+   * @return true if the message was not received before
+   */
+  public boolean isFirstReceived(final SimpleMessage message) {
+    if (0 == message.sequence()) {
+      return true;
+    }
+    if (!receivedStamps.add(new Stamp(message.sequence(), message.timestamp()))) {
+      return false;
+    }
+    if (capacity < receivedStamps.size()) {
+      receivedStamps.removeFirst();
+    }
+    return true;
+  }
+
+  /**
+   * The stamp of a message given by the server.
+   */
+  private record Stamp(long sequence, long timestamp) {
+
+  }
+}
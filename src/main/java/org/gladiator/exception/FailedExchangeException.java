@@ -15,4 +15,13 @@ public class FailedExchangeException extends Exception {
   public FailedExchangeException(final Throwable cause) {
     super(cause);
   }
+
+  /**
+   * Constructs a new FailedExchangeException with the specified message.
+   *
+   * @param message the detail message
+   */
+  public FailedExchangeException(final String message) {
+    super(message);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package org.gladiator.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.gladiator.client.Client;
+import org.gladiator.client.config.ClientConfig;
+import org.gladiator.client.config.ReconnectConfig;
+import org.gladiator.exception.EndApplicationException;
+import org.gladiator.loadtest.LoadReport.LatencySummary;
+import org.gladiator.loadtest.config.LoadSettings;
+import org.gladiator.server.Server;
+import org.gladiator.server.config.MetricsConfig;
+import org.gladiator.server.config.ServerSettings;
+import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates load on a server with simulated clients, all in this process, and measures how the
+ * server copes with it.
+ *
+ * <p>Every simulated client is a real {@link Client}, with the same handshake and encryption as a
+ * user, driven by a {@link SimulatedClientConsole} instead of a terminal. The load test connects
+ * all the clients, then the senders send messages at the configured rate for the configured
+ * duration, then it waits for the last deliveries and disconnects the clients.</p>
+ */
+public final class LoadGenerator {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+  private static final String CLIENT_NAME_PREFIX = "load";
+  private static final String EMBEDDED_SERVER_NAME = "LoadServer";
+  private static final Duration CONNECT_TIMEOUT = Duration.ofMinutes(2);
+  private static final Duration SETTLE_TIME = Duration.ofSeconds(1);
+  private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration DRAIN_POLL_INTERVAL = Duration.ofMillis(10);
+  private static final long CLOSE_TIMEOUT_SECONDS = 10;
+  private static final ReconnectConfig NO_RECONNECT = new ReconnectConfig(0);
+  private static final int RATE_LIMIT_HEADROOM = 2;
+
+  private final LoadSettings settings;
+  private final LoadRun run;
+
+  private LoadGenerator(final LoadSettings settings) {
+    this.settings = settings;
+    this.run = new LoadRun(settings);
+  }
+
+  /**
+   * Runs a load test.
+   *
+   * @param settings the settings of the load test
+   * @return the results of the load test
+   * @throws EndApplicationException if the embedded server cannot be started
+   * @throws InterruptedException    if the thread is interrupted during the load test
+   */
+  public static LoadReport run(final LoadSettings settings)
+      throws EndApplicationException, InterruptedException {
+    final Server server = settings.embeddedServer() ? startEmbeddedServer(settings) : null;
+    try {
+      return new LoadGenerator(settings).execute();
+    } finally {
+      if (null != server) {
+        server.stop();
+        server.close();
+      }
+    }
+  }
+
+  /**
+   * Starts a headless server in this process, which logs none of the chat messages. Its rate
+   * limits are raised to twice the rate of the load test when the default ones are lower, so the
+   * measured throughput is not capped by them, and it accepts all the clients of the test.
+   */
+  private static Server startEmbeddedServer(final LoadSettings settings)
+      throws EndApplicationException {
+    final ServerSettings defaults = new ServerSettings();
+    final int roomRate = Math.max(defaults.roomRate(),
+        (int) Math.ceil(RATE_LIMIT_HEADROOM * settings.rate()));
+    final int connectionRate = Math.max(defaults.connectionRate(),
+        (int) Math.ceil(RATE_LIMIT_HEADROOM * settings.rate() / settings.senders()));
+    final Server server = Server.createServer(
+        new ServerSettings(true, EMBEDDED_SERVER_NAME, settings.port(), 0,
+            MetricsConfig.DISABLED, defaults.flushWindow(), defaults.tcpNoDelay(),
+            defaults.sendBuffer(), defaults.receiveBuffer(), defaults.privilegedAddresses(),
+            defaults.idleTimeout(), defaults.writeTimeout(), connectionRate,
+            Math.max(defaults.connectionBurst(), connectionRate),
+            roomRate, Math.max(defaults.roomBurst(), roomRate), defaults.maxRejected(),
+            defaults.acceptBacklog(), Math.max(defaults.maxConnections(), settings.clients()),
+            defaults.maxHandshakes(), defaults.presenceMinWindow(),
+            defaults.presenceMaxWindow(), defaults.presenceListedNames(),
+            defaults.historySegmentSize(), defaults.historyRetention(),
+            defaults.historyRetentionAge()));
+    Thread.ofVirtual().name("embedded_server").start(server::runServer);
+    return server;
+  }
+
+  private LoadReport execute() throws InterruptedException {
+    final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("load_client");
+    try {
+      final int connectedClients = connectClients(executor);
+      LOGGER.info("{} of {} clients connected, sending {} messages per second for {} seconds",
+          connectedClients, settings.clients(), settings.rate(), settings.durationSeconds());
+
+      TimeUnit.NANOSECONDS.sleep(SETTLE_TIME.toNanos());
+      final long startNanos = System.nanoTime();
+      run.startSending(startNanos);
+      TimeUnit.SECONDS.sleep(settings.durationSeconds());
+      final long expectedDeliveries = awaitDeliveries(connectedClients);
+      final double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+      return new LoadReport(settings, connectedClients, settings.clients() - connectedClients,
+          run.sentMessages(), expectedDeliveries, run.deliveredMessages(), elapsedSeconds,
+          LatencySummary.of(run.handshakeLatency()), LatencySummary.of(run.deliveryLatency()));
+    } finally {
+      run.finish();
+      executor.shutdown();
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Connects the simulated clients, with at most the configured number of handshakes at the same
+   * time, and waits for all the handshakes to end.
+   *
+   * @return the number of clients that connected
+   */
+  private int connectClients(final ExecutorService executor) throws InterruptedException {
+    final Semaphore handshakePermits = new Semaphore(settings.connectConcurrency());
+    final List<CompletableFuture<Boolean>> handshakes = new ArrayList<>(settings.clients());
+
+    for (int i = 0; i < settings.clients(); i++) {
+      handshakePermits.acquire();
+      final int senderIndex = i < settings.senders() ? i : SimulatedClientConsole.NOT_SENDER;
+      final SimulatedClientConsole console = new SimulatedClientConsole(run, senderIndex);
+      handshakes.add(console.handshake()
+          .whenComplete((connected, e) -> handshakePermits.release()));
+
+      final ClientConfig clientConfig = new ClientConfig(CLIENT_NAME_PREFIX + i,
+          settings.address(), settings.port(), NO_RECONNECT);
+      executor.execute(() -> runClient(console, clientConfig));
+    }
+
+    try {
+      CompletableFuture.allOf(handshakes.toArray(new CompletableFuture<?>[0]))
+          .get(CONNECT_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+    } catch (final ExecutionException | TimeoutException e) {
+      LOGGER.warn("Not all the clients ended their handshake in {} seconds",
+          CONNECT_TIMEOUT.toSeconds());
+    }
+    return (int) handshakes.stream()
+        .filter(handshake -> Boolean.TRUE.equals(handshake.getNow(false)))
+        .count();
+  }
+
+  private static void runClient(final SimulatedClientConsole console,
+      final ClientConfig clientConfig) {
+    try (console; final Client client = Client.createClient(console, clientConfig)) {
+      client.run();
+    } catch (final EndApplicationException e) {
+      LOGGER.debug("Simulated client {} ended", clientConfig.name(), e);
+    }
+  }
+
+  /**
+   * Waits for the senders to send their last messages and for every message sent to be delivered
+   * to every connected client but its sender, or for the drain timeout.
+   *
+   * @return the number of expected deliveries
+   */
+  private long awaitDeliveries(final int connectedClients) throws InterruptedException {
+    final long deadlineNanos = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+    long expectedDeliveries = expectedDeliveries(connectedClients);
+    while ((run.isSending() || run.deliveredMessages() < expectedDeliveries)
+        && System.nanoTime() < deadlineNanos) {
+      TimeUnit.NANOSECONDS.sleep(DRAIN_POLL_INTERVAL.toNanos());
+      expectedDeliveries = expectedDeliveries(connectedClients);
+    }
+    if (run.deliveredMessages() < expectedDeliveries) {
+      LOGGER.warn("{} deliveries missing after {} seconds",
+          expectedDeliveries - run.deliveredMessages(), DRAIN_TIMEOUT.toSeconds());
+    }
+    return expectedDeliveries;
+  }
+
+  private long expectedDeliveries(final int connectedClients) {
+    return run.sentMessages() * Math.max(0, connectedClients - 1);
+  }
+}
@@ -0,0 +1,105 @@
+package org.gladiator.loadtest;
+
+import java.util.Locale;
+import org.gladiator.loadtest.config.LoadSettings;
+import org.gladiator.util.json.Json;
+import org.gladiator.util.metrics.LatencyHistogram;
+
+/**
+ * Represents the results of a load test.
+ *
+ * @param settings           the settings of the load test
+ * @param connectedClients   the number of simulated clients that connected
+ * @param failedClients      the number of simulated clients that could not connect
+ * @param sentMessages       the number of messages sent
+ * @param expectedDeliveries the number of deliveries expected, each message being delivered to
+ *                           every connected client but its sender
+ * @param deliveredMessages  the number of messages delivered
+ * @param elapsedSeconds     the time from the start of the sending phase to the last delivery, or
+ *                           to the end of the wait for the missing deliveries
+ * @param handshakeLatency   the latencies of the handshakes
+ * @param deliveryLatency    the latencies from the scheduled send of a message to its delivery
+ */
+public record LoadReport(LoadSettings settings, int connectedClients, int failedClients,
+                         long sentMessages, long expectedDeliveries, long deliveredMessages,
+                         double elapsedSeconds, LatencySummary handshakeLatency,
+                         LatencySummary deliveryLatency) {
+
+  /**
+   * Gets the number of messages sent per second.
+   *
+   * @return the sent messages per second over the sending phase
+   */
+  public double sendThroughput() {
+    return sentMessages / (double) settings.durationSeconds();
+  }
+
+  /**
+   * Gets the number of messages delivered per second.
+   *
+   * @return the delivered messages per second over the elapsed time
+   */
+  public double deliveryThroughput() {
+    return 0 == elapsedSeconds ? 0 : deliveredMessages / elapsedSeconds;
+  }
+
+  /**
+   * Writes the report as a JSON document.
+   *
+   * @return the JSON document
+   */
+  public String toJson() {
+    return "{\n"
+        + "  \"settings\": {"
+        + "\"clients\": " + settings.clients()
+        + ", \"senders\": " + settings.senders()
+        + ", \"rate\": " + format(settings.rate())
+        + ", \"duration_seconds\": " + settings.durationSeconds()
+        + ", \"message_size\": " + settings.messageSize()
+        + ", \"address\": " + Json.quote(settings.address())
+        + ", \"port\": " + settings.port()
+        + ", \"embedded_server\": " + settings.embeddedServer()
+        + ", \"connect_concurrency\": " + settings.connectConcurrency() + "},\n"
+        + "  \"connections\": {"
+        + "\"connected\": " + connectedClients
+        + ", \"failed\": " + failedClients + "},\n"
+        + "  \"throughput\": {"
+        + "\"sent\": " + sentMessages
+        + ", \"expected_deliveries\": " + expectedDeliveries
+        + ", \"delivered\": " + deliveredMessages
+        + ", \"elapsed_seconds\": " + format(elapsedSeconds)
+        + ", \"sent_per_second\": " + format(sendThroughput())
+        + ", \"delivered_per_second\": " + format(deliveryThroughput()) + "},\n"
+        + "  \"handshake_latency_us\": " + handshakeLatency.toJson() + ",\n"
+        + "  \"delivery_latency_us\": " + deliveryLatency.toJson() + "\n"
+        + "}\n";
+  }
+
+  private static String format(final double value) {
+    return String.format(Locale.ROOT, "%.3f", value);
+  }
+
+  /**
+   * Represents the percentiles of latencies, in microseconds.
+   *
+   * @param count the number of latencies
+   * @param mean  the mean latency
+   * @param p50   the median latency
+   * @param p99   the 99th percentile latency
+   * @param p999  the 99.9th percentile latency
+   * @param max   the highest latency
+   */
+  public record LatencySummary(long count, long mean, long p50, long p99, long p999, long max) {
+
+    static LatencySummary of(final LatencyHistogram histogram) {
+      return new LatencySummary(histogram.count(), histogram.meanMicros(),
+          histogram.percentileMicros(50), histogram.percentileMicros(99),
+          histogram.percentileMicros(99.9), histogram.maxMicros());
+    }
+
+    private String toJson() {
+      return "{\"count\": " + count + ", \"mean\": " + mean + ", \"p50\": " + p50
+          + ", \"p99\": " + p99 + ", \"p999\": " + p999 + ", \"max\": " + max + "}";
+    }
+  }
+}
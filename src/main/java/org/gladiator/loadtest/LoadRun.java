@@ -0,0 +1,174 @@
+package org.gladiator.loadtest;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.gladiator.loadtest.config.LoadSettings;
+import org.gladiator.util.metrics.LatencyHistogram;
+
+/**
+ * State of a load test shared by all its simulated clients: when to send, what to send and the
+ * measured latencies and counts.
+ *
+ * <p>Every message sent carries the identifier of the run and the time it was scheduled to be
+ * sent, so the receivers measure the delivery latency from the schedule, not from the actual
+ * send: a sender falling behind its schedule is counted as latency instead of being hidden. The
+ * messages of other runs, such as the ones replayed from the server history, are ignored.</p>
+ */
+final class LoadRun {
+
+  private static final int RUN_ID_BYTES = 4;
+
+  private final String runPrefix;
+  private final int senders;
+  private final int messageSize;
+  private final long intervalNanos;
+  private final long durationNanos;
+  private final LatencyHistogram handshakeLatency = new LatencyHistogram();
+  private final LatencyHistogram deliveryLatency = new LatencyHistogram();
+  private final LongAdder sentMessages = new LongAdder();
+  private final LongAdder deliveredMessages = new LongAdder();
+  private final AtomicInteger activeSenders = new AtomicInteger();
+  private final CountDownLatch sendingStarted = new CountDownLatch(1);
+  private final CountDownLatch finished = new CountDownLatch(1);
+  private volatile long sendingStartNanos;
+
+  /**
+   * Constructs a new LoadRun with a random identifier.
+   *
+   * @param settings the settings of the load test
+   */
+  LoadRun(final LoadSettings settings) {
+    final byte[] runId = new byte[RUN_ID_BYTES];
+    new SecureRandom().nextBytes(runId);
+    this.runPrefix = "load-" + HexFormat.of().formatHex(runId) + " ";
+    this.senders = settings.senders();
+    this.messageSize = settings.messageSize();
+    this.intervalNanos = Math.round(TimeUnit.SECONDS.toNanos(settings.senders()) / settings.rate());
+    this.durationNanos = TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+  }
+
+  /**
+   * Starts the sending phase, the senders start at the given time.
+   *
+   * @param startNanos the {@link System#nanoTime()} the sending phase starts at
+   */
+  void startSending(final long startNanos) {
+    sendingStartNanos = startNanos;
+    sendingStarted.countDown();
+  }
+
+  /**
+   * Ends the run, the simulated clients disconnect.
+   */
+  void finish() {
+    finished.countDown();
+  }
+
+  /**
+   * Waits for the run to end.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  void awaitFinish() throws InterruptedException {
+    finished.await();
+  }
+
+  /**
+   * Sends the messages of a sender at its share of the rate, from the start to the end of the
+   * sending phase. The senders are staggered over the interval between two messages of a sender,
+   * so the messages are evenly spread.
+   *
+   * @param senderIndex the index of the sender, from 0 to the number of senders
+   * @param sender      sends a line to the server
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  void sendMessages(final int senderIndex, final Consumer<String> sender)
+      throws InterruptedException {
+    activeSenders.incrementAndGet();
+    try {
+      sendingStarted.await();
+      final long endNanos = sendingStartNanos + durationNanos;
+      long scheduledNanos = sendingStartNanos + intervalNanos * senderIndex / senders;
+      while (scheduledNanos < endNanos) {
+        final long waitNanos = scheduledNanos - System.nanoTime();
+        if (0 < waitNanos) {
+          TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        sender.accept(createMessage(scheduledNanos));
+        sentMessages.increment();
+        scheduledNanos += intervalNanos;
+      }
+    } finally {
+      activeSenders.decrementAndGet();
+    }
+  }
+
+  /**
+   * Checks if a sender is still sending, such as a sender behind its schedule at the end of the
+   * sending phase.
+   *
+   * @return true if a sender has messages left to send
+   */
+  boolean isSending() {
+    return 0 < activeSenders.get();
+  }
+
+  private String createMessage(final long scheduledNanos) {
+    final StringBuilder message = new StringBuilder(Math.max(messageSize, runPrefix.length() + 20))
+        .append(runPrefix)
+        .append(scheduledNanos)
+        .append(' ');
+    while (message.length() < messageSize) {
+      message.append('x');
+    }
+    return message.toString();
+  }
+
+  /**
+   * Records the delivery of a chat message to a simulated client, if it was sent by this run.
+   *
+   * @param text the text of the chat message
+   */
+  void recordDelivery(final String text) {
+    if (!text.startsWith(runPrefix)) {
+      return;
+    }
+    final int end = text.indexOf(' ', runPrefix.length());
+    if (0 > end) {
+      return;
+    }
+    final long scheduledNanos = Long.parseLong(text, runPrefix.length(), end, 10);
+    deliveryLatency.record(System.nanoTime() - scheduledNanos);
+    deliveredMessages.increment();
+  }
+
+  /**
+   * Records the duration of a successful handshake.
+   *
+   * @param nanos the duration of the handshake in nanoseconds
+   */
+  void recordHandshake(final long nanos) {
+    handshakeLatency.record(nanos);
+  }
+
+  LatencyHistogram handshakeLatency() {
+    return handshakeLatency;
+  }
+
+  LatencyHistogram deliveryLatency() {
+    return deliveryLatency;
+  }
+
+  long sentMessages() {
+    return sentMessages.sum();
+  }
+
+  long deliveredMessages() {
+    return deliveredMessages.sum();
+  }
+}
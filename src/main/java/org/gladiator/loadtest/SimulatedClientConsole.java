@@ -0,0 +1,100 @@
+package org.gladiator.loadtest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import org.gladiator.client.console.ClientConsole;
+import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Console of a simulated client of a load test. It sends the messages of the run if the client is
+ * a sender, and records the messages it receives instead of showing them.
+ */
+final class SimulatedClientConsole implements ClientConsole {
+
+  /**
+   * The sender index of the clients that only receive messages.
+   */
+  static final int NOT_SENDER = -1;
+  private static final Logger LOGGER = LoggerFactory.getLogger(SimulatedClientConsole.class);
+
+  private final LoadRun run;
+  private final int senderIndex;
+  private final long createdNanos = System.nanoTime();
+  private final CompletableFuture<Boolean> handshake = new CompletableFuture<>();
+
+  /**
+   * Constructs a new SimulatedClientConsole, its handshake is timed from now.
+   *
+   * @param run         the load test the client is part of
+   * @param senderIndex the index of the client among the senders, or {@link #NOT_SENDER}
+   */
+  SimulatedClientConsole(final LoadRun run, final int senderIndex) {
+    this.run = run;
+    this.senderIndex = senderIndex;
+  }
+
+  /**
+   * Gets the outcome of the handshake of the client.
+   *
+   * @return a future completed with true once the client is connected, or with false if it could
+   *     not connect
+   */
+  CompletableFuture<Boolean> handshake() {
+    return handshake;
+  }
+
+  /**
+   * Marks the handshake as failed, if the client never connected.
+   */
+  void failHandshake() {
+    handshake.complete(false);
+  }
+
+  @Override
+  public void showMessage(final Message message) {
+    if (message instanceof final SimpleMessage chatMessage) {
+      run.recordDelivery(chatMessage.message());
+    }
+  }
+
+  @Override
+  public void display(final String text) {
+    LOGGER.debug(text);
+  }
+
+  /**
+   * The client shows the banner once the handshake succeeded.
+   *
+   * @param text The text to show.
+   */
+  @Override
+  public void displayBanner(final String text) {
+    run.recordHandshake(System.nanoTime() - createdNanos);
+    handshake.complete(true);
+  }
+
+  @Override
+  public void readLines(final Consumer<String> lineHandler) {
+    try {
+      if (NOT_SENDER != senderIndex) {
+        run.sendMessages(senderIndex, lineHandler);
+      }
+      run.awaitFinish();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean askReconnect() {
+    return false;
+  }
+
+  @Override
+  public void close() {
+    failHandshake();
+  }
+}
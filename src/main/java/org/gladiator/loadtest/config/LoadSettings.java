@@ -0,0 +1,124 @@
+package org.gladiator.loadtest.config;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.environment.Port;
+import org.gladiator.exception.EndApplicationException;
+import org.gladiator.util.settings.Settings;
+
+/**
+ * Represents the settings of a load test, from the command line, the environment or a properties
+ * file.
+ *
+ * @param clients            the number of simulated clients connected to the server
+ * @param senders            how many of the clients send messages, the others only receive them
+ * @param rate               the messages per second sent by all the senders together
+ * @param durationSeconds    how long the messages are sent for
+ * @param messageSize        the length of each message, in characters
+ * @param address            the address of the server
+ * @param port               the port of the server
+ * @param embeddedServer     whether to start a headless server in the load generator, on the
+ *                           given port, instead of connecting to a running one
+ * @param connectConcurrency the maximum number of clients handshaking at the same time
+ * @param output             the path of the JSON file the results are written to
+ * @see Settings
+ */
+public record LoadSettings(int clients, int senders, double rate, int durationSeconds,
+                           int messageSize, String address, int port, boolean embeddedServer,
+                           int connectConcurrency, String output) {
+
+  /**
+   * The prefix of the environment variables of the load test settings.
+   */
+  public static final String ENV_PREFIX = "JMESSENGER_LOAD_";
+  private static final String CLIENTS_KEY = "clients";
+  private static final String SENDERS_KEY = "senders";
+  private static final String RATE_KEY = "rate";
+  private static final String DURATION_KEY = "duration";
+  private static final String MESSAGE_SIZE_KEY = "message-size";
+  private static final String ADDRESS_KEY = "address";
+  private static final String PORT_KEY = "port";
+  private static final String EMBEDDED_SERVER_KEY = "embedded-server";
+  private static final String CONNECT_CONCURRENCY_KEY = "connect-concurrency";
+  private static final String OUTPUT_KEY = "output";
+  private static final Set<String> KEYS = Set.of(CLIENTS_KEY, SENDERS_KEY, RATE_KEY, DURATION_KEY,
+      MESSAGE_SIZE_KEY, ADDRESS_KEY, PORT_KEY, EMBEDDED_SERVER_KEY, CONNECT_CONCURRENCY_KEY,
+      OUTPUT_KEY);
+  private static final int DEFAULT_CLIENTS = 100;
+  private static final int DEFAULT_SENDERS = 10;
+  private static final double DEFAULT_RATE = 50;
+  private static final int DEFAULT_DURATION_SECONDS = 30;
+  private static final int DEFAULT_MESSAGE_SIZE = 64;
+  private static final String DEFAULT_ADDRESS = "localhost";
+  private static final int DEFAULT_CONNECT_CONCURRENCY = 32;
+  private static final String DEFAULT_OUTPUT = "load-result.json";
+
+  /**
+   * Constructs a new LoadSettings with the specified values.
+   *
+   * @throws NullPointerException     if the address or the output is null
+   * @throws IllegalArgumentException if a count, the rate or the duration is not positive, there
+   *                                  are more senders than clients, the port is out of range or
+   *                                  the address or the output is blank
+   */
+  public LoadSettings {
+    Objects.requireNonNull(address);
+    Objects.requireNonNull(output);
+    Validate.isTrue(0 < clients, "The number of clients must be positive");
+    Validate.isTrue(0 < senders, "The number of senders must be positive");
+    Validate.isTrue(senders <= clients, "There cannot be more senders than clients");
+    Validate.isTrue(0 < rate, "The rate must be positive");
+    Validate.isTrue(0 < durationSeconds, "The duration must be positive");
+    Validate.isTrue(0 < messageSize, "The message size must be positive");
+    Validate.notBlank(address, "The server address must not be blank");
+    Validate.inclusiveBetween(Port.PORT_MIN, Port.PORT_MAX, port, "The port is out of range");
+    Validate.isTrue(0 < connectConcurrency, "The connect concurrency must be positive");
+    Validate.notBlank(output, "The output must not be blank");
+  }
+
+  /**
+   * Constructs a new LoadSettings with the default values.
+   */
+  public LoadSettings() {
+    this(DEFAULT_CLIENTS, DEFAULT_SENDERS, DEFAULT_RATE, DEFAULT_DURATION_SECONDS,
+        DEFAULT_MESSAGE_SIZE, DEFAULT_ADDRESS, Port.PORT_DEFAULT, false,
+        DEFAULT_CONNECT_CONCURRENCY, DEFAULT_OUTPUT);
+  }
+
+  /**
+   * Loads the load test settings from the command line arguments, the environment variables and
+   * the properties file they may point to.
+   *
+   * @param args        the command line arguments
+   * @param environment the environment variables
+   * @return the loaded settings
+   * @throws EndApplicationException if a setting is unknown or invalid, or the properties file
+   *                                 cannot be read
+   */
+  public static LoadSettings load(final List<String> args,
+      final Map<String, String> environment) throws EndApplicationException {
+    try {
+      final Settings settings = Settings.load(KEYS, ENV_PREFIX, args, environment);
+      final LoadSettings defaults = new LoadSettings();
+      return new LoadSettings(
+          settings.getInt(CLIENTS_KEY, defaults.clients()),
+          settings.getInt(SENDERS_KEY, defaults.senders()),
+          settings.getDouble(RATE_KEY, defaults.rate()),
+          settings.getInt(DURATION_KEY, defaults.durationSeconds()),
+          settings.getInt(MESSAGE_SIZE_KEY, defaults.messageSize()),
+          settings.getString(ADDRESS_KEY, defaults.address()),
+          settings.getInt(PORT_KEY, defaults.port()),
+          settings.getBoolean(EMBEDDED_SERVER_KEY, defaults.embeddedServer()),
+          settings.getInt(CONNECT_CONCURRENCY_KEY, defaults.connectConcurrency()),
+          settings.getString(OUTPUT_KEY, defaults.output()));
+    } catch (final IllegalArgumentException e) {
+      throw new EndApplicationException("Invalid load test settings: " + e.getMessage(), e);
+    } catch (final IOException e) {
+      throw new EndApplicationException("Error reading the load test settings file", e);
+    }
+  }
+}
@@ -1,42 +1,77 @@
 package org.gladiator.server;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.ObjectOutput;
 import java.io.UncheckedIOException;
 import java.net.BindException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
 import java.security.Key;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Predicate;
+import javax.annotation.Nullable;
 import javax.crypto.SecretKey;
-import javax.net.ServerSocketFactory;
 import org.gladiator.exception.EndApplicationException;
 import org.gladiator.exception.FailedExchangeException;
 import org.gladiator.exception.InvalidMessageException;
+import org.gladiator.server.config.AdmissionConfig;
+import org.gladiator.server.config.HistoryConfig;
+import org.gladiator.server.config.MetricsConfig;
+import org.gladiator.server.config.OutboundConfig;
+import org.gladiator.server.config.PresenceConfig;
 import org.gladiator.server.config.ServerConfig;
 import org.gladiator.server.config.ServerConfigFactory;
+import org.gladiator.server.config.ServerSettings;
+import org.gladiator.server.config.TimeoutConfig;
+import org.gladiator.server.console.HeadlessConsole;
+import org.gladiator.server.console.InteractiveConsole;
+import org.gladiator.server.console.ServerConsole;
+import org.gladiator.server.history.ChatHistory;
+import org.gladiator.server.metrics.MetricsHttpServer;
+import org.gladiator.server.metrics.ServerMetrics;
 import org.gladiator.server.network.PortMapper;
+import org.gladiator.server.presence.PresenceCoalescer;
+import org.gladiator.server.ratelimit.RateLimiter;
+import org.gladiator.server.ratelimit.RateLimiter.ConnectionLimit;
+import org.gladiator.server.scheduling.FairReadScheduler;
+import org.gladiator.server.scheduling.FairReadScheduler.ReadTurn;
+import org.gladiator.server.stats.StatsCollector;
 import org.gladiator.util.chat.ChatUtils;
+import org.gladiator.util.chat.ConsoleCommand;
 import org.gladiator.util.connection.Connection;
 import org.gladiator.util.connection.IoUtils;
+import org.gladiator.util.connection.MessageReader;
+import org.gladiator.util.connection.MessageWriter;
 import org.gladiator.util.connection.exchange.NameExchange;
 import org.gladiator.util.connection.message.ConnectionMessageFactory;
 import org.gladiator.util.connection.message.NonServerSideOnlyPredicate;
-import org.gladiator.util.connection.message.model.DisconnectMessage;
 import org.gladiator.util.connection.message.model.Message;
-import org.gladiator.util.connection.message.model.NewConnectionMessage;
+import org.gladiator.util.connection.message.model.PingMessage;
+import org.gladiator.util.connection.message.model.PongMessage;
+import org.gladiator.util.connection.message.model.SearchMessage;
+import org.gladiator.util.connection.message.model.SearchResultMessage;
 import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.gladiator.util.connection.message.model.SyncMessage;
 import org.gladiator.util.crypto.CryptographyManager;
 import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
-import org.jline.reader.EndOfFileException;
+import org.gladiator.util.timer.HashedTimingWheel;
+import org.gladiator.util.timer.HashedTimingWheel.Timeout;
+import org.gladiator.util.trace.DecodeEvent;
+import org.gladiator.util.trace.FanOutEvent;
+import org.gladiator.util.trace.HandshakePhaseEvent;
+import org.gladiator.util.trace.MessageTrace;
 import org.jline.reader.UserInterruptException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,14 +82,29 @@ import org.slf4j.LoggerFactory;
 public final class Server implements AutoCloseable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Server.class);
+  private static final Duration TIMER_TICK = Duration.ofMillis(100);
+  private static final int TIMER_WHEEL_SIZE = 512;
+  private static final int WHO_LIMIT = 50;
   private final List<Connection> clientConnections = new CopyOnWriteArrayList<>();
   private final AtomicBoolean isClosingManually = new AtomicBoolean(false);
   private final CryptographyManager cryptographyManager;
 
   private final ServerConfig serverConfig;
   private final ServerSocket serverSocket;
-  private final ChatUtils chatUtils;
+  private final ServerConsole console;
   private final ExecutorService executor;
+  private final ChatHistory chatHistory;
+  private final RateLimiter rateLimiter;
+  private final FairReadScheduler readScheduler;
+  private final Semaphore connectionPermits;
+  private final Semaphore handshakePermits;
+  private final HashedTimingWheel timingWheel;
+  private final TimeoutConfig timeoutConfig;
+  private final MetricsConfig metricsConfig;
+  private final OutboundConfig outboundConfig;
+  private final ServerMetrics metrics;
+  private final StatsCollector statsCollector;
+  private final PresenceCoalescer presence;
 
   /**
    * Constructs a new Server instance.
@@ -62,62 +112,132 @@ public final class Server implements AutoCloseable {
    * @param cryptographyManager the RSA cryptography keys manager
    * @param serverConfig        the server configuration
    * @param serverSocket        the server socket
-   * @param chatUtils           the chat utilities
+   * @param console             the console of the server
    * @param executor            the executor service
+   * @param chatHistory         the history where the chat messages are recorded
+   * @param rateLimiter         the limiter of the rate of the received messages
+   * @param readScheduler       the scheduler sharing the processing between the connections
+   * @param admissionConfig     the limits on the accepted connections
+   * @param timingWheel         the timer of the heartbeats and timeouts
+   * @param timeoutConfig       the heartbeat and timeout configuration
+   * @param metricsConfig       how the metrics are exposed
+   * @param outboundConfig      how the messages are written to the clients
+   * @param presenceConfig      how the joins and leaves are coalesced
    */
   private Server(final CryptographyManager cryptographyManager, final ServerConfig serverConfig,
       final ServerSocket serverSocket,
-      final ChatUtils chatUtils, final ExecutorService executor) {
+      final ServerConsole console, final ExecutorService executor, final ChatHistory chatHistory,
+      final RateLimiter rateLimiter, final FairReadScheduler readScheduler,
+      final AdmissionConfig admissionConfig,
+      final HashedTimingWheel timingWheel, final TimeoutConfig timeoutConfig,
+      final MetricsConfig metricsConfig, final OutboundConfig outboundConfig,
+      final PresenceConfig presenceConfig) {
     this.cryptographyManager = cryptographyManager;
     this.serverConfig = serverConfig;
     this.serverSocket = serverSocket;
-    this.chatUtils = chatUtils;
+    this.console = console;
     this.executor = executor;
+    this.chatHistory = chatHistory;
+    this.rateLimiter = rateLimiter;
+    this.readScheduler = readScheduler;
+    this.connectionPermits = new Semaphore(admissionConfig.maxConnections());
+    this.handshakePermits = new Semaphore(admissionConfig.maxHandshakes());
+    this.timingWheel = timingWheel;
+    this.timeoutConfig = timeoutConfig;
+    this.metricsConfig = metricsConfig;
+    this.outboundConfig = outboundConfig;
+    this.metrics = new ServerMetrics(clientConnections::size, rateLimiter, readScheduler,
+        chatHistory::droppedEntries, chatHistory::searchDroppedMessages);
+    this.metrics.registerInJmx(serverConfig.name());
+    this.statsCollector = new StatsCollector(clientConnections, metrics, timingWheel);
+    this.presence = new PresenceCoalescer(presenceConfig, timingWheel,
+        new PresenceCoalescer.Publisher() {
+          @Override
+          public void publish(final Message message, final Set<Connection> excluded) {
+            publishPresence(message, excluded);
+          }
+
+          @Override
+          public void sendTo(final Message message, final Connection recipient) {
+            queueOutput(recipient, message, MessageTrace.nextCorrelationId());
+          }
+        });
   }
 
   /**
-   * Creates a new server with the default configuration.
+   * Creates a new server. An interactive server asks its configuration on the terminal, a headless
+   * one takes it from the settings and never initializes a terminal.
    *
+   * @param settings the settings the server is started with
    * @return A new server instance.
    * @throws EndApplicationException If an error occurs during server creation.
    */
-  public static Server createServer()
+  public static Server createServer(final ServerSettings settings)
       throws EndApplicationException {
 
-    final Server server;
-    final ChatUtils chatUtils = ChatUtils.create(">");
-    try {
-      final ServerConfig serverConfig = new ServerConfigFactory(chatUtils).create();
-      final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("server");
-      final ServerSocket serverSocket = createServerSocket(serverConfig.port(), chatUtils);
-      final CryptographyManager keysManager = CryptographyManager.create();
-
-      server = new Server(keysManager, serverConfig, serverSocket, chatUtils, executor);
-    } catch (final UserInterruptException e) {
-      LOGGER.debug(ChatUtils.USER_INTERRUPT_MESSAGE);
-      throw new EndApplicationException(e);
+    final ServerConsole console;
+    final ServerConfig serverConfig;
+    if (settings.headless()) {
+      console = new HeadlessConsole(settings.logSampleRate());
+      serverConfig = settings.serverConfig();
+    } else {
+      final ChatUtils chatUtils = ChatUtils.create(">");
+      console = new InteractiveConsole(chatUtils);
+      try {
+        serverConfig = new ServerConfigFactory(chatUtils).create();
+      } catch (final UserInterruptException e) {
+        LOGGER.debug(ChatUtils.USER_INTERRUPT_MESSAGE);
+        console.close();
+        throw new EndApplicationException(e);
+      }
     }
 
-    Objects.requireNonNull(server);
-    return server;
+    final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("server");
+    final AdmissionConfig admissionConfig = settings.admissionConfig();
+    final OutboundConfig outboundConfig = settings.outboundConfig();
+    final ServerSocket serverSocket = createServerSocket(serverConfig.port(),
+        admissionConfig.acceptBacklog(), outboundConfig.receiveBufferSize(), console);
+    final CryptographyManager keysManager = CryptographyManager.create();
+    final ChatHistory chatHistory = openChatHistory(settings.historyConfig());
+
+    final RateLimiter rateLimiter = new RateLimiter(settings.rateLimitConfig());
+    final FairReadScheduler readScheduler = new FairReadScheduler(
+        settings.readSchedulingConfig());
+    final HashedTimingWheel timingWheel = new HashedTimingWheel(TIMER_TICK, TIMER_WHEEL_SIZE,
+        executor);
+
+    return new Server(keysManager, serverConfig, serverSocket, console, executor,
+        chatHistory, rateLimiter, readScheduler, admissionConfig, timingWheel,
+        settings.timeoutConfig(), settings.metricsConfig(), outboundConfig,
+        settings.presenceConfig());
   }
 
   /**
-   * Creates a ServerSocket bound to the specified port.
+   * Creates a ServerSocket bound to the specified port. It is opened from a channel, so the
+   * accepted sockets have channels the connections read and write with direct buffers. The
+   * receive buffer size is set before binding, so it applies to the TCP window of the accepted
+   * sockets.
    *
-   * @param port      the port number to bind the ServerSocket to
-   * @param chatUtils the ChatUtils instance for user interaction
+   * @param port              the port number to bind the ServerSocket to
+   * @param backlog           the maximum number of connections waiting to be accepted
+   * @param receiveBufferSize the size of the receive buffers, or {@value OutboundConfig#OS_DEFAULT}
+   *                          to keep the size of the operating system
+   * @param console           the console where errors are shown
    * @return a ServerSocket bound to the specified port
    * @throws EndApplicationException if an error occurs during ServerSocket creation
    */
-  private static ServerSocket createServerSocket(final int port, final ChatUtils chatUtils)
-      throws EndApplicationException {
+  private static ServerSocket createServerSocket(final int port, final int backlog,
+      final int receiveBufferSize, final ServerConsole console) throws EndApplicationException {
 
     final ServerSocket serverSocket;
     try {
-      serverSocket = ServerSocketFactory.getDefault().createServerSocket(port);
+      final ServerSocketChannel channel = ServerSocketChannel.open();
+      if (OutboundConfig.OS_DEFAULT != receiveBufferSize) {
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+      }
+      serverSocket = channel.bind(new InetSocketAddress(port), backlog).socket();
     } catch (final BindException e) {
-      chatUtils.displayOnScreen(
+      console.display(
           "Address already in use, check if you have another server opened in the same port");
       throw new EndApplicationException("Port already in use" + e);
     } catch (final IOException e) {
@@ -126,6 +246,22 @@ public final class Server implements AutoCloseable {
     return serverSocket;
   }
 
+  /**
+   * Opens the chat message history.
+   *
+   * @param historyConfig the history configuration
+   * @return the opened chat history
+   * @throws EndApplicationException if the history directory cannot be opened
+   */
+  private static ChatHistory openChatHistory(final HistoryConfig historyConfig)
+      throws EndApplicationException {
+    try {
+      return ChatHistory.open(historyConfig);
+    } catch (final IOException e) {
+      throw new EndApplicationException("Error opening the message history", e);
+    }
+  }
+
   /**
    * Starts the server, begins listening and broadcasting for connections.
    */
@@ -133,7 +269,9 @@ public final class Server implements AutoCloseable {
     LOGGER.info("Server Started...");
 
     final int serverPort = serverConfig.port();
+    statsCollector.start();
 
+    final MetricsHttpServer metricsHttpServer = startMetricsHttpServer();
     try (final PortMapper portMapper = PortMapper.createDefault(serverPort)) {
       portMapper.openPort();
 
@@ -144,46 +282,287 @@ public final class Server implements AutoCloseable {
           this::broadcastToConnections, executor);
 
       CompletableFuture.allOf(listenToConnectionsFuture, broadcastToConnectionsFuture).join();
+    } finally {
+      if (null != metricsHttpServer) {
+        metricsHttpServer.close();
+      }
     }
   }
 
   /**
-   * Listens for incoming connections from clients.
+   * Starts the Prometheus endpoint if it is enabled. The server runs without it if its port
+   * cannot be bound.
+   *
+   * @return the started endpoint, or null if it is disabled or could not start
+   */
+  @Nullable
+  private MetricsHttpServer startMetricsHttpServer() {
+    if (!metricsConfig.isHttpEnabled()) {
+      return null;
+    }
+    try {
+      return MetricsHttpServer.start(metrics, metricsConfig.httpPort());
+    } catch (final IOException e) {
+      LOGGER.warn("Cannot serve the metrics on port {}: {}", metricsConfig.httpPort(),
+          e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Asks the server to stop, {@link #runServer()} returns once it stopped listening and
+   * broadcasting.
+   */
+  public void stop() {
+    console.close();
+  }
+
+  /**
+   * Listens for incoming connections from clients. The handshakes run on their own threads, so a
+   * slow client does not delay the others.
    */
   private void listenToConnections() {
     LOGGER.debug("Listening to connections...");
 
     while (!serverSocket.isClosed() && serverSocket.isBound()) {
       try {
-        final Socket clientSocket = serverSocket.accept();
+        admitConnection(serverSocket.accept());
+      } catch (final IOException e) {
+        LOGGER.debug(
+            "Connection listening ended normally or error during Socket Server accept method: {}",
+            e.getMessage());
+      }
+    }
 
-        sendRsaPublicKey(clientSocket);
+    executor.shutdownNow();
+  }
 
-        final SecretKey clientAesKey = receiveAesKey(clientSocket);
-        final String clientName = new NameExchange(clientSocket, clientAesKey,
-            cryptographyManager,
-            serverConfig.name(), executor).exchange();
+  /**
+   * Starts the handshake with a new client, or rejects it if the server already has the maximum
+   * number of connections or of handshakes in progress. The messages of the client are received
+   * by the same task once the handshake succeeds, and the connection permit is released when this
+   * task ends, whether the handshake failed or the connection ended.
+   *
+   * @param clientSocket the socket connected to the client
+   */
+  private void admitConnection(final Socket clientSocket) {
+    if (!connectionPermits.tryAcquire()) {
+      rejectConnection(clientSocket, "The server is full, try again later");
+      return;
+    }
+    if (!handshakePermits.tryAcquire()) {
+      connectionPermits.release();
+      rejectConnection(clientSocket, "The server is busy, try again later");
+      return;
+    }
 
-        final Connection clientConnection = Connection.create(clientName, clientSocket,
-            clientAesKey);
+    executor.execute(() -> {
+      try {
+        final Connection clientConnection = runHandshake(clientSocket);
+        if (null != clientConnection) {
+          receiveMessages(clientConnection);
+        }
+      } finally {
+        connectionPermits.release();
+      }
+    });
+  }
 
-        clientConnections.add(clientConnection);
-        final Message newConnectionMessage = new NewConnectionMessage(clientName);
+  /**
+   * Runs the handshake with an admitted client, releasing its handshake permit once it ends and
+   * closing the socket if it fails.
+   *
+   * @param clientSocket the socket connected to the client
+   * @return the established connection, or null if the handshake failed
+   */
+  @Nullable
+  private Connection runHandshake(final Socket clientSocket) {
+    final long startNanos = System.nanoTime();
+    Connection clientConnection = null;
+    try {
+      clientConnection = establishConnection(clientSocket);
+      metrics.recordHandshake(System.nanoTime() - startNanos);
+    } catch (final IOException | UncheckedIOException e) {
+      LOGGER.debug("Connection ended during the handshake: {}", e.getMessage());
+    } catch (final FailedExchangeException e) {
+      LOGGER.debug("Error during exchange name or Keys exchange", e);
+    } finally {
+      handshakePermits.release();
+      if (null == clientConnection) {
+        metrics.recordHandshakeFailure();
+        closeSocket(clientSocket);
+      }
+    }
+    return clientConnection;
+  }
 
-        chatUtils.showNewMessage(newConnectionMessage);
-        sendToOtherConnections(newConnectionMessage, clientConnection);
+  /**
+   * Sends the reason of the rejection to a client, in place of the RSA public key, and closes the
+   * socket.
+   *
+   * @param clientSocket the socket connected to the client
+   * @param reason       the reason of the rejection, shown to the user
+   */
+  private void rejectConnection(final Socket clientSocket, final String reason) {
+    metrics.recordRejectedConnection();
+    LOGGER.debug("Connection from {} rejected: {}", clientSocket.getRemoteSocketAddress(), reason);
+    try {
+      IoUtils.createObjectWriter(clientSocket).writeObject(reason);
+    } catch (final IOException e) {
+      LOGGER.debug("Error sending the rejection reason", e);
+    } finally {
+      closeSocket(clientSocket);
+    }
+  }
 
-        receiveMessages(clientConnection);
-      } catch (final IOException e) {
-        LOGGER.debug(
-            "Connection listening ended normally or error during Socket Server accept method: {}",
-            e.getMessage());
-      } catch (final FailedExchangeException e) {
-        LOGGER.debug("Error during exchange name or Keys exchange", e);
+  /**
+   * Exchanges the keys, the names and the last received message with a new client, then adds it
+   * to the connected clients. The socket is closed if the handshake does not finish in time.
+   *
+   * @param clientSocket the socket connected to the client
+   * @return the established connection
+   * @throws IOException             if the connection ends during the handshake
+   * @throws FailedExchangeException if any of the exchanges fails
+   */
+  private Connection establishConnection(final Socket clientSocket)
+      throws IOException, FailedExchangeException {
+    final Timeout handshakeDeadline = timingWheel.schedule(() -> {
+      LOGGER.debug("Handshake with {} timed out", clientSocket.getRemoteSocketAddress());
+      closeSocket(clientSocket);
+    }, timeoutConfig.handshakeTimeout());
+    try {
+      applySocketOptions(clientSocket);
+      return handshake(clientSocket);
+    } finally {
+      handshakeDeadline.cancel();
+    }
+  }
+
+  /**
+   * Sets the socket options of the outbound configuration on an accepted socket. The receive
+   * buffer size is inherited from the server socket.
+   *
+   * @param clientSocket the socket connected to the client
+   * @throws IOException if an option cannot be set
+   */
+  private void applySocketOptions(final Socket clientSocket) throws IOException {
+    clientSocket.setTcpNoDelay(outboundConfig.tcpNoDelay());
+    if (OutboundConfig.OS_DEFAULT != outboundConfig.sendBufferSize()) {
+      clientSocket.setSendBufferSize(outboundConfig.sendBufferSize());
+    }
+  }
+
+  /**
+   * Runs the exchanges of the handshake with a new client.
+   *
+   * @param clientSocket the socket connected to the client
+   * @return the connection to the client, added to the connected clients
+   * @throws IOException             if the connection ends during the handshake
+   * @throws FailedExchangeException if any of the exchanges fails
+   */
+  private Connection handshake(final Socket clientSocket)
+      throws IOException, FailedExchangeException {
+    HandshakePhaseEvent phase = HandshakePhaseEvent.start("rsa_key");
+    sendRsaPublicKey(clientSocket);
+    phase.finish(clientSocket);
+
+    final MessageReader reader = IoUtils.createReader(clientSocket);
+    final MessageWriter writer = IoUtils.createWriter(clientSocket);
+    phase = HandshakePhaseEvent.start("aes_key");
+    final SecretKey clientAesKey = receiveAesKey(reader);
+    phase.finish(clientSocket);
+
+    phase = HandshakePhaseEvent.start("name");
+    final String clientName = new NameExchange(reader, writer, clientAesKey,
+        cryptographyManager, serverConfig.name(), executor).exchange();
+    phase.finish(clientSocket);
+
+    final Connection clientConnection = Connection.create(clientName, clientSocket, reader,
+        writer, clientAesKey, metrics);
+
+    phase = HandshakePhaseEvent.start("sync");
+    final SyncMessage sync = receiveSync(clientConnection);
+    clientConnection.startOutboundQueue(executor, outboundConfig.flushWindow(),
+        outboundConfig.maxBatch(), sync.acceptsBatches());
+    phase.finish(clientSocket);
+
+    phase = HandshakePhaseEvent.start("replay");
+    final List<String> missedMessages = chatHistory.catchUp(sync.lastSequence(),
+        () -> clientConnections.add(clientConnection));
+    try {
+      replayMissedMessages(clientConnection, missedMessages);
+      clientConnection.releaseOutboundQueue();
+      phase.finish(clientSocket);
+
+      presence.joined(clientConnection);
+
+      scheduleHeartbeat(clientConnection);
+    } catch (final RuntimeException e) {
+      clientConnection.removeConnection(clientConnections);
+      throw e;
+    }
+    return clientConnection;
+  }
+
+  /**
+   * Schedules the next heartbeat check of a connection.
+   *
+   * @param connection the connection to check
+   */
+  private void scheduleHeartbeat(final Connection connection) {
+    timingWheel.schedule(() -> checkHeartbeat(connection), timeoutConfig.checkInterval());
+  }
+
+  /**
+   * Closes a connection that has been quiet for longer than the idle timeout or whose write in
+   * progress has made no progress for longer than the write timeout, or sends it a heartbeat if it
+   * has been quiet for longer than the heartbeat interval. The next check is scheduled before the
+   * heartbeat is queued, so a peer that stopped reading is still closed.
+   *
+   * @param connection the connection to check
+   */
+  private void checkHeartbeat(final Connection connection) {
+    if (connection.isClosed()) {
+      return;
+    }
+
+    final Duration idleTime = connection.idleTime();
+    if (0 <= idleTime.compareTo(timeoutConfig.idleTimeout())) {
+      if (connection.closeIfOpen()) {
+        LOGGER.debug("Closing the connection with {}, it was idle for {}", connection.getName(),
+            idleTime);
+        metrics.recordIdleEviction();
       }
+      return;
     }
 
-    executor.shutdownNow();
+    final Duration writeStall = connection.writeStall();
+    if (0 <= writeStall.compareTo(timeoutConfig.writeTimeout())) {
+      if (connection.closeIfOpen()) {
+        LOGGER.warn("Closing the connection with {}, its writes made no progress for {}",
+            connection.getName(), writeStall);
+        metrics.recordWriteStallEviction();
+      }
+      return;
+    }
+
+    scheduleHeartbeat(connection);
+    if (0 <= idleTime.compareTo(timeoutConfig.heartbeatInterval())) {
+      queueOutput(connection, new PingMessage(System.nanoTime()), MessageTrace.NO_CORRELATION);
+    }
+  }
+
+  /**
+   * Closes the socket of a client that was not connected.
+   *
+   * @param clientSocket the socket to close
+   */
+  private static void closeSocket(final Socket clientSocket) {
+    try {
+      clientSocket.close();
+    } catch (final IOException e) {
+      LOGGER.debug("Error closing the client socket", e);
+    }
   }
 
   /**
@@ -209,10 +588,18 @@ public final class Server implements AutoCloseable {
     }
   }
 
-  private SecretKey receiveAesKey(final Socket socket) {
+  /**
+   * Receives the client's AES key, encrypted with the server's RSA public key.
+   *
+   * @param reader the reader of the socket connected to the client
+   * @return the client's AES key
+   */
+  private SecretKey receiveAesKey(final MessageReader reader) {
     try {
-      final BufferedReader objectReader = IoUtils.createReader(socket);
-      final String encryptedAesKeyString = objectReader.readLine();
+      final String encryptedAesKeyString = reader.readLine();
+      if (null == encryptedAesKeyString) {
+        throw new EOFException("The client left before sending the AES key");
+      }
       final SecretKey aesKey = cryptographyManager.decryptRsa(encryptedAesKeyString);
       final String logMessage = "Received AES key";
       LOGGER.debug(logMessage);
@@ -225,109 +612,317 @@ public final class Server implements AutoCloseable {
   }
 
   /**
-   * Broadcasts messages to all connected clients.
+   * Receives the sequence number of the last chat message the client received and whether it
+   * accepts batches, which the client sends right after the name exchange.
+   *
+   * @param connection the new connection
+   * @return the sync message of the client
+   * @throws IOException             if the connection ends before the message is received
+   * @throws FailedExchangeException if the client sent another message
+   */
+  private SyncMessage receiveSync(final Connection connection)
+      throws IOException, FailedExchangeException {
+    final String transportMessage = connection.readTransportMessage(cryptographyManager);
+    try {
+      if (ConnectionMessageFactory.createFromString(transportMessage)
+          instanceof final SyncMessage syncMessage) {
+        return syncMessage;
+      }
+    } catch (final InvalidMessageException e) {
+      LOGGER.debug(InvalidMessageException.DEFAULT_PROMPT, e);
+    }
+    throw new FailedExchangeException("Expected the sync message from " + connection.getName());
+  }
+
+  /**
+   * Sends the chat messages a new connection missed in a single write, so the user joining has
+   * the context of the conversation. The messages sent since the connection was added to the
+   * receivers are held in its outbound queue meanwhile, so they follow the missed ones.
+   *
+   * @param connection     the new connection
+   * @param missedMessages the missed messages encoded as transport strings
+   */
+  private void replayMissedMessages(final Connection connection,
+      final List<String> missedMessages) {
+    if (!missedMessages.isEmpty()) {
+      connection.writeTransportMessages(missedMessages, cryptographyManager);
+      LOGGER.debug("Replayed {} messages to {}", missedMessages.size(), connection.getName());
+    }
+  }
+
+  /**
+   * Broadcasts the messages typed on the console to all connected clients, until the console is
+   * quit or closed.
    */
   private void broadcastToConnections() {
     LOGGER.debug("Broadcasting to connections...");
-    LOGGER.info("Type `quit` to exit");
 
     try {
-      String line = chatUtils.getUserInput();
+      console.readLines(this::handleConsoleLine);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 
-      while (null != line) {
-        if ("quit".equals(line)) {
-          break;
-        }
+  /**
+   * Runs the command or broadcasts the message typed on the console.
+   *
+   * @param line The line typed.
+   */
+  private void handleConsoleLine(final String line) {
+    final ConsoleCommand command = ConsoleCommand.parse(line);
+    if (null != command) {
+      runCommand(command);
+    } else if (!line.isBlank()) {
+      chatHistory.record(new SimpleMessage(serverConfig.name(), line),
+          this::broadcastMessageToConnections);
+    }
+  }
 
-        if (!line.isBlank()) {
-          final Message msg = new SimpleMessage(serverConfig.name(), line);
-          broadcastMessageToConnections(msg);
+  /**
+   * Runs a command typed on the server console.
+   *
+   * @param command The command typed.
+   */
+  private void runCommand(final ConsoleCommand command) {
+    switch (command.name()) {
+      case ConsoleCommand.SEARCH -> {
+        if (command.argument().isEmpty()) {
+          console.display("Usage: /search <terms> [from:name]");
+        } else {
+          console.showMessage(search(command.argument()));
         }
-        line = chatUtils.getUserInput();
       }
-    } catch (final EndOfFileException | UserInterruptException e) {
-      LOGGER.debug(ChatUtils.USER_INTERRUPT_MESSAGE, e);
-    } finally {
-      executor.shutdownNow();
+      case ConsoleCommand.STATS -> console.display(statsCollector.snapshot().describe());
+      case ConsoleCommand.WHO -> console.display(
+          statsCollector.snapshot().describeConnections(command.argument(), WHO_LIMIT));
+      default -> console.display("Unknown command /" + command.name());
     }
   }
 
+  /**
+   * Searches the chat history.
+   *
+   * @param query The terms to search.
+   * @return The message with the matching chat messages.
+   */
+  private SearchResultMessage search(final String query) {
+    return new SearchResultMessage(query, chatHistory.search(query));
+  }
+
   /**
    * Broadcasts a message to all connected clients.
    *
    * @param message The message to be broadcast.
    */
   private void broadcastMessageToConnections(final Message message) {
-    final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    final FanOutEvent event = FanOutEvent.start();
+    final long correlationId = MessageTrace.nextCorrelationId();
+    int recipients = 0;
     for (final Connection connection : clientConnections) {
-      final CompletableFuture<Void> future = CompletableFuture.runAsync(
-          () -> connection.writeOutput(message, cryptographyManager), executor);
-      futures.add(future);
+      queueOutput(connection, message, correlationId);
+      recipients++;
     }
-    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    event.finish(message, correlationId, recipients);
   }
 
   /**
-   * Receives messages from a client.
+   * Receives messages from a client until the connection ends, then closes it.
    *
    * @param clientConnection The connection to the client.
    */
   private void receiveMessages(final Connection clientConnection) {
-    final String clientName = clientConnection.getName();
-
-    executor.execute(() -> {
-      try {
-        processMessages(clientConnection);
-      } catch (final UncheckedIOException e) {
-        LOGGER.debug("Connection with {} ended abruptly", clientName, e);
-      } finally {
-        closeConnection(clientConnection);
-      }
-    });
+    try {
+      processMessages(clientConnection);
+    } catch (final UncheckedIOException e) {
+      LOGGER.debug("Connection with {} ended abruptly", clientConnection.getName(), e);
+    } finally {
+      closeConnection(clientConnection);
+    }
   }
 
   /**
-   * Processes messages received from a client. This method shows the message on the console and
-   * redirects it to other connected clients.
+   * Processes messages received from a client. The limit of the connection is applied to every
+   * line before it is decrypted and decoded, then each message waits for its turn to be processed,
+   * so the heavy senders cannot delay the others. The limit of the room is only applied to the
+   * decoded chat messages.
    *
    * @param connection The Connection object representing the client's connection.
    */
   private void processMessages(final Connection connection) {
-    connection.readStream(cryptographyManager)
-        .map(transportMessage -> {
-          try {
-            return ConnectionMessageFactory.createFromString(transportMessage);
-          } catch (final InvalidMessageException e) {
-            LOGGER.debug(InvalidMessageException.DEFAULT_PROMPT, e);
-            return null;
-          }
-        })
-        .filter(Objects::nonNull)
-        .filter(new NonServerSideOnlyPredicate())
-        .forEach(msg -> {
-          chatUtils.showNewMessage(msg);
-          sendToOtherConnections(msg, connection);
-        });
+    final ConnectionLimit connectionLimit = rateLimiter.forConnection();
+    final Predicate<Message> isClientMessage = new NonServerSideOnlyPredicate();
+    try (ReadTurn readTurn = readScheduler.forConnection(connection.getAddress())) {
+      connection.readStream(cryptographyManager,
+              line -> isAdmitted(connectionLimit, connection) && readTurn.acquire())
+          .forEach(transportMessage -> {
+            try {
+              final long correlationId = MessageTrace.nextCorrelationId();
+              final Message message = decode(transportMessage, connection, correlationId);
+              if (null != message && isClientMessage.test(message)
+                  && (message.getType().isControl() || rateLimiter.admitToRoom())) {
+                handleMessage(message, connection, correlationId);
+              }
+            } finally {
+              readTurn.release();
+            }
+          });
+    }
+  }
+
+  /**
+   * Decodes a message received from a client.
+   *
+   * @param transportMessage The decrypted transport message.
+   * @param connection       The connection to the client that sent the message.
+   * @param correlationId    The correlation identifier given to the message.
+   * @return The decoded message, or null if it is invalid.
+   */
+  @Nullable
+  private static Message decode(final String transportMessage, final Connection connection,
+      final long correlationId) {
+    final DecodeEvent event = DecodeEvent.start();
+    try {
+      final Message message = ConnectionMessageFactory.createFromString(transportMessage);
+      event.finish(connection.getName(), message, correlationId);
+      return message;
+    } catch (final InvalidMessageException e) {
+      LOGGER.debug(InvalidMessageException.DEFAULT_PROMPT, e);
+      return null;
+    }
+  }
+
+  /**
+   * Checks if a line received from a client is within the limit of its connection, closing the
+   * connection if the client keeps flooding the server.
+   *
+   * @param connectionLimit The rate limit of the connection.
+   * @param connection      The connection to the client that sent the message.
+   * @return true if the message must be processed
+   */
+  private boolean isAdmitted(final ConnectionLimit connectionLimit,
+      final Connection connection) {
+    return switch (connectionLimit.admit()) {
+      case ACCEPT -> true;
+      case REJECT -> false;
+      case DISCONNECT -> {
+        LOGGER.warn("Closing the connection with {}, it kept flooding the server",
+            connection.getName());
+        connection.close();
+        yield false;
+      }
+    };
+  }
+
+  /**
+   * Handles a message received from a client according to its type.
+   *
+   * @param message       The message received.
+   * @param connection    The connection to the client that sent the message.
+   * @param correlationId The correlation identifier of the message.
+   */
+  private void handleMessage(final Message message, final Connection connection,
+      final long correlationId) {
+    switch (message) {
+      case final SimpleMessage chatMessage ->
+          handleChatMessage(chatMessage, connection, correlationId);
+      case final SearchMessage searchMessage ->
+          queueOutput(connection, search(searchMessage.query()), correlationId);
+      case final PongMessage pongMessage -> {
+        final long roundTripNanos = System.nanoTime() - pongMessage.timestamp();
+        connection.recordRoundTrip(roundTripNanos);
+        LOGGER.debug("Heartbeat round trip to {}: {} us", connection.getName(),
+            roundTripNanos / 1000);
+      }
+      default -> LOGGER.debug("Ignored {} message from {}", message.getType(),
+          connection.getName());
+    }
+  }
+
+  /**
+   * Stamps and records a chat message, redirects it to the other connected clients and shows it on
+   * the console.
+   *
+   * @param message       The chat message received.
+   * @param connection    The connection to the client that sent the message.
+   * @param correlationId The correlation identifier of the message.
+   */
+  private void handleChatMessage(final SimpleMessage message, final Connection connection,
+      final long correlationId) {
+    final Message stampedMessage = chatHistory.record(message,
+        stamped -> sendToOtherConnections(stamped, connection, correlationId));
+    console.showMessage(stampedMessage);
   }
 
   /**
    * Sends a message to all connected clients, except the client that sent the message.
    *
-   * @param message    The message to be sent.
-   * @param connection The connection to the client that sent the message.
-   */
-  private void sendToOtherConnections(final Message message, final Connection connection) {
-    clientConnections.stream()
-        .filter(Predicate.not(connection::equals))
-        .forEach(otherConnection -> {
-          final CompletableFuture<Void> sendMessageFuture = CompletableFuture.runAsync(
-              () -> otherConnection.writeOutput(message, cryptographyManager), executor);
-          sendMessageFuture.exceptionally(ex -> {
-            LOGGER.error("Error writing output to connection", ex);
-            return null;
-          });
-        });
+   * @param message       The message to be sent.
+   * @param connection    The connection to the client that sent the message, or null to send
+   *                      it to all the clients.
+   * @param correlationId The correlation identifier of the message.
+   */
+  private void sendToOtherConnections(final Message message,
+      @Nullable final Connection connection, final long correlationId) {
+    final FanOutEvent event = FanOutEvent.start();
+    int recipients = 0;
+    for (final Connection otherConnection : clientConnections) {
+      if (otherConnection.equals(connection)) {
+        continue;
+      }
+      queueOutput(otherConnection, message, correlationId);
+      recipients++;
+    }
+    event.finish(message, correlationId, recipients);
+  }
 
+  /**
+   * Shows the joins and leaves of the users, coalesced by the presence coalescer, and sends them
+   * to the connected clients.
+   *
+   * @param message  The announcement of the joins and leaves.
+   * @param excluded The connections of the users who joined, which are not sent the announcement.
+   */
+  private void publishPresence(final Message message, final Set<Connection> excluded) {
+    console.showMessage(message);
+    final long correlationId = MessageTrace.nextCorrelationId();
+    final FanOutEvent event = FanOutEvent.start();
+    int recipients = 0;
+    for (final Connection connection : clientConnections) {
+      if (excluded.contains(connection)) {
+        continue;
+      }
+      queueOutput(connection, message, correlationId);
+      recipients++;
+    }
+    event.finish(message, correlationId, recipients);
+  }
+
+  /**
+   * Queues a message to a client, written with the other messages queued for it meanwhile. A
+   * slow client only delays its own queue, and is disconnected once it falls the maximum pending
+   * messages behind. The heartbeats and presence updates jump ahead of the chat messages and search
+   * results queued for the client.
+   *
+   * @param connection    The connection to the client.
+   * @param message       The message to write.
+   * @param correlationId The correlation identifier of the message.
+   */
+  private void queueOutput(final Connection connection, final Message message,
+      final long correlationId) {
+    if (outboundConfig.maxPending() <= connection.pendingOutput()) {
+      if (connection.closeIfOpen()) {
+        LOGGER.warn("Closing the connection with {}, {} messages are waiting for it",
+            connection.getName(), connection.pendingOutput());
+        metrics.recordOutboundOverflowEviction();
+      }
+      return;
+    }
+    try {
+      connection.queueOutput(message, cryptographyManager, correlationId);
+    } catch (final RejectedExecutionException e) {
+      LOGGER.debug("The server is closing, the message to {} is dropped", connection.getName());
+    }
   }
 
   /**
@@ -341,9 +936,7 @@ public final class Server implements AutoCloseable {
     if (!isClosingManually.get()) {
       connection.removeConnection(clientConnections);
 
-      final Message disconnectMessage = new DisconnectMessage(clientName);
-      broadcastMessageToConnections(disconnectMessage);
-      chatUtils.showNewMessage(disconnectMessage);
+      presence.left(connection);
 
       LOGGER.debug("User Disconnected: {}", clientName);
     }
@@ -375,9 +968,12 @@ public final class Server implements AutoCloseable {
         .toArray(CompletableFuture<?>[]::new);
 
     closeServerSocket();
-    chatUtils.close();
+    timingWheel.close();
+    console.close();
     executor.shutdownNow();
     CompletableFuture.allOf(closeConnectionsFuture).join();
+    chatHistory.close();
+    metrics.close();
   }
 
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package org.gladiator.server.config;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents the limits on the connections accepted by the server.
+ *
+ * @param acceptBacklog  the maximum number of connections waiting to be accepted
+ * @param maxConnections the maximum number of live connections, including the handshaking
+ *                       ones
+ * @param maxHandshakes  the maximum number of connections handshaking at the same time
+ */
+public record AdmissionConfig(int acceptBacklog, int maxConnections, int maxHandshakes) {
+
+  private static final int DEFAULT_ACCEPT_BACKLOG = 256;
+  private static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+  private static final int DEFAULT_MAX_HANDSHAKES = 64;
+
+  /**
+   * Constructs a new AdmissionConfig with the specified values.
+   *
+   * @throws IllegalArgumentException if any of the values is not positive
+   */
+  public AdmissionConfig {
+    Validate.isTrue(0 < acceptBacklog, "The accept backlog must be positive");
+    Validate.isTrue(0 < maxConnections, "The maximum connections must be positive");
+    Validate.isTrue(0 < maxHandshakes, "The maximum handshakes must be positive");
+  }
+
+  /**
+   * Constructs a new AdmissionConfig with the default values.
+   */
+  public AdmissionConfig() {
+    this(DEFAULT_ACCEPT_BACKLOG, DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_HANDSHAKES);
+  }
+}
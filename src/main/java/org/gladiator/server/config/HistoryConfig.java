@@ -0,0 +1,68 @@
+package org.gladiator.server.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents the configuration of the server message history log.
+ *
+ * @param directory      the directory where the log segments are stored
+ * @param segmentSize    the maximum size in bytes of a single segment before it is rolled
+ * @param segmentMaxAge  the maximum age of the active segment before it is rolled
+ * @param retentionBytes the maximum size in bytes of all segments together
+ * @param retentionTime  the maximum age of a sealed segment before it is deleted
+ * @param flushInterval  the maximum time written entries wait before being forced to disk
+ * @param indexInterval  the number of bytes between two entries of the sparse offset index
+ * @param recentSize     the number of recent messages kept in memory and replayed on join
+ */
+public record HistoryConfig(Path directory, int segmentSize, Duration segmentMaxAge,
+                            long retentionBytes, Duration retentionTime, Duration flushInterval,
+                            int indexInterval, int recentSize) {
+
+  private static final Path DEFAULT_DIRECTORY = Path.of("history");
+  private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final Duration DEFAULT_SEGMENT_MAX_AGE = Duration.ofDays(1);
+  private static final long DEFAULT_RETENTION_BYTES = 1024L * 1024 * 1024;
+  private static final Duration DEFAULT_RETENTION_TIME = Duration.ofDays(7);
+  private static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+  private static final int DEFAULT_INDEX_INTERVAL = 4 * 1024;
+  private static final int DEFAULT_RECENT_SIZE = 100;
+
+  /**
+   * Constructs a new HistoryConfig with the specified values.
+   *
+   * @throws NullPointerException     if any of the object parameters is null
+   * @throws IllegalArgumentException if any of the sizes or durations is not positive
+   */
+  public HistoryConfig {
+    validateArgs(directory, segmentSize, segmentMaxAge, retentionBytes, retentionTime,
+        flushInterval, indexInterval);
+    Validate.isTrue(0 <= recentSize, "The recent history size must not be negative");
+  }
+
+  /**
+   * Constructs a new HistoryConfig with the default values.
+   */
+  public HistoryConfig() {
+    this(DEFAULT_DIRECTORY, DEFAULT_SEGMENT_SIZE, DEFAULT_SEGMENT_MAX_AGE,
+        DEFAULT_RETENTION_BYTES, DEFAULT_RETENTION_TIME, DEFAULT_FLUSH_INTERVAL,
+        DEFAULT_INDEX_INTERVAL, DEFAULT_RECENT_SIZE);
+  }
+
+  private static void validateArgs(final Path directory, final int segmentSize,
+      final Duration segmentMaxAge, final long retentionBytes, final Duration retentionTime,
+      final Duration flushInterval, final int indexInterval) {
+    Objects.requireNonNull(directory);
+    Objects.requireNonNull(segmentMaxAge);
+    Objects.requireNonNull(retentionTime);
+    Objects.requireNonNull(flushInterval);
+    Validate.isTrue(0 < segmentSize, "The segment size must be positive");
+    Validate.isTrue(0 < retentionBytes, "The retention size must be positive");
+    Validate.isTrue(0 < indexInterval, "The index interval must be positive");
+    Validate.isTrue(segmentMaxAge.isPositive(), "The segment max age must be positive");
+    Validate.isTrue(retentionTime.isPositive(), "The retention time must be positive");
+    Validate.isTrue(flushInterval.isPositive(), "The flush interval must be positive");
+  }
+}
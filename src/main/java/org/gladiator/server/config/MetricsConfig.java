@@ -0,0 +1,44 @@
+package org.gladiator.server.config;
+
+import org.apache.commons.lang3.Validate;
+import org.gladiator.environment.Port;
+
+/**
+ * Represents how the server exposes its metrics. The metrics are always registered in JMX, the
+ * Prometheus endpoint is optional.
+ *
+ * @param httpPort the local port of the Prometheus endpoint, or {@value #DISABLED} to disable it
+ */
+public record MetricsConfig(int httpPort) {
+
+  /**
+   * The port that disables the Prometheus endpoint.
+   */
+  public static final int DISABLED = 0;
+
+  /**
+   * Constructs a new MetricsConfig with the specified values.
+   *
+   * @throws IllegalArgumentException if the port is out of range
+   */
+  public MetricsConfig {
+    Validate.inclusiveBetween(Port.PORT_MIN, Port.PORT_MAX, httpPort,
+        "The metrics port is out of range");
+  }
+
+  /**
+   * Constructs a new MetricsConfig with the Prometheus endpoint disabled.
+   */
+  public MetricsConfig() {
+    this(DISABLED);
+  }
+
+  /**
+   * Checks if the Prometheus endpoint is enabled.
+   *
+   * @return true if the metrics are served over HTTP
+   */
+  public boolean isHttpEnabled() {
+    return DISABLED != httpPort;
+  }
+}
@@ -0,0 +1,60 @@
+package org.gladiator.server.config;
+
+import java.time.Duration;
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents how the server writes to the clients. The messages for a client are queued and
+ * written in batches, one flush per batch, and the socket options of the accepted connections are
+ * set from this configuration.
+ *
+ * @param flushWindow       how long to wait for more messages before writing a batch, zero to
+ *                          write what is queued at once
+ * @param maxBatch          the maximum number of messages written in one batch
+ * @param maxPending        the maximum number of messages queued for a client, a client that
+ *                          falls further behind is disconnected
+ * @param tcpNoDelay        whether Nagle's algorithm is disabled on the accepted sockets
+ * @param sendBufferSize    the size of the socket send buffers, or {@value #OS_DEFAULT} to keep
+ *                          the size of the operating system
+ * @param receiveBufferSize the size of the socket receive buffers, or {@value #OS_DEFAULT} to keep
+ *                          the size of the operating system
+ */
+public record OutboundConfig(Duration flushWindow, int maxBatch, int maxPending,
+                             boolean tcpNoDelay, int sendBufferSize, int receiveBufferSize) {
+
+  /**
+   * The buffer size that keeps the size of the operating system.
+   */
+  public static final int OS_DEFAULT = 0;
+  private static final Duration MAX_FLUSH_WINDOW = Duration.ofSeconds(1);
+  private static final int DEFAULT_MAX_BATCH = 256;
+  private static final int DEFAULT_MAX_PENDING = 10_000;
+
+  /**
+   * Constructs a new OutboundConfig with the specified values.
+   *
+   * @throws NullPointerException     if the flush window is null
+   * @throws IllegalArgumentException if the flush window is negative or longer than a second, the
+   *                                  maximum batch or pending is not positive or a buffer size is
+   *                                  negative
+   */
+  public OutboundConfig {
+    Objects.requireNonNull(flushWindow);
+    Validate.isTrue(!flushWindow.isNegative() && 0 >= flushWindow.compareTo(MAX_FLUSH_WINDOW),
+        "The flush window must be between 0 and %s", MAX_FLUSH_WINDOW);
+    Validate.isTrue(0 < maxBatch, "The maximum batch must be positive");
+    Validate.isTrue(0 < maxPending, "The maximum pending messages must be positive");
+    Validate.isTrue(0 <= sendBufferSize, "The send buffer size must not be negative");
+    Validate.isTrue(0 <= receiveBufferSize, "The receive buffer size must not be negative");
+  }
+
+  /**
+   * Constructs a new OutboundConfig with the default values: no flush window, batches of up to
+   * 256 messages, up to 10000 messages queued per client, Nagle's algorithm disabled and the buffer
+   * sizes of the operating system.
+   */
+  public OutboundConfig() {
+    this(Duration.ZERO, DEFAULT_MAX_BATCH, DEFAULT_MAX_PENDING, true, OS_DEFAULT, OS_DEFAULT);
+  }
+}
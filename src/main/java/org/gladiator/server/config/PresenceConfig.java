@@ -0,0 +1,44 @@
+package org.gladiator.server.config;
+
+import java.time.Duration;
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents how the joins and leaves of the users are coalesced before being announced.
+ *
+ * @param minWindow   the shortest time the announcements are held back to be coalesced, used
+ *                    when the joins and leaves are rare
+ * @param maxWindow   the longest time the announcements are held back, reached during a join or
+ *                    leave storm
+ * @param listedNames the maximum number of names listed in a digest, the others are only counted
+ */
+public record PresenceConfig(Duration minWindow, Duration maxWindow, int listedNames) {
+
+  private static final Duration DEFAULT_MIN_WINDOW = Duration.ofMillis(200);
+  private static final Duration DEFAULT_MAX_WINDOW = Duration.ofMillis(3200);
+  private static final int DEFAULT_LISTED_NAMES = 10;
+
+  /**
+   * Constructs a new PresenceConfig with the specified values.
+   *
+   * @throws NullPointerException     if any of the windows is null
+   * @throws IllegalArgumentException if a window is not positive, the maximum window is shorter
+   *                                  than the minimum one or the listed names are negative
+   */
+  public PresenceConfig {
+    Objects.requireNonNull(minWindow);
+    Objects.requireNonNull(maxWindow);
+    Validate.isTrue(minWindow.isPositive(), "The minimum presence window must be positive");
+    Validate.isTrue(0 <= maxWindow.compareTo(minWindow),
+        "The maximum presence window must not be shorter than the minimum one");
+    Validate.isTrue(0 <= listedNames, "The listed names must not be negative");
+  }
+
+  /**
+   * Constructs a new PresenceConfig with the default values.
+   */
+  public PresenceConfig() {
+    this(DEFAULT_MIN_WINDOW, DEFAULT_MAX_WINDOW, DEFAULT_LISTED_NAMES);
+  }
+}
@@ -0,0 +1,44 @@
+package org.gladiator.server.config;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents the configuration of the rate limits applied to the messages received by the server.
+ *
+ * @param connectionRate      the messages per second a single connection may send
+ * @param connectionBurst     the messages a single connection may send at once
+ * @param roomRate            the messages per second all the connections together may send
+ * @param roomBurst           the messages all the connections together may send at once
+ * @param maxRejectedMessages the rejected messages tolerated before a connection is closed, one
+ *                            more is tolerated for every second
+ */
+public record RateLimitConfig(int connectionRate, int connectionBurst, int roomRate,
+                              int roomBurst, int maxRejectedMessages) {
+
+  private static final int DEFAULT_CONNECTION_RATE = 5;
+  private static final int DEFAULT_CONNECTION_BURST = 20;
+  private static final int DEFAULT_ROOM_RATE = 200;
+  private static final int DEFAULT_ROOM_BURST = 400;
+  private static final int DEFAULT_MAX_REJECTED_MESSAGES = 100;
+
+  /**
+   * Constructs a new RateLimitConfig with the specified values.
+   *
+   * @throws IllegalArgumentException if any of the values is not positive
+   */
+  public RateLimitConfig {
+    Validate.isTrue(0 < connectionRate, "The connection rate must be positive");
+    Validate.isTrue(0 < connectionBurst, "The connection burst must be positive");
+    Validate.isTrue(0 < roomRate, "The room rate must be positive");
+    Validate.isTrue(0 < roomBurst, "The room burst must be positive");
+    Validate.isTrue(0 < maxRejectedMessages, "The maximum rejected messages must be positive");
+  }
+
+  /**
+   * Constructs a new RateLimitConfig with the default values.
+   */
+  public RateLimitConfig() {
+    this(DEFAULT_CONNECTION_RATE, DEFAULT_CONNECTION_BURST, DEFAULT_ROOM_RATE, DEFAULT_ROOM_BURST,
+        DEFAULT_MAX_REJECTED_MESSAGES);
+  }
+}
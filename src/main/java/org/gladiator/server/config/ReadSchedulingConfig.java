@@ -0,0 +1,63 @@
+package org.gladiator.server.config;
+
+import java.net.InetAddress;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents how the server shares the processing of the received messages between the
+ * connections.
+ *
+ * <p>The privilege is given by the address the connection comes from, which the server sees for
+ * itself, rather than by the user name, which the client chooses without any authentication.</p>
+ *
+ * @param concurrentReads     the messages processed at the same time, by as many connections
+ * @param quota               the messages a connection that was quiet may process ahead of the
+ *                            heavy senders
+ * @param privilegedWeight    how many times the share of the other connections the privileged
+ *                            connections get
+ * @param privilegedAddresses the addresses of the privileged connections
+ */
+public record ReadSchedulingConfig(int concurrentReads, int quota, int privilegedWeight,
+                                   Set<InetAddress> privilegedAddresses) {
+
+  private static final int MIN_CONCURRENT_READS = 2;
+  private static final int DEFAULT_QUOTA = 8;
+  private static final int DEFAULT_PRIVILEGED_WEIGHT = 4;
+
+  /**
+   * Constructs a new ReadSchedulingConfig with the specified values.
+   *
+   * @throws NullPointerException     if the privileged addresses are null
+   * @throws IllegalArgumentException if any of the numbers is not positive
+   */
+  public ReadSchedulingConfig {
+    Validate.isTrue(0 < concurrentReads, "The concurrent reads must be positive");
+    Validate.isTrue(0 < quota, "The read quota must be positive");
+    Validate.isTrue(0 < privilegedWeight, "The privileged weight must be positive");
+    privilegedAddresses = Set.copyOf(Objects.requireNonNull(privilegedAddresses));
+  }
+
+  /**
+   * Constructs a new ReadSchedulingConfig with the default values and the given privileged
+   * addresses: one concurrent read per processor, at least two, quotas of 8 messages and
+   * privileged connections getting 4 times the share of the others.
+   *
+   * @param privilegedAddresses the addresses of the privileged connections
+   */
+  public ReadSchedulingConfig(final Set<InetAddress> privilegedAddresses) {
+    this(Math.max(MIN_CONCURRENT_READS, Runtime.getRuntime().availableProcessors()),
+        DEFAULT_QUOTA, DEFAULT_PRIVILEGED_WEIGHT, privilegedAddresses);
+  }
+
+  /**
+   * Gets the weight of a connection.
+   *
+   * @param address the address the connection comes from
+   * @return the privileged weight for a privileged address, 1 for the others
+   */
+  public int weightOf(final InetAddress address) {
+    return privilegedAddresses.contains(address) ? privilegedWeight : 1;
+  }
+}
@@ -0,0 +1,342 @@
+package org.gladiator.server.config;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.environment.Port;
+import org.gladiator.exception.EndApplicationException;
+import org.gladiator.util.settings.Settings;
+
+/**
+ * Represents the settings the server is started with, from the command line, the environment or
+ * a properties file.
+ *
+ * <p>Without the headless setting, the server is interactive: its name and port are asked on the
+ * terminal and the name, port and log sample rate settings are ignored.</p>
+ *
+ * @param headless            whether the server runs without a terminal
+ * @param name                the name of the headless server
+ * @param port                the port of the headless server
+ * @param logSampleRate       the fraction of the chat messages logged by the headless server, from
+ *                            0 for none to 1 for all of them
+ * @param metricsPort         the local port of the Prometheus metrics endpoint, or 0 to disable it
+ * @param flushWindow         how many milliseconds to wait for more messages before writing a batch
+ *                            to a client, from 0 to 1000
+ * @param tcpNoDelay          whether Nagle's algorithm is disabled on the client sockets
+ * @param sendBuffer          the size of the socket send buffers, or 0 for the operating system
+ *                            size
+ * @param receiveBuffer       the size of the socket receive buffers, or 0 for the operating system
+ *                            size
+ * @param privilegedAddresses the addresses of the clients with a bigger share of the server,
+ *                            separated by commas
+ * @param idleTimeout         how many seconds a client may be quiet before it is disconnected
+ * @param writeTimeout        how many seconds a write to a client may make no progress before it is
+ *                            disconnected
+ * @param connectionRate      the messages per second a single client may send
+ * @param connectionBurst     the messages a single client may send at once
+ * @param roomRate            the chat messages per second all the clients together may send
+ * @param roomBurst           the chat messages all the clients together may send at once
+ * @param maxRejected         the rejected messages tolerated before a client is disconnected
+ * @param acceptBacklog       the maximum number of connections waiting to be accepted
+ * @param maxConnections      the maximum number of live connections, including the handshaking
+ *                            ones
+ * @param maxHandshakes       the maximum number of connections handshaking at the same time
+ * @param presenceMinWindow   how many milliseconds the joins and leaves are held back to be
+ *                            coalesced when they are rare
+ * @param presenceMaxWindow   how many milliseconds the joins and leaves are held back at most,
+ *                            during a join or leave storm
+ * @param presenceListedNames the maximum number of names listed in a presence digest
+ * @param historySegmentSize  the size in MiB of a history segment before it is rolled, up to
+ *                            2047
+ * @param historyRetention    the size in MiB the history is kept under by deleting its oldest
+ *                            segments
+ * @param historyRetentionAge how many hours a sealed history segment is kept
+ * @see Settings
+ */
+public record ServerSettings(boolean headless, String name, int port, double logSampleRate,
+                             int metricsPort, int flushWindow, boolean tcpNoDelay,
+                             int sendBuffer, int receiveBuffer, String privilegedAddresses,
+                             int idleTimeout, int writeTimeout, int connectionRate,
+                             int connectionBurst, int roomRate, int roomBurst,
+                             int maxRejected, int acceptBacklog, int maxConnections,
+                             int maxHandshakes, int presenceMinWindow,
+                             int presenceMaxWindow, int presenceListedNames,
+                             int historySegmentSize, int historyRetention,
+                             int historyRetentionAge) {
+
+  /**
+   * The prefix of the environment variables of the server settings.
+   */
+  public static final String ENV_PREFIX = "JMESSENGER_SERVER_";
+  private static final String HEADLESS_KEY = "headless";
+  private static final String NAME_KEY = "name";
+  private static final String PORT_KEY = "port";
+  private static final String LOG_SAMPLE_RATE_KEY = "log-sample-rate";
+  private static final String METRICS_PORT_KEY = "metrics-port";
+  private static final String FLUSH_WINDOW_KEY = "flush-window";
+  private static final String TCP_NO_DELAY_KEY = "tcp-no-delay";
+  private static final String SEND_BUFFER_KEY = "send-buffer";
+  private static final String RECEIVE_BUFFER_KEY = "receive-buffer";
+  private static final String PRIVILEGED_ADDRESSES_KEY = "privileged-addresses";
+  private static final String IDLE_TIMEOUT_KEY = "idle-timeout";
+  private static final String WRITE_TIMEOUT_KEY = "write-timeout";
+  private static final String CONNECTION_RATE_KEY = "rate-connection";
+  private static final String CONNECTION_BURST_KEY = "rate-connection-burst";
+  private static final String ROOM_RATE_KEY = "rate-room";
+  private static final String ROOM_BURST_KEY = "rate-room-burst";
+  private static final String MAX_REJECTED_KEY = "rate-max-rejected";
+  private static final String ACCEPT_BACKLOG_KEY = "accept-backlog";
+  private static final String MAX_CONNECTIONS_KEY = "max-connections";
+  private static final String MAX_HANDSHAKES_KEY = "max-handshakes";
+  private static final String PRESENCE_MIN_WINDOW_KEY = "presence-min-window";
+  private static final String PRESENCE_MAX_WINDOW_KEY = "presence-max-window";
+  private static final String PRESENCE_LISTED_NAMES_KEY = "presence-listed-names";
+  private static final String HISTORY_SEGMENT_SIZE_KEY = "history-segment-size";
+  private static final String HISTORY_RETENTION_KEY = "history-retention";
+  private static final String HISTORY_RETENTION_AGE_KEY = "history-retention-age";
+  private static final Set<String> KEYS = Set.of(HEADLESS_KEY, NAME_KEY, PORT_KEY,
+      LOG_SAMPLE_RATE_KEY, METRICS_PORT_KEY, FLUSH_WINDOW_KEY, TCP_NO_DELAY_KEY, SEND_BUFFER_KEY,
+      RECEIVE_BUFFER_KEY, PRIVILEGED_ADDRESSES_KEY, IDLE_TIMEOUT_KEY, WRITE_TIMEOUT_KEY,
+      CONNECTION_RATE_KEY, CONNECTION_BURST_KEY, ROOM_RATE_KEY, ROOM_BURST_KEY, MAX_REJECTED_KEY,
+      ACCEPT_BACKLOG_KEY, MAX_CONNECTIONS_KEY, MAX_HANDSHAKES_KEY, PRESENCE_MIN_WINDOW_KEY,
+      PRESENCE_MAX_WINDOW_KEY, PRESENCE_LISTED_NAMES_KEY, HISTORY_SEGMENT_SIZE_KEY,
+      HISTORY_RETENTION_KEY, HISTORY_RETENTION_AGE_KEY);
+  private static final String ADDRESS_SPLITTER = ",";
+  private static final double DEFAULT_LOG_SAMPLE_RATE = 0.01;
+  private static final int MAX_FLUSH_WINDOW = 1000;
+  private static final int MIN_IDLE_TIMEOUT = 3;
+  private static final TimeoutConfig DEFAULT_TIMEOUTS = new TimeoutConfig();
+  private static final RateLimitConfig DEFAULT_RATE_LIMITS = new RateLimitConfig();
+  private static final AdmissionConfig DEFAULT_ADMISSION = new AdmissionConfig();
+  private static final PresenceConfig DEFAULT_PRESENCE = new PresenceConfig();
+  private static final HistoryConfig DEFAULT_HISTORY = new HistoryConfig();
+  private static final int MIB = 1024 * 1024;
+  private static final int MAX_SEGMENT_SIZE = Integer.MAX_VALUE / MIB;
+
+  /**
+   * Constructs a new ServerSettings with the specified values.
+   *
+   * @throws NullPointerException     if the name or the privileged addresses are null
+   * @throws IllegalArgumentException if the name is blank, a port is out of range, the log
+   *                                  sample rate is not between 0 and 1, the flush window is out
+   *                                  of range, a buffer size is negative, the idle timeout is
+   *                                  shorter than 3 seconds, the write timeout is not positive, a
+   *                                  rate limit is not positive, an admission limit is not
+   *                                  positive, a presence window is not positive, the maximum
+   *                                  presence window is shorter than the minimum one, the
+   *                                  listed names are negative, the history segment size is out
+   *                                  of range or a history retention is not positive
+   */
+  public ServerSettings {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(privilegedAddresses);
+    Validate.notBlank(name, "The server name must not be blank");
+    Validate.inclusiveBetween(Port.PORT_MIN, Port.PORT_MAX, port, "The port is out of range");
+    Validate.inclusiveBetween(0, 1, logSampleRate, "The log sample rate must be between 0 and 1");
+    Validate.inclusiveBetween(Port.PORT_MIN, Port.PORT_MAX, metricsPort,
+        "The metrics port is out of range");
+    Validate.inclusiveBetween(0, MAX_FLUSH_WINDOW, flushWindow,
+        "The flush window must be between 0 and " + MAX_FLUSH_WINDOW + " milliseconds");
+    Validate.isTrue(0 <= sendBuffer, "The send buffer size must not be negative");
+    Validate.isTrue(0 <= receiveBuffer, "The receive buffer size must not be negative");
+    Validate.isTrue(MIN_IDLE_TIMEOUT <= idleTimeout,
+        "The idle timeout must be at least " + MIN_IDLE_TIMEOUT + " seconds");
+    Validate.isTrue(0 < writeTimeout, "The write timeout must be positive");
+    Validate.isTrue(0 < connectionRate, "The connection rate must be positive");
+    Validate.isTrue(0 < connectionBurst, "The connection burst must be positive");
+    Validate.isTrue(0 < roomRate, "The room rate must be positive");
+    Validate.isTrue(0 < roomBurst, "The room burst must be positive");
+    Validate.isTrue(0 < maxRejected, "The maximum rejected messages must be positive");
+    Validate.isTrue(0 < acceptBacklog, "The accept backlog must be positive");
+    Validate.isTrue(0 < maxConnections, "The maximum connections must be positive");
+    Validate.isTrue(0 < maxHandshakes, "The maximum handshakes must be positive");
+    Validate.isTrue(0 < presenceMinWindow, "The minimum presence window must be positive");
+    Validate.isTrue(presenceMinWindow <= presenceMaxWindow,
+        "The maximum presence window must not be shorter than the minimum one");
+    Validate.isTrue(0 <= presenceListedNames, "The listed names must not be negative");
+    Validate.inclusiveBetween(1, MAX_SEGMENT_SIZE, historySegmentSize,
+        "The history segment size must be between 1 and " + MAX_SEGMENT_SIZE + " MiB");
+    Validate.isTrue(0 < historyRetention, "The history retention size must be positive");
+    Validate.isTrue(0 < historyRetentionAge, "The history retention age must be positive");
+  }
+
+  /**
+   * Constructs a new interactive ServerSettings with the default values.
+   */
+  public ServerSettings() {
+    this(false, ServerConfig.getDefaultName(), Port.PORT_DEFAULT, DEFAULT_LOG_SAMPLE_RATE,
+        MetricsConfig.DISABLED, 0, true, OutboundConfig.OS_DEFAULT, OutboundConfig.OS_DEFAULT,
+        "", (int) DEFAULT_TIMEOUTS.idleTimeout().toSeconds(),
+        (int) DEFAULT_TIMEOUTS.writeTimeout().toSeconds(), DEFAULT_RATE_LIMITS.connectionRate(),
+        DEFAULT_RATE_LIMITS.connectionBurst(), DEFAULT_RATE_LIMITS.roomRate(),
+        DEFAULT_RATE_LIMITS.roomBurst(), DEFAULT_RATE_LIMITS.maxRejectedMessages(),
+        DEFAULT_ADMISSION.acceptBacklog(), DEFAULT_ADMISSION.maxConnections(),
+        DEFAULT_ADMISSION.maxHandshakes(), (int) DEFAULT_PRESENCE.minWindow().toMillis(),
+        (int) DEFAULT_PRESENCE.maxWindow().toMillis(), DEFAULT_PRESENCE.listedNames(),
+        DEFAULT_HISTORY.segmentSize() / MIB, (int) (DEFAULT_HISTORY.retentionBytes() / MIB),
+        (int) DEFAULT_HISTORY.retentionTime().toHours());
+  }
+
+  /**
+   * Loads the server settings from the command line arguments, the environment variables and the
+   * properties file they may point to.
+   *
+   * @param args        the command line arguments
+   * @param environment the environment variables
+   * @return the loaded settings
+   * @throws EndApplicationException if a setting is unknown or invalid, such as a privileged
+   *                                 address that cannot be resolved, or the properties file cannot
+   *                                 be read
+   */
+  public static ServerSettings load(final List<String> args,
+      final Map<String, String> environment) throws EndApplicationException {
+    try {
+      final Settings settings = Settings.load(KEYS, ENV_PREFIX, args, environment);
+      final ServerSettings defaults = new ServerSettings();
+      final ServerSettings loaded = new ServerSettings(
+          settings.getBoolean(HEADLESS_KEY, defaults.headless()),
+          settings.getString(NAME_KEY, defaults.name()),
+          settings.getInt(PORT_KEY, defaults.port()),
+          settings.getDouble(LOG_SAMPLE_RATE_KEY, defaults.logSampleRate()),
+          settings.getInt(METRICS_PORT_KEY, defaults.metricsPort()),
+          settings.getInt(FLUSH_WINDOW_KEY, defaults.flushWindow()),
+          settings.getBoolean(TCP_NO_DELAY_KEY, defaults.tcpNoDelay()),
+          settings.getInt(SEND_BUFFER_KEY, defaults.sendBuffer()),
+          settings.getInt(RECEIVE_BUFFER_KEY, defaults.receiveBuffer()),
+          settings.getString(PRIVILEGED_ADDRESSES_KEY, defaults.privilegedAddresses()),
+          settings.getInt(IDLE_TIMEOUT_KEY, defaults.idleTimeout()),
+          settings.getInt(WRITE_TIMEOUT_KEY, defaults.writeTimeout()),
+          settings.getInt(CONNECTION_RATE_KEY, defaults.connectionRate()),
+          settings.getInt(CONNECTION_BURST_KEY, defaults.connectionBurst()),
+          settings.getInt(ROOM_RATE_KEY, defaults.roomRate()),
+          settings.getInt(ROOM_BURST_KEY, defaults.roomBurst()),
+          settings.getInt(MAX_REJECTED_KEY, defaults.maxRejected()),
+          settings.getInt(ACCEPT_BACKLOG_KEY, defaults.acceptBacklog()),
+          settings.getInt(MAX_CONNECTIONS_KEY, defaults.maxConnections()),
+          settings.getInt(MAX_HANDSHAKES_KEY, defaults.maxHandshakes()),
+          settings.getInt(PRESENCE_MIN_WINDOW_KEY, defaults.presenceMinWindow()),
+          settings.getInt(PRESENCE_MAX_WINDOW_KEY, defaults.presenceMaxWindow()),
+          settings.getInt(PRESENCE_LISTED_NAMES_KEY, defaults.presenceListedNames()),
+          settings.getInt(HISTORY_SEGMENT_SIZE_KEY, defaults.historySegmentSize()),
+          settings.getInt(HISTORY_RETENTION_KEY, defaults.historyRetention()),
+          settings.getInt(HISTORY_RETENTION_AGE_KEY, defaults.historyRetentionAge()));
+      loaded.readSchedulingConfig();
+      return loaded;
+    } catch (final IllegalArgumentException e) {
+      throw new EndApplicationException("Invalid server settings: " + e.getMessage(), e);
+    } catch (final IOException e) {
+      throw new EndApplicationException("Error reading the server settings file", e);
+    }
+  }
+
+  /**
+   * Creates the configuration of the headless server.
+   *
+   * @return the server configuration with the name and port of these settings
+   */
+  public ServerConfig serverConfig() {
+    return new ServerConfig(name, port);
+  }
+
+  /**
+   * Creates the configuration of the metrics, which applies to interactive servers too.
+   *
+   * @return the metrics configuration with the metrics port of these settings
+   */
+  public MetricsConfig metricsConfig() {
+    return new MetricsConfig(metricsPort);
+  }
+
+  /**
+   * Creates the configuration of the writes to the clients, which applies to interactive servers
+   * too.
+   *
+   * @return the outbound configuration with the flush window, Nagle and buffer settings
+   */
+  public OutboundConfig outboundConfig() {
+    final OutboundConfig defaults = new OutboundConfig();
+    return new OutboundConfig(Duration.ofMillis(flushWindow), defaults.maxBatch(),
+        defaults.maxPending(), tcpNoDelay, sendBuffer, receiveBuffer);
+  }
+
+  /**
+   * Creates the configuration of the read scheduling, which applies to interactive servers too.
+   * The host names among the privileged addresses are resolved once, when it is created.
+   *
+   * @return the read scheduling configuration with the privileged addresses of these settings
+   * @throws EndApplicationException if a privileged address cannot be resolved
+   */
+  public ReadSchedulingConfig readSchedulingConfig() throws EndApplicationException {
+    final Set<InetAddress> addresses = new HashSet<>();
+    for (final String address : privilegedAddresses.split(ADDRESS_SPLITTER, -1)) {
+      final String host = address.strip();
+      if (host.isEmpty()) {
+        continue;
+      }
+      try {
+        addresses.add(InetAddress.getByName(host));
+      } catch (final UnknownHostException e) {
+        throw new EndApplicationException("Invalid privileged address: " + host, e);
+      }
+    }
+    return new ReadSchedulingConfig(addresses);
+  }
+
+  /**
+   * Creates the configuration of the timeouts, which applies to interactive servers too.
+   *
+   * @return the timeout configuration with the read and write deadlines of these settings
+   */
+  public TimeoutConfig timeoutConfig() {
+    return new TimeoutConfig(Duration.ofSeconds(idleTimeout), Duration.ofSeconds(writeTimeout));
+  }
+
+  /**
+   * Creates the configuration of the rate limits, which applies to interactive servers too.
+   *
+   * @return the rate limit configuration with the rates and bursts of these settings
+   */
+  public RateLimitConfig rateLimitConfig() {
+    return new RateLimitConfig(connectionRate, connectionBurst, roomRate, roomBurst, maxRejected);
+  }
+
+  /**
+   * Creates the configuration of the admission of the connections, which applies to interactive
+   * servers too.
+   *
+   * @return the admission configuration with the backlog and the limits of these settings
+   */
+  public AdmissionConfig admissionConfig() {
+    return new AdmissionConfig(acceptBacklog, maxConnections, maxHandshakes);
+  }
+
+  /**
+   * Creates the configuration of the presence announcements, which applies to interactive servers
+   * too.
+   *
+   * @return the presence configuration with the windows and the listed names of these settings
+   */
+  public PresenceConfig presenceConfig() {
+    return new PresenceConfig(Duration.ofMillis(presenceMinWindow),
+        Duration.ofMillis(presenceMaxWindow), presenceListedNames);
+  }
+
+  /**
+   * Creates the configuration of the message history, which applies to interactive servers too.
+   *
+   * @return the history configuration with the segment size and the retention of these settings
+   */
+  public HistoryConfig historyConfig() {
+    return new HistoryConfig(DEFAULT_HISTORY.directory(), historySegmentSize * MIB,
+        DEFAULT_HISTORY.segmentMaxAge(), (long) historyRetention * MIB,
+        Duration.ofHours(historyRetentionAge), DEFAULT_HISTORY.flushInterval(),
+        DEFAULT_HISTORY.indexInterval(), DEFAULT_HISTORY.recentSize());
+  }
+}
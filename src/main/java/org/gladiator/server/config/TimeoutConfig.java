@@ -0,0 +1,74 @@
+package org.gladiator.server.config;
+
+import java.time.Duration;
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents the heartbeat and timeout configuration of the server connections.
+ *
+ * @param heartbeatInterval the time a connection may be quiet before a heartbeat is sent to it
+ * @param idleTimeout       the time a connection may be quiet before it is closed, which is the
+ *                          deadline of the reads
+ * @param handshakeTimeout  the maximum time a new connection may take to finish the handshake
+ * @param writeTimeout      the time a write may make no progress before the connection is closed
+ */
+public record TimeoutConfig(Duration heartbeatInterval, Duration idleTimeout,
+                            Duration handshakeTimeout, Duration writeTimeout) {
+
+  private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(45);
+  private static final Duration DEFAULT_HANDSHAKE_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration DEFAULT_WRITE_TIMEOUT = Duration.ofSeconds(30);
+  private static final int HEARTBEATS_PER_IDLE_TIMEOUT = 3;
+
+  /**
+   * Constructs a new TimeoutConfig with the specified values.
+   *
+   * @throws NullPointerException     if any of the parameters is null
+   * @throws IllegalArgumentException if any of the durations is not positive or the idle timeout
+   *                                  is not longer than the heartbeat interval
+   */
+  public TimeoutConfig {
+    Objects.requireNonNull(heartbeatInterval);
+    Objects.requireNonNull(idleTimeout);
+    Objects.requireNonNull(handshakeTimeout);
+    Objects.requireNonNull(writeTimeout);
+    Validate.isTrue(heartbeatInterval.isPositive(), "The heartbeat interval must be positive");
+    Validate.isTrue(handshakeTimeout.isPositive(), "The handshake timeout must be positive");
+    Validate.isTrue(writeTimeout.isPositive(), "The write timeout must be positive");
+    Validate.isTrue(0 < idleTimeout.compareTo(heartbeatInterval),
+        "The idle timeout must be longer than the heartbeat interval");
+  }
+
+  /**
+   * Constructs a new TimeoutConfig with the given read and write deadlines, sending the heartbeats
+   * three times per idle timeout.
+   *
+   * @param idleTimeout  the time a connection may be quiet before it is closed
+   * @param writeTimeout the time a write may make no progress before the connection is closed
+   * @throws NullPointerException     if any of the parameters is null
+   * @throws IllegalArgumentException if any of the durations is not positive
+   */
+  public TimeoutConfig(final Duration idleTimeout, final Duration writeTimeout) {
+    this(idleTimeout.dividedBy(HEARTBEATS_PER_IDLE_TIMEOUT), idleTimeout,
+        DEFAULT_HANDSHAKE_TIMEOUT, writeTimeout);
+  }
+
+  /**
+   * Constructs a new TimeoutConfig with the default values: heartbeats every 15 seconds, an idle
+   * timeout of 45 seconds and a write timeout of 30 seconds.
+   */
+  public TimeoutConfig() {
+    this(DEFAULT_IDLE_TIMEOUT, DEFAULT_WRITE_TIMEOUT);
+  }
+
+  /**
+   * Gets the interval of the checks of a connection, short enough to send the heartbeats and to
+   * notice a stalled write in time.
+   *
+   * @return the shorter of the heartbeat interval and the write timeout
+   */
+  public Duration checkInterval() {
+    return 0 > writeTimeout.compareTo(heartbeatInterval) ? writeTimeout : heartbeatInterval;
+  }
+}
@@ -0,0 +1,74 @@
+package org.gladiator.server.console;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.model.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Console of a server run without a terminal, such as a service. It does not read any line and
+ * logs only a sample of the chat messages, so a busy server does not spend its time logging
+ * them.
+ *
+ * <p>The sampling is deterministic: with a rate of 0.01, one message out of every hundred is
+ * logged, along with the number of messages received so far.</p>
+ */
+public final class HeadlessConsole implements ServerConsole {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HeadlessConsole.class);
+
+  private final long sampleInterval;
+  private final AtomicLong messageCount = new AtomicLong();
+  private final CountDownLatch closeLatch = new CountDownLatch(1);
+
+  /**
+   * Constructs a new HeadlessConsole.
+   *
+   * @param logSampleRate the fraction of the chat messages logged, from 0 for none to 1 for all of
+   *                      them
+   * @throws IllegalArgumentException if the rate is not between 0 and 1
+   */
+  public HeadlessConsole(final double logSampleRate) {
+    Validate.inclusiveBetween(0, 1, logSampleRate, "The log sample rate must be between 0 and 1");
+    this.sampleInterval = 0 == logSampleRate ? 0 : Math.round(1 / logSampleRate);
+  }
+
+  @Override
+  public void showMessage(final Message message) {
+    if (0 == sampleInterval) {
+      return;
+    }
+    final long count = messageCount.incrementAndGet();
+    if (0 == count % sampleInterval) {
+      LOGGER.info("Message {} (1 in {} logged): {}", count, sampleInterval, message);
+    }
+  }
+
+  @Override
+  public void display(final String text) {
+    LOGGER.info(text);
+  }
+
+  /**
+   * Waits until the console is closed, the headless server has no lines to read.
+   *
+   * @param lineHandler The handler of each typed line, never called.
+   */
+  @Override
+  public void readLines(final Consumer<String> lineHandler) {
+    LOGGER.info("Running headless, stop the process to exit");
+    try {
+      closeLatch.await();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    closeLatch.countDown();
+  }
+}
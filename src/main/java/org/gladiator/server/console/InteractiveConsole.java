@@ -0,0 +1,61 @@
+package org.gladiator.server.console;
+
+import java.util.function.Consumer;
+import org.gladiator.util.chat.ChatUtils;
+import org.gladiator.util.connection.message.model.Message;
+import org.jline.reader.EndOfFileException;
+import org.jline.reader.UserInterruptException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Console of a server run on a terminal, it renders every chat message and reads the lines typed
+ * by the user until `quit` is typed.
+ */
+public final class InteractiveConsole implements ServerConsole {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(InteractiveConsole.class);
+  private static final String QUIT_COMMAND = "quit";
+
+  private final ChatUtils chatUtils;
+
+  /**
+   * Constructs a new InteractiveConsole.
+   *
+   * @param chatUtils the chat utilities of the terminal, closed along with the console
+   */
+  public InteractiveConsole(final ChatUtils chatUtils) {
+    this.chatUtils = chatUtils;
+  }
+
+  @Override
+  public void showMessage(final Message message) {
+    chatUtils.showNewMessage(message);
+  }
+
+  @Override
+  public void display(final String text) {
+    chatUtils.displayOnScreen(text);
+  }
+
+  @Override
+  public void readLines(final Consumer<String> lineHandler) {
+    LOGGER.info("Type `{}` to exit", QUIT_COMMAND);
+
+    try {
+      String line = chatUtils.getUserInput();
+
+      while (null != line && !QUIT_COMMAND.equals(line)) {
+        lineHandler.accept(line);
+        line = chatUtils.getUserInput();
+      }
+    } catch (final EndOfFileException | UserInterruptException e) {
+      LOGGER.debug(ChatUtils.USER_INTERRUPT_MESSAGE, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    chatUtils.close();
+  }
+}
@@ -0,0 +1,42 @@
+package org.gladiator.server.console;
+
+import java.util.function.Consumer;
+import org.gladiator.util.connection.message.model.Message;
+
+/**
+ * The console of the server, where the chat messages are shown and the server commands are
+ * typed.
+ *
+ * @see InteractiveConsole
+ * @see HeadlessConsole
+ */
+public interface ServerConsole extends AutoCloseable {
+
+  /**
+   * Shows a chat message received or sent by the server.
+   *
+   * @param message The message to show.
+   */
+  void showMessage(Message message);
+
+  /**
+   * Shows an informational text, such as the result of a command.
+   *
+   * @param text The text to show.
+   */
+  void display(String text);
+
+  /**
+   * Reads the lines typed on the console and passes them to the handler, until the user quits or
+   * the console is closed.
+   *
+   * @param lineHandler The handler of each typed line.
+   */
+  void readLines(Consumer<String> lineHandler);
+
+  /**
+   * Closes the console, which stops reading the lines.
+   */
+  @Override
+  void close();
+}
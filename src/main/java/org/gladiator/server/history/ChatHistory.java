@@ -0,0 +1,223 @@
+package org.gladiator.server.history;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.gladiator.exception.InvalidMessageException;
+import org.gladiator.server.config.HistoryConfig;
+import org.gladiator.server.search.SearchIndex;
+import org.gladiator.util.connection.message.ConnectionMessageFactory;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the history of the chat messages of the server.
+ *
+ * <p>Every recorded message is stamped with a monotonic sequence number and a timestamp, kept in
+ * the {@link RecentHistory} and appended to the {@link HistoryLog}, using the sequence number as
+ * the log offset. The sequence continues from the last logged message when the server
+ * restarts.</p>
+ *
+ * <p>Clients send the sequence number of the last message they received when they connect, so
+ * only the gap is sent back to them, from memory when possible and from the log otherwise. A
+ * connecting client is registered to receive the new messages before the gap is taken, so a message
+ * recorded meanwhile may reach it twice, the clients drop the messages whose stamp they already
+ * received.</p>
+ *
+ * <p>The recorded messages are also added to a {@link SearchIndex}, so they can be searched
+ * without scanning the log.</p>
+ */
+public final class ChatHistory implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChatHistory.class);
+  private static final int MAX_CATCH_UP_SIZE = 10_000;
+  private static final int MAX_SEARCH_RESULTS = 20;
+
+  private final HistoryLog historyLog;
+  private final RecentHistory recentHistory;
+  private final SearchIndex searchIndex;
+  private final Lock lock = new ReentrantLock();
+  private long nextSequence;
+
+  private ChatHistory(final HistoryLog historyLog, final RecentHistory recentHistory,
+      final SearchIndex searchIndex, final long nextSequence) {
+    this.historyLog = historyLog;
+    this.recentHistory = recentHistory;
+    this.searchIndex = searchIndex;
+    this.nextSequence = nextSequence;
+  }
+
+  /**
+   * Opens the chat history, recovering the sequence numbers from the history log.
+   *
+   * @param config the history configuration
+   * @return the opened chat history
+   * @throws IOException if the history log cannot be opened
+   */
+  public static ChatHistory open(final HistoryConfig config) throws IOException {
+    final HistoryLog historyLog = HistoryLog.open(config);
+    final long nextSequence = Math.max(1, historyLog.nextOffset());
+    return new ChatHistory(historyLog, new RecentHistory(config.recentSize()),
+        SearchIndex.start(historyLog, nextSequence), nextSequence);
+  }
+
+  /**
+   * Stamps a chat message with the next sequence number and the current time and records it while
+   * no other message can be recorded, then publishes it. The messages recorded at the same time by
+   * different threads may reach the receivers out of sequence order.
+   *
+   * @param message   the message received
+   * @param publisher the action that sends the stamped message to the receivers
+   * @return the stamped message
+   */
+  public SimpleMessage record(final SimpleMessage message,
+      final Consumer<? super SimpleMessage> publisher) {
+    final SimpleMessage stamped;
+    lock.lock();
+    try {
+      stamped = message.withSequence(nextSequence, System.currentTimeMillis());
+      final String transportMessage = stamped.toTransportString();
+      recentHistory.add(new HistoryEntry(nextSequence, transportMessage));
+      historyLog.append(nextSequence, transportMessage);
+      searchIndex.index(stamped);
+      nextSequence++;
+    } finally {
+      lock.unlock();
+    }
+    publisher.accept(stamped);
+    return stamped;
+  }
+
+  /**
+   * Gets the messages a client missed, running the subscriber first, so a connection added to the
+   * receivers by it does not miss any message recorded after the returned ones. The messages
+   * recorded while the subscriber runs may be both returned and published to the connection.
+   *
+   * <p>A client that never received a message, or that knows a sequence this server never
+   * reached, receives the recent messages only.</p>
+   *
+   * @param lastSequence the sequence number of the last message the client received
+   * @param subscriber   the action that registers the client to receive the new messages
+   * @return the missed messages encoded as transport strings, in sequence order
+   */
+  public List<String> catchUp(final long lastSequence, final Runnable subscriber) {
+    final List<HistoryEntry> recentEntries;
+    final boolean isKnownSequence;
+    final long endSequence;
+
+    subscriber.run();
+    lock.lock();
+    try {
+      endSequence = nextSequence;
+      isKnownSequence = 0 < lastSequence && lastSequence < nextSequence;
+      final List<HistoryEntry> entriesAfter = recentHistory.entriesAfter(lastSequence);
+      recentEntries = isKnownSequence && null != entriesAfter
+          ? entriesAfter : recentHistory.snapshot();
+    } finally {
+      lock.unlock();
+    }
+
+    final List<HistoryEntry> missedEntries = new ArrayList<>();
+    final long logEndSequence = recentEntries.isEmpty()
+        ? endSequence : recentEntries.getFirst().offset();
+    if (isKnownSequence && logEndSequence > lastSequence + 1) {
+      missedEntries.addAll(readLog(lastSequence + 1, logEndSequence));
+    }
+    missedEntries.addAll(recentEntries);
+
+    final int skipped = Math.max(0, missedEntries.size() - MAX_CATCH_UP_SIZE);
+    return missedEntries.subList(skipped, missedEntries.size()).stream()
+        .map(HistoryEntry::entry)
+        .toList();
+  }
+
+  /**
+   * Reads the logged messages in the given sequence range, the newest ones are kept when the range
+   * is bigger than the catch-up limit.
+   */
+  private List<HistoryEntry> readLog(final long fromSequence, final long toSequence) {
+    final long firstSequence = Math.max(fromSequence, toSequence - MAX_CATCH_UP_SIZE);
+    try {
+      return historyLog.read(firstSequence, (int) (toSequence - firstSequence)).stream()
+          .filter(entry -> entry.offset() < toSequence)
+          .toList();
+    } catch (final IOException e) {
+      LOGGER.error("Error reading the message history from {}", firstSequence, e);
+      return List.of();
+    }
+  }
+
+  /**
+   * Searches the recorded messages containing all the terms of the query. The messages recorded in
+   * the last moments may not be found yet, as they are indexed in the background.
+   *
+   * @param query the terms to search, separated by spaces, {@code from:name} matches the sender
+   * @return the newest matching messages, from the oldest to the newest
+   */
+  public List<SimpleMessage> search(final String query) {
+    final long[] sequences = searchIndex.search(query, MAX_SEARCH_RESULTS);
+    final List<SimpleMessage> messages = new ArrayList<>(sequences.length);
+    for (int i = sequences.length - 1; 0 <= i; i--) {
+      final SimpleMessage message = findMessage(sequences[i]);
+      if (null != message) {
+        messages.add(message);
+      }
+    }
+    return messages;
+  }
+
+  /**
+   * Finds a recorded message in the recent history or, when it is older, in the log.
+   */
+  @Nullable
+  private SimpleMessage findMessage(final long sequence) {
+    HistoryEntry entry = recentHistory.get(sequence);
+    try {
+      if (null == entry) {
+        final List<HistoryEntry> logEntries = historyLog.read(sequence, 1);
+        if (logEntries.isEmpty() || sequence != logEntries.getFirst().offset()) {
+          return null;
+        }
+        entry = logEntries.getFirst();
+      }
+      return ConnectionMessageFactory.createFromString(entry.entry())
+          instanceof final SimpleMessage message ? message : null;
+    } catch (final IOException e) {
+      LOGGER.error("Error reading the message {} from the history", sequence, e);
+    } catch (final InvalidMessageException e) {
+      LOGGER.debug(InvalidMessageException.DEFAULT_PROMPT, e);
+    }
+    return null;
+  }
+
+  /**
+   * Gets the number of messages that were not written to the history log because its writer was
+   * not keeping up.
+   *
+   * @return the number of dropped history entries
+   */
+  public long droppedEntries() {
+    return historyLog.droppedEntries();
+  }
+
+  /**
+   * Gets the number of messages that were not added to the search index because its indexer was
+   * not keeping up.
+   *
+   * @return the number of messages left out of the search index
+   */
+  public long searchDroppedMessages() {
+    return searchIndex.droppedMessages();
+  }
+
+  @Override
+  public void close() {
+    searchIndex.close();
+    historyLog.close();
+  }
+}
@@ -0,0 +1,11 @@
+package org.gladiator.server.history;
+
+/**
+ * Represents an entry of the message history.
+ *
+ * @param offset the offset of the entry, which is the sequence number of the message
+ * @param entry  the message encoded as a transport string
+ */
+public record HistoryEntry(long offset, String entry) {
+
+}
@@ -0,0 +1,329 @@
+package org.gladiator.server.history;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.gladiator.server.config.HistoryConfig;
+import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only message history of the server, stored as a sequence of memory-mapped segments.
+ *
+ * <p>Appending only places the entry in a queue, a single writer thread copies the queued
+ * entries into the active segment, forces them to disk once per flush interval and rolls and
+ * deletes segments according to the {@link HistoryConfig}. This way the threads receiving
+ * messages never wait on the disk. The entries dropped because the queue is full are counted, and
+ * the writer logs how many were dropped at most once per report interval.</p>
+ *
+ * <p>Each entry is stored with the offset given by the caller, offsets must be increasing but may
+ * have gaps. They are used to read the history back through the sparse index kept by every
+ * segment.</p>
+ */
+public final class HistoryLog implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HistoryLog.class);
+  private static final int QUEUE_CAPACITY = 65_536;
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final long CLOSE_TIMEOUT_SECONDS = 5;
+  private static final long DROP_REPORT_INTERVAL_MILLIS = 10_000;
+
+  private final HistoryConfig config;
+  private final NavigableMap<Long, HistorySegment> segments = new ConcurrentSkipListMap<>();
+  private final BlockingQueue<HistoryEntry> pendingEntries =
+      new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+  private final LongAdder droppedEntries = new LongAdder();
+  private final ExecutorService executor;
+  private volatile boolean running = true;
+  private HistorySegment activeSegment;
+  private long lastFlushMillis = System.currentTimeMillis();
+  private long lastDropReportMillis = System.currentTimeMillis();
+  private long reportedDroppedEntries;
+
+  private HistoryLog(final HistoryConfig config, final HistorySegment activeSegment,
+      final ExecutorService executor) {
+    this.config = config;
+    this.activeSegment = activeSegment;
+    this.executor = executor;
+  }
+
+  /**
+   * Opens the history log stored in the configured directory, creating it when it does not exist,
+   * and starts its writer thread.
+   *
+   * @param config the history configuration
+   * @return the opened history log
+   * @throws IOException if the directory or the segments cannot be opened
+   */
+  public static HistoryLog open(final HistoryConfig config) throws IOException {
+    final Path directory = config.directory();
+    Files.createDirectories(directory);
+
+    final List<Path> segmentPaths;
+    try (final Stream<Path> files = Files.list(directory)) {
+      segmentPaths = files.filter(HistorySegment::isSegmentFile).sorted().toList();
+    }
+
+    final NavigableMap<Long, HistorySegment> openedSegments = new ConcurrentSkipListMap<>();
+    for (int i = 0; i < segmentPaths.size(); i++) {
+      final boolean isLast = i == segmentPaths.size() - 1;
+      final HistorySegment segment = HistorySegment.open(segmentPaths.get(i),
+          config.indexInterval(), isLast, config.segmentSize());
+      openedSegments.put(segment.baseOffset(), segment);
+    }
+
+    if (openedSegments.isEmpty()) {
+      final HistorySegment firstSegment = HistorySegment.create(directory, 0,
+          config.segmentSize(), config.indexInterval());
+      openedSegments.put(firstSegment.baseOffset(), firstSegment);
+    }
+
+    final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("history");
+    final HistoryLog historyLog = new HistoryLog(config, openedSegments.lastEntry().getValue(),
+        executor);
+    historyLog.segments.putAll(openedSegments);
+    LOGGER.debug("History opened with {} segments, next offset {}", openedSegments.size(),
+        historyLog.activeSegment.nextOffset());
+
+    executor.execute(historyLog::writeEntries);
+    return historyLog;
+  }
+
+  /**
+   * Queues an entry to be written to the log. This method never blocks, if the writer cannot
+   * keep up and the queue is full, the entry is dropped and counted in {@link #droppedEntries()}.
+   *
+   * <p>The entries are written in the order they are queued, so the callers must queue them in
+   * increasing offset order.</p>
+   *
+   * @param offset the offset of the entry, greater than the offset of the last appended entry
+   * @param entry  the entry to append
+   * @return true if the entry was queued
+   */
+  public boolean append(final long offset, final String entry) {
+    final boolean queued = running && pendingEntries.offer(new HistoryEntry(offset, entry));
+    if (!queued) {
+      droppedEntries.increment();
+    }
+    return queued;
+  }
+
+  /**
+   * Reads the entries written to the log, starting at the given offset. If the offset was already
+   * deleted by the retention policy, the reading starts at the oldest retained entry.
+   *
+   * @param fromOffset the offset of the first entry to read
+   * @param maxEntries the maximum number of entries to read
+   * @return the entries read, in offset order
+   * @throws IOException if a segment cannot be read
+   */
+  public List<HistoryEntry> read(final long fromOffset, final int maxEntries)
+      throws IOException {
+    final List<HistoryEntry> entries = new ArrayList<>();
+    final Long floorKey = segments.floorKey(fromOffset);
+    final Long startKey = null == floorKey ? segments.firstKey() : floorKey;
+
+    for (final HistorySegment segment : segments.tailMap(startKey, true).values()) {
+      if (entries.size() >= maxEntries) {
+        break;
+      }
+      segment.read(fromOffset, maxEntries - entries.size(),
+          (offset, payload) -> entries.add(
+              new HistoryEntry(offset, new String(payload, StandardCharsets.UTF_8))));
+    }
+    return entries;
+  }
+
+  /**
+   * Gets the lowest offset the log may still hold, the base offset of its oldest segment. It
+   * grows when the retention policy deletes segments.
+   *
+   * @return the first retained offset
+   */
+  public long firstOffset() {
+    return segments.firstKey();
+  }
+
+  /**
+   * Gets the offset following the last written entry.
+   *
+   * @return the next offset
+   */
+  public long nextOffset() {
+    return segments.lastEntry().getValue().nextOffset();
+  }
+
+  /**
+   * Gets the number of entries dropped because the writer was not keeping up or the log was
+   * closed.
+   *
+   * @return the number of dropped entries
+   */
+  public long droppedEntries() {
+    return droppedEntries.sum();
+  }
+
+  /**
+   * Writer loop, it runs on a single thread until the log is closed and the queue is empty.
+   */
+  private void writeEntries() {
+    final List<HistoryEntry> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    final long flushIntervalMillis = config.flushInterval().toMillis();
+
+    while (running || !pendingEntries.isEmpty()) {
+      try {
+        final HistoryEntry entry = pendingEntries.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        if (null != entry) {
+          batch.add(entry);
+          pendingEntries.drainTo(batch, MAX_BATCH_SIZE - 1);
+          writeBatch(batch);
+          batch.clear();
+        }
+        maintainSegments();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      } catch (final IOException e) {
+        LOGGER.error("Error writing the message history", e);
+      }
+    }
+
+    pendingEntries.drainTo(batch);
+    try {
+      writeBatch(batch);
+      activeSegment.flush();
+    } catch (final IOException e) {
+      LOGGER.error("Error writing the last message history entries", e);
+    }
+    reportDroppedEntries(System.currentTimeMillis());
+  }
+
+  private void writeBatch(final List<HistoryEntry> batch) throws IOException {
+    for (final HistoryEntry entry : batch) {
+      if (entry.offset() < activeSegment.nextOffset()) {
+        LOGGER.error("History entry {} discarded, it is out of order", entry.offset());
+        continue;
+      }
+
+      final byte[] payload = entry.entry().getBytes(StandardCharsets.UTF_8);
+      if (!activeSegment.append(entry.offset(), payload)) {
+        rollSegment(entry.offset(), payload.length);
+        activeSegment.append(entry.offset(), payload);
+      }
+    }
+  }
+
+  /**
+   * Forces the written entries to disk when the flush interval elapsed, rolls the active segment
+   * when it is too old and applies the retention policy.
+   */
+  private void maintainSegments() throws IOException {
+    final long now = System.currentTimeMillis();
+    if (DROP_REPORT_INTERVAL_MILLIS <= now - lastDropReportMillis) {
+      reportDroppedEntries(now);
+    }
+
+    if (config.flushInterval().toMillis() <= now - lastFlushMillis) {
+      activeSegment.flush();
+      lastFlushMillis = now;
+    }
+
+    final long activeAge = now - activeSegment.createdAtMillis();
+    if (!activeSegment.isEmpty() && config.segmentMaxAge().toMillis() <= activeAge) {
+      rollSegment(activeSegment.nextOffset(), 0);
+    }
+  }
+
+  /**
+   * Logs the number of entries dropped since the last report, if any.
+   */
+  private void reportDroppedEntries(final long now) {
+    final long dropped = droppedEntries.sum();
+    if (reportedDroppedEntries < dropped) {
+      LOGGER.warn("{} history entries dropped in the last {} seconds, the history writer is not "
+          + "keeping up", dropped - reportedDroppedEntries,
+          TimeUnit.MILLISECONDS.toSeconds(now - lastDropReportMillis));
+      reportedDroppedEntries = dropped;
+    }
+    lastDropReportMillis = now;
+  }
+
+  private void rollSegment(final long baseOffset, final int entrySize) throws IOException {
+    activeSegment.seal();
+
+    final int capacity = Math.max(config.segmentSize(), entrySize + HistorySegment.HEADER_SIZE);
+    final HistorySegment newSegment = HistorySegment.create(config.directory(), baseOffset,
+        capacity, config.indexInterval());
+    segments.put(newSegment.baseOffset(), newSegment);
+    activeSegment = newSegment;
+    lastFlushMillis = System.currentTimeMillis();
+    LOGGER.debug("History segment rolled, new base offset {}", newSegment.baseOffset());
+
+    applyRetention();
+  }
+
+  /**
+   * Deletes the oldest sealed segments while the history is bigger than the retention size or
+   * they are older than the retention time.
+   */
+  private void applyRetention() {
+    long totalSize = segments.values().stream().mapToLong(HistorySegment::size).sum();
+    final long oldestAllowedMillis =
+        System.currentTimeMillis() - config.retentionTime().toMillis();
+
+    while (1 < segments.size()) {
+      final HistorySegment segment = segments.firstEntry().getValue();
+      final boolean tooBig = config.retentionBytes() < totalSize;
+      final boolean tooOld = segment.createdAtMillis() < oldestAllowedMillis;
+      if (!(tooBig || tooOld)) {
+        break;
+      }
+
+      segments.pollFirstEntry();
+      totalSize -= segment.size();
+      try {
+        segment.delete();
+        LOGGER.debug("History segment {} deleted by retention", segment.baseOffset());
+      } catch (final IOException e) {
+        LOGGER.error("Error deleting history segment {}", segment.baseOffset(), e);
+      }
+    }
+  }
+
+  /**
+   * Writes the queued entries, flushes and closes every segment.
+   */
+  @Override
+  public void close() {
+    running = false;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        LOGGER.error("History writer did not finish in time, some entries may be lost");
+        executor.shutdownNow();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    for (final HistorySegment segment : segments.values()) {
+      try {
+        segment.close();
+      } catch (final IOException e) {
+        LOGGER.error("Error closing history segment {}", segment.baseOffset(), e);
+      }
+    }
+  }
+}
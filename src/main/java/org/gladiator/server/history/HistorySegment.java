@@ -0,0 +1,430 @@
+package org.gladiator.server.history;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A single file of the {@link HistoryLog}.
+ *
+ * <p>Entries are appended through a memory-mapped view of the preallocated file, while reads go
+ * through positional {@link FileChannel} reads, so a sealed segment does not need to keep a
+ * mapping alive. Every entry is stored as {@code [length][offset][payload]} and the length is
+ * written last, so a zero length marks the end of the written data. Once sealed, the file is
+ * truncated to the written data, so only the active segment takes its whole preallocated size on
+ * disk.</p>
+ *
+ * <p>Only the writer thread of the {@link HistoryLog} appends to a segment, reads can happen from
+ * any thread and only see entries that were completely written.</p>
+ */
+final class HistorySegment implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HistorySegment.class);
+  static final String LOG_SUFFIX = ".log";
+  static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+  private static final String INDEX_SUFFIX = ".index";
+  private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+  private final long baseOffset;
+  private final Path logPath;
+  private final Path indexPath;
+  private final FileChannel channel;
+  private final SparseIndex index;
+  private final int indexInterval;
+  private final long createdAtMillis;
+  @Nullable
+  private MappedByteBuffer mappedBuffer;
+  private volatile int size;
+  private volatile long nextOffset;
+
+  private HistorySegment(final long baseOffset, final Path logPath, final FileChannel channel,
+      final int indexInterval, final long createdAtMillis) {
+    this.baseOffset = baseOffset;
+    this.logPath = logPath;
+    this.indexPath = logPath.resolveSibling(fileName(baseOffset, INDEX_SUFFIX));
+    this.channel = channel;
+    this.index = new SparseIndex();
+    this.indexInterval = indexInterval;
+    this.createdAtMillis = createdAtMillis;
+    this.nextOffset = baseOffset;
+  }
+
+  /**
+   * Creates a new, empty and writable segment.
+   *
+   * @param directory     the directory of the log
+   * @param baseOffset    the offset of the first entry of the segment
+   * @param capacity      the size in bytes of the preallocated file
+   * @param indexInterval the number of bytes between two sparse index entries
+   * @return the created segment
+   * @throws IOException if the segment file cannot be created or mapped
+   */
+  static HistorySegment create(final Path directory, final long baseOffset, final int capacity,
+      final int indexInterval) throws IOException {
+    final Path logPath = directory.resolve(fileName(baseOffset, LOG_SUFFIX));
+    final FileChannel channel = FileChannel.open(logPath, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    final HistorySegment segment = new HistorySegment(baseOffset, logPath, channel,
+        indexInterval, System.currentTimeMillis());
+    segment.mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    return segment;
+  }
+
+  /**
+   * Opens an existing segment, recovering its size and sparse index.
+   *
+   * @param logPath       the path of the segment log file
+   * @param indexInterval the number of bytes between two sparse index entries
+   * @param writable      whether the segment will receive new entries
+   * @param capacity      the size in bytes the file is mapped with when writable
+   * @return the opened segment
+   * @throws IOException if the segment cannot be read
+   */
+  static HistorySegment open(final Path logPath, final int indexInterval, final boolean writable,
+      final int capacity) throws IOException {
+    final String fileName = logPath.getFileName().toString();
+    final long baseOffset = Long.parseLong(
+        fileName.substring(0, fileName.length() - LOG_SUFFIX.length()));
+    final long createdAtMillis = Files.readAttributes(logPath, BasicFileAttributes.class)
+        .creationTime().toMillis();
+
+    final FileChannel channel = writable
+        ? FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        : FileChannel.open(logPath, StandardOpenOption.READ);
+    final HistorySegment segment = new HistorySegment(baseOffset, logPath, channel,
+        indexInterval, createdAtMillis);
+    segment.recover();
+
+    if (writable) {
+      final long mappedSize = Math.max(capacity, channel.size());
+      segment.mappedBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mappedSize);
+    }
+    return segment;
+  }
+
+  /**
+   * Checks whether the given path is the log file of a segment.
+   *
+   * @param path the path to check
+   * @return true if the path is a segment log file
+   */
+  static boolean isSegmentFile(final Path path) {
+    return path.getFileName().toString().endsWith(LOG_SUFFIX);
+  }
+
+  private static String fileName(final long baseOffset, final String suffix) {
+    return String.format(Locale.ROOT, "%020d", baseOffset) + suffix;
+  }
+
+  /**
+   * Appends an entry to the segment.
+   *
+   * @param offset  the offset of the entry, not lower than the next offset of the segment
+   * @param payload the entry content
+   * @return false if the segment has no room left for the entry
+   * @throws IllegalArgumentException if the offset is lower than the next offset
+   */
+  boolean append(final long offset, final byte[] payload) {
+    if (offset < nextOffset) {
+      throw new IllegalArgumentException(
+          "Offset " + offset + " is lower than the next offset " + nextOffset);
+    }
+
+    final MappedByteBuffer buffer = mappedBuffer;
+    if (null == buffer) {
+      throw new IllegalStateException("Segment " + logPath + " is sealed");
+    }
+
+    final int position = size;
+    if (buffer.capacity() - position < HEADER_SIZE + payload.length) {
+      return false;
+    }
+
+    buffer.putLong(position + Integer.BYTES, offset);
+    buffer.put(position + HEADER_SIZE, payload);
+    buffer.putInt(position, payload.length);
+
+    if (index.isEmpty() || indexInterval <= position - index.lastPosition()) {
+      index.add((int) (offset - baseOffset), position);
+    }
+    nextOffset = offset + 1;
+    size = position + HEADER_SIZE + payload.length;
+    return true;
+  }
+
+  /**
+   * Forces the entries written through the mapping to the storage device.
+   */
+  void flush() {
+    final MappedByteBuffer buffer = mappedBuffer;
+    if (null != buffer) {
+      buffer.force();
+    }
+  }
+
+  /**
+   * Flushes the segment, persists its sparse index, stops accepting new entries and truncates the
+   * file to the written entries. The truncation is skipped when the platform refuses to truncate a
+   * file that is still mapped, the unused end of the file is then kept until it is deleted.
+   *
+   * @throws IOException if the index file cannot be written
+   */
+  void seal() throws IOException {
+    if (null == mappedBuffer) {
+      return;
+    }
+
+    flush();
+    mappedBuffer = null;
+    Files.write(indexPath, index.toBytes());
+    try {
+      channel.truncate(size);
+    } catch (final IOException e) {
+      LOGGER.debug("History segment {} not truncated", logPath, e);
+    }
+  }
+
+  /**
+   * Reads entries starting at the given offset.
+   *
+   * @param fromOffset the offset of the first entry to read
+   * @param maxEntries the maximum number of entries to read
+   * @param visitor    the visitor that receives each entry
+   * @return the number of entries visited
+   * @throws IOException if the segment cannot be read
+   */
+  int read(final long fromOffset, final int maxEntries, final EntryVisitor visitor)
+      throws IOException {
+    final long relativeOffset = Math.max(0, fromOffset - baseOffset);
+    final int startPosition = index.floorPosition((int) Math.min(Integer.MAX_VALUE,
+        relativeOffset));
+    final int[] visited = {0};
+    scan(startPosition, size, (offset, payload) -> {
+      if (offset < fromOffset) {
+        return true;
+      }
+      visitor.visit(offset, payload);
+      visited[0]++;
+      return visited[0] < maxEntries;
+    });
+    return visited[0];
+  }
+
+  /**
+   * Deletes the segment files, the segment must not be used afterward.
+   *
+   * @throws IOException if the files cannot be deleted
+   */
+  void delete() throws IOException {
+    close();
+    Files.deleteIfExists(indexPath);
+    Files.deleteIfExists(logPath);
+  }
+
+  long baseOffset() {
+    return baseOffset;
+  }
+
+  long nextOffset() {
+    return nextOffset;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return 0 == size;
+  }
+
+  long createdAtMillis() {
+    return createdAtMillis;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      seal();
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Rebuilds the size, the next offset and the sparse index of the segment. The persisted index is
+   * used when it exists, so only the entries after its last position are scanned.
+   */
+  private void recover() throws IOException {
+    if (Files.exists(indexPath)) {
+      index.load(Files.readAllBytes(indexPath));
+    }
+
+    final int limit = (int) Math.min(Integer.MAX_VALUE, channel.size());
+    final int startPosition = index.isEmpty() ? 0 : index.lastPosition();
+
+    size = scan(startPosition, limit, (offset, payload) -> {
+      nextOffset = offset + 1;
+      return true;
+    }, (offset, position) -> {
+      if (index.isEmpty() || indexInterval <= position - index.lastPosition()) {
+        index.add((int) (offset - baseOffset), position);
+      }
+    });
+  }
+
+  private int scan(final int fromPosition, final int limit, final EntryFilter filter)
+      throws IOException {
+    return scan(fromPosition, limit, filter, (offset, position) -> {
+    });
+  }
+
+  /**
+   * Visits the complete entries between the given positions, reading the file in chunks.
+   *
+   * @return the position after the last complete entry
+   */
+  private int scan(final int fromPosition, final int limit, final EntryFilter filter,
+      final PositionListener positionListener) throws IOException {
+    ByteBuffer chunk = ByteBuffer.allocate(READ_CHUNK_SIZE);
+    int position = fromPosition;
+
+    while (HEADER_SIZE <= limit - position) {
+      chunk.clear();
+      chunk.limit(Math.min(chunk.capacity(), limit - position));
+      readFully(chunk, position);
+      chunk.flip();
+
+      while (HEADER_SIZE <= chunk.remaining()) {
+        final int start = chunk.position();
+        final int length = chunk.getInt(start);
+        if (0 >= length || limit - position - start - HEADER_SIZE < length) {
+          return position + start;
+        }
+        if (chunk.remaining() - HEADER_SIZE < length) {
+          break;
+        }
+
+        final long offset = chunk.getLong(start + Integer.BYTES);
+        positionListener.onEntry(offset, position + start);
+        final byte[] payload = new byte[length];
+        chunk.get(start + HEADER_SIZE, payload);
+        chunk.position(start + HEADER_SIZE + length);
+        if (!filter.accept(offset, payload)) {
+          return position + chunk.position();
+        }
+      }
+
+      if (0 == chunk.position()) {
+        final int entrySize = HEADER_SIZE + chunk.getInt(0);
+        chunk = ByteBuffer.allocate(Math.max(chunk.capacity() * 2, entrySize));
+      }
+      position += chunk.position();
+    }
+
+    return position;
+  }
+
+  private void readFully(final ByteBuffer buffer, final long position) throws IOException {
+    long filePosition = position;
+    while (buffer.hasRemaining()) {
+      final int read = channel.read(buffer, filePosition);
+      if (0 > read) {
+        throw new EOFException("Unexpected end of history segment " + logPath);
+      }
+      filePosition += read;
+    }
+  }
+
+  /**
+   * Receives the entries read from a segment.
+   */
+  @FunctionalInterface
+  interface EntryVisitor {
+
+    /**
+     * Visits an entry.
+     *
+     * @param offset  the offset of the entry
+     * @param payload the entry content
+     */
+    void visit(long offset, byte[] payload);
+  }
+
+  @FunctionalInterface
+  private interface EntryFilter {
+
+    boolean accept(long offset, byte[] payload);
+  }
+
+  @FunctionalInterface
+  private interface PositionListener {
+
+    void onEntry(long offset, int position);
+  }
+
+  /**
+   * Sparse mapping from the relative offset of some entries to their position in the file. It is
+   * written by the writer thread and read by any thread looking up entries.
+   */
+  private static final class SparseIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] relativeOffsets = new int[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int count;
+
+    synchronized void add(final int relativeOffset, final int position) {
+      if (count == positions.length) {
+        relativeOffsets = Arrays.copyOf(relativeOffsets, count * 2);
+        positions = Arrays.copyOf(positions, count * 2);
+      }
+      relativeOffsets[count] = relativeOffset;
+      positions[count] = position;
+      count++;
+    }
+
+    synchronized boolean isEmpty() {
+      return 0 == count;
+    }
+
+    synchronized int lastPosition() {
+      return positions[count - 1];
+    }
+
+    /**
+     * Finds the position of the closest indexed entry at or before the given relative offset.
+     */
+    synchronized int floorPosition(final int relativeOffset) {
+      final int found = Arrays.binarySearch(relativeOffsets, 0, count, relativeOffset);
+      final int slot = 0 <= found ? found : -found - 2;
+      return 0 > slot ? 0 : positions[slot];
+    }
+
+    synchronized byte[] toBytes() {
+      final ByteBuffer buffer = ByteBuffer.allocate(count * 2 * Integer.BYTES);
+      for (int i = 0; i < count; i++) {
+        buffer.putInt(relativeOffsets[i]).putInt(positions[i]);
+      }
+      return buffer.array();
+    }
+
+    synchronized void load(final byte[] bytes) {
+      final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (2 * Integer.BYTES <= buffer.remaining()) {
+        add(buffer.getInt(), buffer.getInt());
+      }
+    }
+  }
+}
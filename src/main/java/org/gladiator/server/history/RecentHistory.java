@@ -0,0 +1,131 @@
+package org.gladiator.server.history;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.Nullable;
+
+/**
+ * Fixed-size ring buffer keeping the last messages of the chat, already encoded as transport
+ * strings, so they can be replayed to new connections without reading the {@link HistoryLog}.
+ *
+ * <p>When the buffer is full, each new message overwrites the oldest one, so the memory used is
+ * bounded by the capacity.</p>
+ */
+public final class RecentHistory {
+
+  private final HistoryEntry[] entries;
+  private final Lock lock = new ReentrantLock();
+  private int next;
+  private int count;
+
+  /**
+   * Constructs a new RecentHistory.
+   *
+   * @param capacity the maximum number of messages kept
+   */
+  public RecentHistory(final int capacity) {
+    this.entries = new HistoryEntry[capacity];
+  }
+
+  /**
+   * Adds a message, replacing the oldest one if the buffer is full. The messages must be added in
+   * increasing sequence order.
+   *
+   * @param entry the message encoded as a transport string, with its sequence number
+   */
+  public void add(final HistoryEntry entry) {
+    if (0 == entries.length) {
+      return;
+    }
+
+    lock.lock();
+    try {
+      entries[next] = entry;
+      next = (next + 1) % entries.length;
+      count = Math.min(count + 1, entries.length);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets a copy of the kept messages, from the oldest to the newest.
+   *
+   * @return the kept messages
+   */
+  public List<HistoryEntry> snapshot() {
+    lock.lock();
+    try {
+      return copyFrom(0);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the kept messages with a sequence number greater than the given one.
+   *
+   * @param sequence the sequence number of the last message already known
+   * @return the newer messages, or null if some of them were already overwritten
+   */
+  @Nullable
+  public List<HistoryEntry> entriesAfter(final long sequence) {
+    lock.lock();
+    try {
+      if (0 == count) {
+        return new ArrayList<>();
+      }
+
+      final long oldestSequence = at(0).offset();
+      if (oldestSequence > sequence + 1) {
+        return null;
+      }
+      return copyFrom((int) Math.min(count, sequence + 1 - oldestSequence));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the kept message with the given sequence number.
+   *
+   * @param sequence the sequence number of the message
+   * @return the message, or null if it is not kept
+   */
+  @Nullable
+  public HistoryEntry get(final long sequence) {
+    lock.lock();
+    try {
+      if (0 == count) {
+        return null;
+      }
+
+      final long position = sequence - at(0).offset();
+      if (0 > position || count <= position) {
+        return null;
+      }
+      final HistoryEntry entry = at((int) position);
+      return sequence == entry.offset() ? entry : null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private List<HistoryEntry> copyFrom(final int skipped) {
+    final List<HistoryEntry> copy = new ArrayList<>(count - skipped);
+    for (int i = skipped; i < count; i++) {
+      copy.add(at(i));
+    }
+    return copy;
+  }
+
+  /**
+   * Gets the entry at the given position, counting from the oldest kept entry.
+   */
+  private HistoryEntry at(final int position) {
+    final int first = (next - count + entries.length) % entries.length;
+    return entries[(first + position) % entries.length];
+  }
+}
@@ -0,0 +1,86 @@
+package org.gladiator.server.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves the server metrics to Prometheus on {@value #PATH}, on the loopback address only, so the
+ * metrics are not exposed to the clients of the chat.
+ */
+public final class MetricsHttpServer implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetricsHttpServer.class);
+  private static final String PATH = "/metrics";
+  private static final int STATUS_OK = 200;
+  private static final int STATUS_METHOD_NOT_ALLOWED = 405;
+  private static final int NO_RESPONSE_BODY = -1;
+
+  private final HttpServer httpServer;
+  private final ExecutorService executor;
+
+  private MetricsHttpServer(final HttpServer httpServer, final ExecutorService executor) {
+    this.httpServer = httpServer;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts serving the metrics.
+   *
+   * @param metrics the metrics of the server
+   * @param port    the local port to listen to
+   * @return the started HTTP server
+   * @throws IOException if the port cannot be bound
+   */
+  public static MetricsHttpServer start(final ServerMetrics metrics, final int port)
+      throws IOException {
+    final HttpServer httpServer = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("metrics");
+    httpServer.setExecutor(executor);
+    httpServer.createContext(PATH, exchange -> handle(exchange, metrics));
+    httpServer.start();
+    LOGGER.info("Serving the metrics on http://{}:{}{}",
+        httpServer.getAddress().getHostString(), httpServer.getAddress().getPort(), PATH);
+    return new MetricsHttpServer(httpServer, executor);
+  }
+
+  private static void handle(final HttpExchange exchange, final ServerMetrics metrics)
+      throws IOException {
+    try (exchange) {
+      final String method = exchange.getRequestMethod();
+      final boolean isHead = "HEAD".equals(method);
+      if (!isHead && !"GET".equals(method)) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(STATUS_METHOD_NOT_ALLOWED, NO_RESPONSE_BODY);
+        return;
+      }
+
+      final byte[] body = PrometheusTextWriter.write(metrics).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", PrometheusTextWriter.CONTENT_TYPE);
+      exchange.sendResponseHeaders(STATUS_OK, isHead ? NO_RESPONSE_BODY : body.length);
+      if (!isHead) {
+        try (OutputStream output = exchange.getResponseBody()) {
+          output.write(body);
+        }
+      }
+    }
+  }
+
+  /**
+   * Stops serving the metrics, without waiting for the scrapes in progress.
+   */
+  @Override
+  public void close() {
+    httpServer.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,132 @@
+package org.gladiator.server.metrics;
+
+import java.util.Locale;
+import org.gladiator.util.metrics.LatencyHistogram;
+
+/**
+ * Writes the server metrics in the Prometheus text exposition format, version 0.0.4.
+ *
+ * <p>The durations are exposed in seconds, as Prometheus recommends, in cumulative buckets from
+ * 100 microseconds to 10 seconds.</p>
+ */
+final class PrometheusTextWriter {
+
+  /**
+   * The content type of the Prometheus text format.
+   */
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final String PREFIX = "jmessenger_";
+  private static final long[] BUCKET_BOUNDS_MICROS = {
+      100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+      1_000_000, 2_500_000, 5_000_000, 10_000_000};
+  private static final double MICROS_PER_SECOND = 1e6;
+
+  private final StringBuilder text = new StringBuilder(4096);
+
+  private PrometheusTextWriter() {
+  }
+
+  /**
+   * Writes the current values of the metrics.
+   *
+   * @param metrics the metrics of the server
+   * @return the metrics in the Prometheus text format
+   */
+  static String write(final ServerMetrics metrics) {
+    final PrometheusTextWriter writer = new PrometheusTextWriter();
+    writer.gauge("connections", "Connected clients.", metrics.getConnections());
+    writer.counter("handshakes_total", "Successful handshakes.", metrics.getHandshakes());
+    writer.counter("handshake_failures_total", "Handshakes that failed or timed out.",
+        metrics.getHandshakeFailures());
+    writer.counter("rejected_connections_total",
+        "Connections rejected because the server was full or busy.",
+        metrics.getRejectedConnections());
+    writer.histogram("handshake_duration_seconds", "Duration of the successful handshakes.",
+        metrics.handshakeDuration());
+    writer.counter("messages_received_total", "Messages received from the clients.",
+        metrics.getMessagesReceived());
+    writer.counter("messages_sent_total", "Messages sent to the clients.",
+        metrics.getMessagesSent());
+    writer.counter("received_bytes_total", "Bytes received from the clients.",
+        metrics.getBytesReceived());
+    writer.counter("sent_bytes_total", "Bytes sent to the clients.", metrics.getBytesSent());
+    writer.histogram("encrypt_duration_seconds", "Duration of the encryption of a message.",
+        metrics.encryptDuration());
+    writer.histogram("decrypt_duration_seconds", "Duration of the decryption of a message.",
+        metrics.decryptDuration());
+    writer.gauge("outbound_pending_messages", "Messages waiting to be written to the clients.",
+        metrics.getOutboundPending());
+    writer.counter("outbound_dropped_messages_total",
+        "Messages that could not be written to the clients.", metrics.getOutboundDropped());
+    writer.header("evictions_total", "Connections closed because they stalled.", "counter");
+    writer.sample("evictions_total{reason=\"idle\"}", metrics.getIdleEvictions());
+    writer.sample("evictions_total{reason=\"write_stall\"}", metrics.getWriteStallEvictions());
+    writer.sample("evictions_total{reason=\"outbound_overflow\"}",
+        metrics.getOutboundOverflowEvictions());
+    writer.header("rate_limited_messages_total", "Messages discarded by a rate limit.",
+        "counter");
+    writer.sample("rate_limited_messages_total{limit=\"connection\"}",
+        metrics.getConnectionRateLimited());
+    writer.sample("rate_limited_messages_total{limit=\"room\"}", metrics.getRoomRateLimited());
+    writer.counter("flood_disconnections_total",
+        "Connections closed because they kept flooding the server.",
+        metrics.getFloodDisconnections());
+    writer.counter("deferred_reads_total",
+        "Received messages that waited for their turn to be processed.",
+        metrics.getDeferredReads());
+    writer.counter("buffer_pool_fallbacks_total",
+        "I/O buffers allocated outside the exhausted buffer pool.",
+        metrics.getBufferPoolFallbacks());
+    writer.counter("history_dropped_entries_total",
+        "Messages not written to the history log because its writer was not keeping up.",
+        metrics.getHistoryDroppedEntries());
+    writer.counter("search_dropped_messages_total",
+        "Messages not added to the search index because its indexer was not keeping up.",
+        metrics.getSearchDroppedMessages());
+    return writer.text.toString();
+  }
+
+  private void counter(final String name, final String help, final long value) {
+    header(name, help, "counter");
+    sample(name, value);
+  }
+
+  private void gauge(final String name, final String help, final long value) {
+    header(name, help, "gauge");
+    sample(name, value);
+  }
+
+  /**
+   * Writes a histogram. The buckets are read one after the other while the latencies are being
+   * recorded, so the count is clamped to keep the buckets cumulative.
+   */
+  private void histogram(final String name, final String help,
+      final LatencyHistogram histogram) {
+    header(name, help, "histogram");
+    long previous = 0;
+    for (final long boundMicros : BUCKET_BOUNDS_MICROS) {
+      previous = Math.max(previous, histogram.countAtOrBelow(boundMicros));
+      sample(name + "_bucket{le=\"" + seconds(boundMicros) + "\"}", previous);
+    }
+    final long count = Math.max(previous, histogram.count());
+    sample(name + "_bucket{le=\"+Inf\"}", count);
+    text.append(PREFIX).append(name).append("_sum ")
+        .append(seconds(histogram.totalMicros())).append('\n');
+    sample(name + "_count", count);
+  }
+
+  private void header(final String name, final String help, final String type) {
+    text.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n')
+        .append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+  }
+
+  private void sample(final String nameAndLabels, final long value) {
+    text.append(PREFIX).append(nameAndLabels).append(' ').append(value).append('\n');
+  }
+
+  private static String seconds(final long micros) {
+    return String.format(Locale.ROOT, "%.6f", micros / MICROS_PER_SECOND)
+        .replaceAll("0+$", "")
+        .replaceAll("\\.$", ".0");
+  }
+}
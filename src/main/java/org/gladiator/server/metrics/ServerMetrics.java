@@ -0,0 +1,335 @@
+package org.gladiator.server.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.gladiator.server.ratelimit.RateLimiter;
+import org.gladiator.server.scheduling.FairReadScheduler;
+import org.gladiator.util.connection.ConnectionMetrics;
+import org.gladiator.util.connection.IoUtils;
+import org.gladiator.util.metrics.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counters and histograms of the activity of the server, recorded without locking by the threads
+ * of the connections.
+ *
+ * <p>The metrics are registered in the platform MBean server and can be scraped in the Prometheus
+ * text format by {@link MetricsHttpServer}. The gauges, such as the number of connections, are
+ * read from the server when the metrics are read, so they cost nothing in between.</p>
+ */
+public final class ServerMetrics implements ConnectionMetrics, ServerMetricsMxBean,
+    AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ServerMetrics.class);
+  private static final String OBJECT_NAME_PREFIX = "org.gladiator:type=ServerMetrics,name=";
+
+  private final IntSupplier connections;
+  private final RateLimiter rateLimiter;
+  private final FairReadScheduler readScheduler;
+  private final LongSupplier historyDroppedEntries;
+  private final LongSupplier searchDroppedMessages;
+  private final LongAdder handshakes = new LongAdder();
+  private final LongAdder handshakeFailures = new LongAdder();
+  private final LongAdder rejectedConnections = new LongAdder();
+  private final LongAdder messagesReceived = new LongAdder();
+  private final LongAdder messagesSent = new LongAdder();
+  private final LongAdder bytesReceived = new LongAdder();
+  private final LongAdder bytesSent = new LongAdder();
+  private final LongAdder outboundPending = new LongAdder();
+  private final LongAdder outboundDropped = new LongAdder();
+  private final LongAdder idleEvictions = new LongAdder();
+  private final LongAdder writeStallEvictions = new LongAdder();
+  private final LongAdder outboundOverflowEvictions = new LongAdder();
+  private final LatencyHistogram handshakeDuration = new LatencyHistogram();
+  private final LatencyHistogram encryptDuration = new LatencyHistogram();
+  private final LatencyHistogram decryptDuration = new LatencyHistogram();
+  @Nullable
+  private volatile ObjectName objectName;
+
+  /**
+   * Constructs a new ServerMetrics.
+   *
+   * @param connections           supplies the number of live connections
+   * @param rateLimiter           the rate limiter whose rejections are reported
+   * @param readScheduler         the read scheduler whose deferred reads are reported
+   * @param historyDroppedEntries supplies the number of messages dropped by the history log
+   * @param searchDroppedMessages supplies the number of messages dropped by the search index
+   */
+  public ServerMetrics(final IntSupplier connections, final RateLimiter rateLimiter,
+      final FairReadScheduler readScheduler, final LongSupplier historyDroppedEntries,
+      final LongSupplier searchDroppedMessages) {
+    this.connections = Objects.requireNonNull(connections);
+    this.rateLimiter = Objects.requireNonNull(rateLimiter);
+    this.readScheduler = Objects.requireNonNull(readScheduler);
+    this.historyDroppedEntries = Objects.requireNonNull(historyDroppedEntries);
+    this.searchDroppedMessages = Objects.requireNonNull(searchDroppedMessages);
+  }
+
+  /**
+   * Registers the metrics in the platform MBean server. A failure is logged and otherwise
+   * ignored, the metrics still work without JMX.
+   *
+   * @param serverName the name of the server, which tells the servers of a process apart
+   */
+  public void registerInJmx(final String serverName) {
+    try {
+      final ObjectName name = new ObjectName(
+          OBJECT_NAME_PREFIX + ObjectName.quote(serverName));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+      objectName = name;
+    } catch (final JMException e) {
+      LOGGER.debug("Error registering the server metrics in JMX", e);
+    }
+  }
+
+  /**
+   * Records a successful handshake.
+   *
+   * @param nanos the duration of the handshake
+   */
+  public void recordHandshake(final long nanos) {
+    handshakes.increment();
+    handshakeDuration.record(nanos);
+  }
+
+  /**
+   * Records a handshake that failed or timed out.
+   */
+  public void recordHandshakeFailure() {
+    handshakeFailures.increment();
+  }
+
+  /**
+   * Records a connection rejected because the server was full or busy.
+   */
+  public void recordRejectedConnection() {
+    rejectedConnections.increment();
+  }
+
+  /**
+   * Records a connection closed because it was quiet for longer than the idle timeout.
+   */
+  public void recordIdleEviction() {
+    idleEvictions.increment();
+  }
+
+  /**
+   * Records a connection closed because a write to it made no progress for longer than the write
+   * timeout.
+   */
+  public void recordWriteStallEviction() {
+    writeStallEvictions.increment();
+  }
+
+  /**
+   * Records a connection closed because too many messages were queued for it.
+   */
+  public void recordOutboundOverflowEviction() {
+    outboundOverflowEvictions.increment();
+  }
+
+  @Override
+  public void recordRead(final int bytes) {
+    messagesReceived.increment();
+    bytesReceived.add(bytes);
+  }
+
+  @Override
+  public void recordDecrypt(final long nanos) {
+    decryptDuration.record(nanos);
+  }
+
+  @Override
+  public void recordWrite(final int messages, final long bytes) {
+    messagesSent.add(messages);
+    bytesSent.add(bytes);
+  }
+
+  @Override
+  public void recordEncrypt(final long nanos) {
+    encryptDuration.record(nanos);
+  }
+
+  @Override
+  public void recordQueued(final int messages) {
+    outboundPending.add(messages);
+  }
+
+  @Override
+  public void recordDequeued(final int messages) {
+    outboundPending.add(-messages);
+  }
+
+  @Override
+  public void recordDroppedWrite(final int messages) {
+    outboundDropped.add(messages);
+  }
+
+  @Override
+  public int getConnections() {
+    return connections.getAsInt();
+  }
+
+  @Override
+  public long getHandshakes() {
+    return handshakes.sum();
+  }
+
+  @Override
+  public long getHandshakeFailures() {
+    return handshakeFailures.sum();
+  }
+
+  @Override
+  public long getRejectedConnections() {
+    return rejectedConnections.sum();
+  }
+
+  @Override
+  public long getHandshakeP50Micros() {
+    return handshakeDuration.percentileMicros(50);
+  }
+
+  @Override
+  public long getHandshakeP99Micros() {
+    return handshakeDuration.percentileMicros(99);
+  }
+
+  @Override
+  public long getMessagesReceived() {
+    return messagesReceived.sum();
+  }
+
+  @Override
+  public long getMessagesSent() {
+    return messagesSent.sum();
+  }
+
+  @Override
+  public long getBytesReceived() {
+    return bytesReceived.sum();
+  }
+
+  @Override
+  public long getBytesSent() {
+    return bytesSent.sum();
+  }
+
+  @Override
+  public long getEncryptP50Micros() {
+    return encryptDuration.percentileMicros(50);
+  }
+
+  @Override
+  public long getEncryptP99Micros() {
+    return encryptDuration.percentileMicros(99);
+  }
+
+  @Override
+  public long getDecryptP50Micros() {
+    return decryptDuration.percentileMicros(50);
+  }
+
+  @Override
+  public long getDecryptP99Micros() {
+    return decryptDuration.percentileMicros(99);
+  }
+
+  @Override
+  public long getOutboundPending() {
+    return outboundPending.sum();
+  }
+
+  @Override
+  public long getOutboundDropped() {
+    return outboundDropped.sum();
+  }
+
+  @Override
+  public long getIdleEvictions() {
+    return idleEvictions.sum();
+  }
+
+  @Override
+  public long getWriteStallEvictions() {
+    return writeStallEvictions.sum();
+  }
+
+  @Override
+  public long getOutboundOverflowEvictions() {
+    return outboundOverflowEvictions.sum();
+  }
+
+  @Override
+  public long getConnectionRateLimited() {
+    return rateLimiter.connectionRejections();
+  }
+
+  @Override
+  public long getRoomRateLimited() {
+    return rateLimiter.roomRejections();
+  }
+
+  @Override
+  public long getFloodDisconnections() {
+    return rateLimiter.disconnections();
+  }
+
+  @Override
+  public long getDeferredReads() {
+    return readScheduler.deferredReads();
+  }
+
+  @Override
+  public long getBufferPoolFallbacks() {
+    return IoUtils.bufferPoolFallbacks();
+  }
+
+  @Override
+  public long getHistoryDroppedEntries() {
+    return historyDroppedEntries.getAsLong();
+  }
+
+  @Override
+  public long getSearchDroppedMessages() {
+    return searchDroppedMessages.getAsLong();
+  }
+
+  LatencyHistogram handshakeDuration() {
+    return handshakeDuration;
+  }
+
+  LatencyHistogram encryptDuration() {
+    return encryptDuration;
+  }
+
+  LatencyHistogram decryptDuration() {
+    return decryptDuration;
+  }
+
+  /**
+   * Unregisters the metrics from the platform MBean server.
+   */
+  @Override
+  public void close() {
+    final ObjectName name = objectName;
+    if (null == name) {
+      return;
+    }
+    try {
+      final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+      mbeanServer.unregisterMBean(name);
+    } catch (final JMException e) {
+      LOGGER.debug("Error unregistering the server metrics from JMX", e);
+    }
+    objectName = null;
+  }
+}
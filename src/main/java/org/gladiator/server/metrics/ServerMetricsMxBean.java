@@ -0,0 +1,200 @@
+package org.gladiator.server.metrics;
+
+import javax.management.MXBean;
+
+/**
+ * Management interface of the server metrics, registered in the platform MBean server so JConsole
+ * or any JMX client can read them. It is marked as an MXBean by its annotation rather than by the
+ * suffix of its name.
+ *
+ * @see ServerMetrics
+ */
+@MXBean
+public interface ServerMetricsMxBean {
+
+  /**
+   * Gets the number of connected clients.
+   *
+   * @return the number of live connections
+   */
+  int getConnections();
+
+  /**
+   * Gets the number of successful handshakes since the server started.
+   *
+   * @return the number of handshakes
+   */
+  long getHandshakes();
+
+  /**
+   * Gets the number of handshakes that failed or timed out.
+   *
+   * @return the number of failed handshakes
+   */
+  long getHandshakeFailures();
+
+  /**
+   * Gets the number of connections rejected because the server was full or busy.
+   *
+   * @return the number of rejected connections
+   */
+  long getRejectedConnections();
+
+  /**
+   * Gets the median duration of the successful handshakes.
+   *
+   * @return the median handshake duration in microseconds
+   */
+  long getHandshakeP50Micros();
+
+  /**
+   * Gets the 99th percentile duration of the successful handshakes.
+   *
+   * @return the 99th percentile handshake duration in microseconds
+   */
+  long getHandshakeP99Micros();
+
+  /**
+   * Gets the number of messages received from the clients.
+   *
+   * @return the number of received messages
+   */
+  long getMessagesReceived();
+
+  /**
+   * Gets the number of messages sent to the clients.
+   *
+   * @return the number of sent messages
+   */
+  long getMessagesSent();
+
+  /**
+   * Gets the number of bytes received from the clients.
+   *
+   * @return the number of received bytes
+   */
+  long getBytesReceived();
+
+  /**
+   * Gets the number of bytes sent to the clients.
+   *
+   * @return the number of sent bytes
+   */
+  long getBytesSent();
+
+  /**
+   * Gets the median duration of the encryption of a message.
+   *
+   * @return the median encryption duration in microseconds
+   */
+  long getEncryptP50Micros();
+
+  /**
+   * Gets the 99th percentile duration of the encryption of a message.
+   *
+   * @return the 99th percentile encryption duration in microseconds
+   */
+  long getEncryptP99Micros();
+
+  /**
+   * Gets the median duration of the decryption of a message.
+   *
+   * @return the median decryption duration in microseconds
+   */
+  long getDecryptP50Micros();
+
+  /**
+   * Gets the 99th percentile duration of the decryption of a message.
+   *
+   * @return the 99th percentile decryption duration in microseconds
+   */
+  long getDecryptP99Micros();
+
+  /**
+   * Gets the number of messages waiting to be written to the clients.
+   *
+   * @return the number of pending outbound messages
+   */
+  long getOutboundPending();
+
+  /**
+   * Gets the number of messages that could not be written to the clients.
+   *
+   * @return the number of dropped outbound messages
+   */
+  long getOutboundDropped();
+
+  /**
+   * Gets the number of connections closed because they were quiet for longer than the idle
+   * timeout.
+   *
+   * @return the number of idle evictions
+   */
+  long getIdleEvictions();
+
+  /**
+   * Gets the number of connections closed because a write to them stalled for longer than the
+   * write timeout.
+   *
+   * @return the number of write stall evictions
+   */
+  long getWriteStallEvictions();
+
+  /**
+   * Gets the number of connections closed because too many messages were queued for them.
+   *
+   * @return the number of outbound overflow evictions
+   */
+  long getOutboundOverflowEvictions();
+
+  /**
+   * Gets the number of messages discarded by the rate limits of the connections.
+   *
+   * @return the number of messages rejected by the connection limits
+   */
+  long getConnectionRateLimited();
+
+  /**
+   * Gets the number of messages discarded by the rate limit of the room.
+   *
+   * @return the number of messages rejected by the room limit
+   */
+  long getRoomRateLimited();
+
+  /**
+   * Gets the number of connections closed because they kept flooding the server.
+   *
+   * @return the number of flood disconnections
+   */
+  long getFloodDisconnections();
+
+  /**
+   * Gets the number of received messages that waited for their turn to be processed.
+   *
+   * @return the number of deferred reads
+   */
+  long getDeferredReads();
+
+  /**
+   * Gets the number of I/O buffers allocated outside the buffer pool because it was exhausted.
+   *
+   * @return the number of buffer pool fallbacks
+   */
+  long getBufferPoolFallbacks();
+
+  /**
+   * Gets the number of messages not written to the history log because its writer was not keeping
+   * up.
+   *
+   * @return the number of dropped history entries
+   */
+  long getHistoryDroppedEntries();
+
+  /**
+   * Gets the number of messages not added to the search index because its indexer was not keeping
+   * up.
+   *
+   * @return the number of messages left out of the search index
+   */
+  long getSearchDroppedMessages();
+}
@@ -0,0 +1,207 @@
+package org.gladiator.server.presence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.gladiator.server.config.PresenceConfig;
+import org.gladiator.util.connection.Connection;
+import org.gladiator.util.connection.message.model.DisconnectMessage;
+import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.connection.message.model.NewConnectionMessage;
+import org.gladiator.util.connection.message.model.PresenceMessage;
+import org.gladiator.util.timer.HashedTimingWheel;
+
+/**
+ * Coalesces the joins and leaves of the users, so a mass reconnect sends every client one digest
+ * per window instead of one message per user.
+ *
+ * <p>A join or leave after a quiet period is announced at once, as a {@link NewConnectionMessage}
+ * or a {@link DisconnectMessage}. The ones that follow within the window are held back and
+ * announced together, as a {@link PresenceMessage}. The window doubles every time a batch of
+ * several users is announced, up to the maximum window, and halves back after a quiet window, so
+ * it adapts to the storm. A connection that joins and leaves within a window is not announced
+ * at all.</p>
+ *
+ * <p>The users who joined are never told about their own join: they are excluded from the
+ * announcement, and each of them is sent its own digest of the other joins and leaves, if
+ * any.</p>
+ */
+public final class PresenceCoalescer {
+
+  private final PresenceConfig config;
+  private final HashedTimingWheel timingWheel;
+  private final Publisher publisher;
+  private final Lock lock = new ReentrantLock();
+  private final Set<Connection> joined = new LinkedHashSet<>();
+  private final Set<Connection> left = new LinkedHashSet<>();
+  private Duration window;
+  private long lastFlushNanos;
+  private boolean isFlushScheduled;
+
+  /**
+   * Constructs a new PresenceCoalescer.
+   *
+   * @param config      the windows of the coalescing
+   * @param timingWheel the timer the held back announcements are sent by
+   * @param publisher   sends the announcements to the connected clients
+   */
+  public PresenceCoalescer(final PresenceConfig config, final HashedTimingWheel timingWheel,
+      final Publisher publisher) {
+    this.config = Objects.requireNonNull(config);
+    this.timingWheel = Objects.requireNonNull(timingWheel);
+    this.publisher = Objects.requireNonNull(publisher);
+    this.window = config.minWindow();
+    this.lastFlushNanos = System.nanoTime() - window.toNanos();
+  }
+
+  /**
+   * Announces that a user joined the chat.
+   *
+   * @param connection the connection of the user, which is not sent its own join
+   */
+  public void joined(final Connection connection) {
+    lock.lock();
+    try {
+      joined.add(connection);
+    } finally {
+      lock.unlock();
+    }
+    flushOrSchedule();
+  }
+
+  /**
+   * Announces that a user left the chat.
+   *
+   * @param connection the connection of the user
+   */
+  public void left(final Connection connection) {
+    lock.lock();
+    try {
+      if (!joined.remove(connection)) {
+        left.add(connection);
+      }
+    } finally {
+      lock.unlock();
+    }
+    flushOrSchedule();
+  }
+
+  /**
+   * Announces the pending joins and leaves at once after a quiet window, or schedules their
+   * announcement at the end of the current window.
+   */
+  private void flushOrSchedule() {
+    final boolean isQuiet;
+    lock.lock();
+    try {
+      if (isFlushScheduled) {
+        return;
+      }
+      final long nextFlushNanos = lastFlushNanos + window.toNanos();
+      final long delayNanos = nextFlushNanos - System.nanoTime();
+      isQuiet = 0 >= delayNanos;
+      isFlushScheduled = true;
+      if (!isQuiet) {
+        timingWheel.schedule(this::flush, Duration.ofNanos(delayNanos));
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (isQuiet) {
+      flush();
+    }
+  }
+
+  /**
+   * Announces the pending joins and leaves, and adapts the window to the number of users
+   * announced. The pending ones may all have cancelled each other out.
+   */
+  private void flush() {
+    final List<Connection> joinedUsers;
+    final List<String> leftUsers;
+    lock.lock();
+    try {
+      isFlushScheduled = false;
+      if (joined.isEmpty() && left.isEmpty()) {
+        return;
+      }
+      lastFlushNanos = System.nanoTime();
+      joinedUsers = new ArrayList<>(joined);
+      leftUsers = left.stream().map(Connection::getName).toList();
+      joined.clear();
+      left.clear();
+      window = 1 < joinedUsers.size() + leftUsers.size()
+          ? min(window.multipliedBy(2), config.maxWindow())
+          : max(window.dividedBy(2), config.minWindow());
+    } finally {
+      lock.unlock();
+    }
+
+    publisher.publish(announcement(joinedUsers.stream(), joinedUsers.size(), leftUsers),
+        Set.copyOf(joinedUsers));
+    if (1 == joinedUsers.size() && leftUsers.isEmpty()) {
+      return;
+    }
+    for (final Connection user : joinedUsers) {
+      publisher.sendTo(announcement(joinedUsers.stream().filter(other -> other != user),
+          joinedUsers.size() - 1, leftUsers), user);
+    }
+  }
+
+  /**
+   * Creates the announcement of the given joins and leaves, a single join or leave is announced
+   * on its own and the others in a digest. Only the listed names are taken from the joined users,
+   * so announcing a storm to each of its users stays cheap.
+   */
+  private Message announcement(final Stream<Connection> joinedUsers, final int joinedCount,
+      final List<String> leftUsers) {
+    final int listedNames = config.listedNames();
+    final List<String> joinedNames = joinedUsers.limit(Math.max(1, listedNames))
+        .map(Connection::getName).toList();
+    if (1 == joinedCount && leftUsers.isEmpty()) {
+      return new NewConnectionMessage(joinedNames.getFirst());
+    }
+    if (0 == joinedCount && 1 == leftUsers.size()) {
+      return new DisconnectMessage(leftUsers.getFirst());
+    }
+    return new PresenceMessage(joinedCount, leftUsers.size(),
+        joinedNames.stream().limit(listedNames).toList(),
+        leftUsers.stream().limit(listedNames).toList());
+  }
+
+  private static Duration min(final Duration first, final Duration second) {
+    return 0 >= first.compareTo(second) ? first : second;
+  }
+
+  private static Duration max(final Duration first, final Duration second) {
+    return 0 <= first.compareTo(second) ? first : second;
+  }
+
+  /**
+   * Sends the announcements of the joins and leaves.
+   */
+  public interface Publisher {
+
+    /**
+     * Sends an announcement to the connected clients.
+     *
+     * @param message  the announcement
+     * @param excluded the connections that must not receive it, the users who joined
+     */
+    void publish(Message message, Set<Connection> excluded);
+
+    /**
+     * Sends an announcement to a single user who joined, leaving out its own join.
+     *
+     * @param message   the announcement
+     * @param recipient the connection of the user
+     */
+    void sendTo(Message message, Connection recipient);
+  }
+}
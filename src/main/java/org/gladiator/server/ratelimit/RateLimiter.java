@@ -0,0 +1,137 @@
+package org.gladiator.server.ratelimit;
+
+import java.util.concurrent.atomic.LongAdder;
+import org.gladiator.server.config.RateLimitConfig;
+
+/**
+ * Limits the rate of the messages received by the server, with a token bucket for each
+ * connection and one shared by the whole room.
+ *
+ * <p>The limit of a connection is checked for each received line before it is decrypted and
+ * decoded, so a rejected message costs almost nothing, and every line is charged, the control
+ * messages included. The limit of the room is only checked for the decoded chat messages, so the
+ * answers to the heartbeats of many idle clients do not use up the rate of the room. Each
+ * connection also has a bucket of tolerated rejections, refilled by one every second, a connection
+ * that empties it by sending messages while it is throttled is disconnected.</p>
+ */
+public final class RateLimiter {
+
+  private static final int REJECTIONS_FORGIVEN_PER_SECOND = 1;
+
+  private final RateLimitConfig config;
+  private final TokenBucket roomBucket;
+  private final LongAdder connectionRejections = new LongAdder();
+  private final LongAdder roomRejections = new LongAdder();
+  private final LongAdder disconnections = new LongAdder();
+
+  /**
+   * Constructs a new RateLimiter.
+   *
+   * @param config the rate limits configuration
+   */
+  public RateLimiter(final RateLimitConfig config) {
+    this.config = config;
+    this.roomBucket = new TokenBucket(config.roomRate(), config.roomBurst());
+  }
+
+  /**
+   * Creates the limit of a new connection.
+   *
+   * @return the connection limit
+   */
+  public ConnectionLimit forConnection() {
+    return new ConnectionLimit(new TokenBucket(config.connectionRate(), config.connectionBurst()),
+        new TokenBucket(REJECTIONS_FORGIVEN_PER_SECOND, config.maxRejectedMessages()));
+  }
+
+  /**
+   * Decides if a decoded chat message is within the limit of the room.
+   *
+   * @return true if the message must be processed
+   */
+  public boolean admitToRoom() {
+    if (!roomBucket.tryAcquire()) {
+      roomRejections.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Gets the number of messages rejected by the limit of their connection.
+   *
+   * @return the number of messages rejected
+   */
+  public long connectionRejections() {
+    return connectionRejections.sum();
+  }
+
+  /**
+   * Gets the number of messages rejected by the limit of the room.
+   *
+   * @return the number of messages rejected
+   */
+  public long roomRejections() {
+    return roomRejections.sum();
+  }
+
+  /**
+   * Gets the number of connections closed for flooding.
+   *
+   * @return the number of connections closed
+   */
+  public long disconnections() {
+    return disconnections.sum();
+  }
+
+  /**
+   * The decision taken for a received message.
+   */
+  public enum Decision {
+    /**
+     * The message must be processed.
+     */
+    ACCEPT,
+
+    /**
+     * The message must be discarded.
+     */
+    REJECT,
+
+    /**
+     * The message must be discarded and the connection closed.
+     */
+    DISCONNECT
+  }
+
+  /**
+   * The rate limit of a single connection.
+   */
+  public final class ConnectionLimit {
+
+    private final TokenBucket bucket;
+    private final TokenBucket rejectionBucket;
+
+    private ConnectionLimit(final TokenBucket bucket, final TokenBucket rejectionBucket) {
+      this.bucket = bucket;
+      this.rejectionBucket = rejectionBucket;
+    }
+
+    /**
+     * Decides what to do with a line received from the connection, before it is decrypted.
+     *
+     * @return the decision taken
+     */
+    public Decision admit() {
+      if (!bucket.tryAcquire()) {
+        connectionRejections.increment();
+        if (!rejectionBucket.tryAcquire()) {
+          disconnections.increment();
+          return Decision.DISCONNECT;
+        }
+        return Decision.REJECT;
+      }
+      return Decision.ACCEPT;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package org.gladiator.server.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Lock-free token bucket, refilled at a constant rate up to its capacity.
+ *
+ * <p>Instead of counting tokens, the bucket keeps the time at which it will be full again, moving
+ * it one refill interval forward for every token taken. A token can be taken while that time is
+ * less than a full bucket ahead of now, so taking a token is a single compare-and-set.</p>
+ */
+public final class TokenBucket {
+
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  private final long nanosPerToken;
+  private final long capacityNanos;
+  private final AtomicLong fullAtNanos;
+
+  /**
+   * Constructs a new full TokenBucket.
+   *
+   * @param tokensPerSecond the number of tokens added every second
+   * @param capacity        the maximum number of tokens, which is the allowed burst
+   * @throws IllegalArgumentException if the rate or the capacity is not positive
+   */
+  public TokenBucket(final int tokensPerSecond, final int capacity) {
+    Validate.isTrue(0 < tokensPerSecond, "The token rate must be positive");
+    Validate.isTrue(0 < capacity, "The bucket capacity must be positive");
+    this.nanosPerToken = NANOS_PER_SECOND / tokensPerSecond;
+    this.capacityNanos = nanosPerToken * capacity;
+    this.fullAtNanos = new AtomicLong(System.nanoTime());
+  }
+
+  /**
+   * Takes a token from the bucket if there is any.
+   *
+   * @return true if a token was taken
+   */
+  public boolean tryAcquire() {
+    final long now = System.nanoTime();
+    while (true) {
+      final long fullAt = fullAtNanos.get();
+      final long nextFullAt = Math.max(fullAt, now) + nanosPerToken;
+      if (capacityNanos < nextFullAt - now) {
+        return false;
+      }
+      if (fullAtNanos.compareAndSet(fullAt, nextFullAt)) {
+        return true;
+      }
+    }
+  }
+}
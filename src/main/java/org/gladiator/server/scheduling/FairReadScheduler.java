@@ -0,0 +1,173 @@
+package org.gladiator.server.scheduling;
+
+import java.net.InetAddress;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.gladiator.server.config.ReadSchedulingConfig;
+
+/**
+ * Shares the processing of the received messages between the connections, so a few heavy senders
+ * cannot take all the threads and the fan-out while quiet users wait behind them.
+ *
+ * <p>A connection takes one of a fixed number of slots to process each message and gives it back
+ * right after, so it never holds a slot while it waits for its client. Without contention a slot
+ * is taken at once, so the scheduling costs nothing to a quiet server.</p>
+ *
+ * <p>When all the slots are taken, the waiting connections are served by stride scheduling: each
+ * connection has a virtual time, which every processed message advances by the inverse of its
+ * weight, and the connection with the earliest virtual time is served first. The connections from
+ * the privileged addresses weigh more, so they get a bigger share. A connection that was quiet
+ * starts at most its quota of messages before the virtual time of the server, so it gets in ahead
+ * of the heavy senders for up to its quota of messages, then takes its turn like the others.</p>
+ */
+public final class FairReadScheduler {
+
+  private static final long STRIDE = 1L << 20;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Queue<ReadTurn> waitingTurns = new PriorityQueue<>(
+      Comparator.comparingLong((ReadTurn turn) -> turn.pass)
+          .thenComparingLong(turn -> turn.ticket));
+  private final LongAdder deferredReads = new LongAdder();
+  private final ReadSchedulingConfig config;
+  private int availableSlots;
+  private long virtualTime;
+  private long tickets;
+
+  /**
+   * Constructs a new FairReadScheduler.
+   *
+   * @param config the read scheduling configuration
+   */
+  public FairReadScheduler(final ReadSchedulingConfig config) {
+    this.config = config;
+    this.availableSlots = config.concurrentReads();
+  }
+
+  /**
+   * Creates the turn of a new connection.
+   *
+   * @param address the address the connection comes from, which gives its weight
+   * @return the read turn of the connection
+   */
+  public ReadTurn forConnection(final InetAddress address) {
+    return new ReadTurn(STRIDE / config.weightOf(address), config.quota() * STRIDE);
+  }
+
+  /**
+   * Gets the number of messages that waited for a slot.
+   *
+   * @return the number of deferred reads
+   */
+  public long deferredReads() {
+    return deferredReads.sum();
+  }
+
+  /**
+   * Gives a released slot to the waiting connection with the earliest virtual time. Must be
+   * called with the lock held.
+   */
+  private void grantNext() {
+    final ReadTurn next = waitingTurns.poll();
+    if (null == next) {
+      availableSlots++;
+      return;
+    }
+    next.isGranted = true;
+    next.granted.signal();
+  }
+
+  /**
+   * The turns of a connection to process its messages, used by its reading thread only.
+   */
+  public final class ReadTurn implements AutoCloseable {
+
+    private final Condition granted = lock.newCondition();
+    private final long stride;
+    private final long credit;
+    private long pass;
+    private long ticket;
+    private boolean isGranted;
+    private boolean isHolding;
+
+    private ReadTurn(final long stride, final long credit) {
+      this.stride = stride;
+      this.credit = credit;
+    }
+
+    /**
+     * Takes a slot to process a message, waiting for it if all the slots are taken.
+     *
+     * @return true if the slot was taken, false if the thread was interrupted while waiting
+     */
+    public boolean acquire() {
+      lock.lock();
+      try {
+        if (isHolding) {
+          return true;
+        }
+        pass = Math.max(pass, virtualTime - credit);
+        if (0 < availableSlots && waitingTurns.isEmpty()) {
+          availableSlots--;
+          take();
+          return true;
+        }
+
+        deferredReads.increment();
+        ticket = tickets++;
+        waitingTurns.add(this);
+        try {
+          while (!isGranted) {
+            granted.await();
+          }
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          waitingTurns.remove(this);
+          if (isGranted) {
+            isGranted = false;
+            grantNext();
+          }
+          return false;
+        }
+        isGranted = false;
+        take();
+        return true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Gives the slot back once the message is processed, if it was taken.
+     */
+    public void release() {
+      lock.lock();
+      try {
+        if (isHolding) {
+          isHolding = false;
+          grantNext();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Gives the slot back if the connection ends while processing a message.
+     */
+    @Override
+    public void close() {
+      release();
+    }
+
+    private void take() {
+      virtualTime = Math.max(virtualTime, pass);
+      pass += stride;
+      isHolding = true;
+    }
+  }
+}
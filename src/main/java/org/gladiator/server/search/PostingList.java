@@ -0,0 +1,184 @@
+package org.gladiator.server.search;
+
+import java.util.Arrays;
+
+/**
+ * Increasing list of message sequence numbers containing a term, stored as variable-length
+ * encoded deltas, so a posting usually takes a single byte.
+ *
+ * <p>Only the last byte of each delta lacks the continuation bit, so the deltas can also be read
+ * backwards from the last sequence number: a search walks the lists from the newest message and
+ * stops decoding once it has enough results.</p>
+ *
+ * <p>This class is not thread-safe, the {@link SearchIndex} guards it with its lock.</p>
+ */
+final class PostingList {
+
+  private static final int INITIAL_CAPACITY = 8;
+  private static final int VALUE_BITS = 7;
+  private static final int VALUE_MASK = 0x7F;
+  private static final int CONTINUATION_BIT = 0x80;
+
+  private byte[] bytes = new byte[INITIAL_CAPACITY];
+  private int length;
+  private int size;
+  private long lastSequence;
+
+  /**
+   * Adds a sequence number, it is ignored when it is not greater than the last one added, which
+   * happens when a term appears more than once in the same message.
+   *
+   * @param sequence the sequence number of the message containing the term
+   */
+  void add(final long sequence) {
+    if (sequence <= lastSequence) {
+      return;
+    }
+
+    writeDelta(sequence - lastSequence);
+    lastSequence = sequence;
+    size++;
+  }
+
+  /**
+   * Removes the sequence numbers lower than the given one, those of the messages deleted from the
+   * history.
+   *
+   * @param firstSequence the lowest sequence number kept
+   */
+  void removeBefore(final long firstSequence) {
+    long sequence = 0;
+    int position = 0;
+    for (int removed = 0; removed < size; removed++) {
+      long delta = 0;
+      int shift = 0;
+      byte current;
+      do {
+        current = bytes[position++];
+        delta |= (long) (current & VALUE_MASK) << shift;
+        shift += VALUE_BITS;
+      } while (0 != (current & CONTINUATION_BIT));
+      sequence += delta;
+
+      if (firstSequence <= sequence) {
+        if (0 < removed) {
+          final byte[] following = Arrays.copyOfRange(bytes, position, length);
+          bytes = new byte[Math.max(INITIAL_CAPACITY, following.length + Long.BYTES + 2)];
+          length = 0;
+          writeDelta(sequence);
+          System.arraycopy(following, 0, bytes, length, following.length);
+          length += following.length;
+          size -= removed;
+        }
+        return;
+      }
+    }
+
+    bytes = new byte[INITIAL_CAPACITY];
+    length = 0;
+    size = 0;
+    lastSequence = 0;
+  }
+
+  /**
+   * Gets the number of sequence numbers in the list.
+   *
+   * @return the number of sequence numbers
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Checks if the list has no sequence number.
+   *
+   * @return true if the list is empty
+   */
+  boolean isEmpty() {
+    return 0 == size;
+  }
+
+  /**
+   * Starts reading the sequence numbers from the newest one. The list must not change while the
+   * cursor is used.
+   *
+   * @return a cursor on the last sequence number
+   */
+  Cursor newestFirst() {
+    return new Cursor();
+  }
+
+  private void writeDelta(final long value) {
+    long delta = value;
+    ensureCapacity(Long.BYTES + 2);
+    while (VALUE_MASK < delta) {
+      bytes[length++] = (byte) ((delta & VALUE_MASK) | CONTINUATION_BIT);
+      delta >>>= VALUE_BITS;
+    }
+    bytes[length++] = (byte) delta;
+  }
+
+  private void ensureCapacity(final int extraBytes) {
+    if (bytes.length < length + extraBytes) {
+      bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extraBytes));
+    }
+  }
+
+  /**
+   * Reads the sequence numbers of the list in decreasing order, decoding the deltas backwards.
+   */
+  final class Cursor {
+
+    private int position = length;
+    private int remaining = size;
+    private long current = lastSequence;
+
+    private Cursor() {
+    }
+
+    /**
+     * Checks if a sequence number is left to read.
+     *
+     * @return true if the cursor is not past the first sequence number
+     */
+    boolean hasNext() {
+      return 0 < remaining;
+    }
+
+    /**
+     * Reads the current sequence number and moves to the previous one.
+     *
+     * @return the current sequence number
+     */
+    long next() {
+      final long sequence = current;
+      final int end = position;
+      do {
+        position--;
+      } while (0 < position && 0 != (bytes[position - 1] & CONTINUATION_BIT));
+
+      long delta = 0;
+      int shift = 0;
+      for (int i = position; i < end; i++) {
+        delta |= (long) (bytes[i] & VALUE_MASK) << shift;
+        shift += VALUE_BITS;
+      }
+      current -= delta;
+      remaining--;
+      return sequence;
+    }
+
+    /**
+     * Moves past the sequence numbers greater than the given one.
+     *
+     * @param sequence the sequence number looked for
+     * @return true if the current sequence number is the given one
+     */
+    boolean skipTo(final long sequence) {
+      while (hasNext() && sequence < current) {
+        next();
+      }
+      return hasNext() && sequence == current;
+    }
+  }
+}
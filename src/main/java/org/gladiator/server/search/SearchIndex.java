@@ -0,0 +1,395 @@
+package org.gladiator.server.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.gladiator.exception.InvalidMessageException;
+import org.gladiator.server.history.HistoryEntry;
+import org.gladiator.server.history.HistoryLog;
+import org.gladiator.util.connection.message.ConnectionMessageFactory;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory inverted index over the content and the sender of the chat messages, mapping each
+ * term to the {@link PostingList} of the sequence numbers of the messages containing it.
+ *
+ * <p>Indexing only places the message in a queue, a single indexer thread adds the queued
+ * messages to the index, so the threads receiving messages never wait on it. When started, the
+ * indexer first rebuilds the index from the {@link HistoryLog}. Once the log deletes its oldest
+ * segments, the indexer removes their messages from the postings and drops the terms left without
+ * any.</p>
+ *
+ * <p>The messages dropped because the queue is full are counted, and the indexer logs how many
+ * were dropped at most once per report interval.</p>
+ *
+ * <p>The index holds at most a fixed number of terms, the new terms of a full index are not
+ * indexed, and the terms longer than 64 characters never are.</p>
+ *
+ * <p>A query matches the messages containing all of its terms. A term written as
+ * {@code from:name} only matches the messages sent by that name.</p>
+ */
+public final class SearchIndex implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SearchIndex.class);
+  private static final Pattern TERM_SPLITTER = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Pattern QUERY_SPLITTER = Pattern.compile("\\s+");
+  private static final String SENDER_PREFIX = "from:";
+  private static final int MAX_TERM_LENGTH = 64;
+  private static final int MAX_TERMS = 200_000;
+  private static final int QUEUE_CAPACITY = 65_536;
+  private static final int MAX_BATCH_SIZE = 1024;
+  private static final int REBUILD_CHUNK_SIZE = 4096;
+  private static final long POLL_TIMEOUT_SECONDS = 1;
+  private static final long CLOSE_TIMEOUT_SECONDS = 5;
+  private static final long DROP_REPORT_INTERVAL_MILLIS = 10_000;
+
+  private final Map<String, PostingList> postings = new HashMap<>();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final BlockingQueue<SimpleMessage> pendingMessages =
+      new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+  private final HistoryLog historyLog;
+  private final ExecutorService executor;
+  private final LongAdder droppedMessages = new LongAdder();
+  private volatile boolean running = true;
+  private long firstRetainedSequence;
+  private boolean isVocabularyFull;
+  private long lastDropReportMillis = System.currentTimeMillis();
+  private long reportedDroppedMessages;
+
+  private SearchIndex(final HistoryLog historyLog, final ExecutorService executor) {
+    this.historyLog = historyLog;
+    this.executor = executor;
+  }
+
+  /**
+   * Starts the indexer thread, which rebuilds the index from the messages logged before the given
+   * sequence number and then indexes the queued ones.
+   *
+   * @param historyLog  the log with the messages recorded before the server started
+   * @param endSequence the sequence number following the last logged message
+   * @return the started search index
+   */
+  public static SearchIndex start(final HistoryLog historyLog, final long endSequence) {
+    final ExecutorService executor = NamedVirtualThreadExecutorFactory.create("search");
+    final SearchIndex searchIndex = new SearchIndex(historyLog, executor);
+    executor.execute(() -> {
+      searchIndex.rebuild(endSequence);
+      searchIndex.indexMessages();
+    });
+    return searchIndex;
+  }
+
+  /**
+   * Queues a stamped message to be indexed. This method never blocks, if the indexer cannot keep
+   * up and the queue is full, the message is not indexed and counted in
+   * {@link #droppedMessages()}.
+   *
+   * @param message the stamped message
+   */
+  public void index(final SimpleMessage message) {
+    if (!(running && pendingMessages.offer(message))) {
+      droppedMessages.increment();
+    }
+  }
+
+  /**
+   * Gets the number of messages not indexed because the indexer was not keeping up or the index
+   * was closed.
+   *
+   * @return the number of dropped messages
+   */
+  public long droppedMessages() {
+    return droppedMessages.sum();
+  }
+
+  /**
+   * Searches the indexed messages containing all the terms of the query.
+   *
+   * @param query      the terms to search, separated by spaces
+   * @param maxResults the maximum number of sequence numbers returned
+   * @return the sequence numbers of the newest matching messages, from the newest to the oldest
+   */
+  public long[] search(final String query, final int maxResults) {
+    final Set<String> terms = parseQuery(query);
+    if (terms.isEmpty()) {
+      return new long[0];
+    }
+
+    final List<PostingList> termPostings = new ArrayList<>(terms.size());
+    lock.readLock().lock();
+    try {
+      for (final String term : terms) {
+        final PostingList postingList = postings.get(term);
+        if (null == postingList) {
+          return new long[0];
+        }
+        termPostings.add(postingList);
+      }
+
+      termPostings.sort(Comparator.comparingInt(PostingList::size));
+      return newestMatches(termPostings, maxResults);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Indexes the logged messages, reading the log in chunks.
+   */
+  private void rebuild(final long endSequence) {
+    final long startMillis = System.currentTimeMillis();
+    long nextSequence = 0;
+    int indexed = 0;
+    try {
+      while (running && nextSequence < endSequence) {
+        final List<HistoryEntry> entries = historyLog.read(nextSequence, REBUILD_CHUNK_SIZE);
+        if (entries.isEmpty()) {
+          break;
+        }
+
+        final List<SimpleMessage> messages = new ArrayList<>(entries.size());
+        for (final HistoryEntry entry : entries) {
+          if (entry.offset() < endSequence) {
+            parseEntry(entry, messages);
+          }
+        }
+        addAll(messages);
+        indexed += messages.size();
+        nextSequence = entries.getLast().offset() + 1;
+      }
+    } catch (final IOException e) {
+      LOGGER.error("Error reading the message history, the search index is incomplete", e);
+    }
+    LOGGER.debug("Search index rebuilt with {} messages in {} ms", indexed,
+        System.currentTimeMillis() - startMillis);
+  }
+
+  private static void parseEntry(final HistoryEntry entry, final List<SimpleMessage> messages) {
+    try {
+      if (ConnectionMessageFactory.createFromString(entry.entry())
+          instanceof final SimpleMessage message) {
+        messages.add(message);
+      }
+    } catch (final InvalidMessageException e) {
+      LOGGER.debug(InvalidMessageException.DEFAULT_PROMPT, e);
+    }
+  }
+
+  /**
+   * Indexer loop, it runs on a single thread until the index is closed.
+   */
+  private void indexMessages() {
+    final List<SimpleMessage> batch = new ArrayList<>(MAX_BATCH_SIZE);
+    while (running) {
+      try {
+        final SimpleMessage message = pendingMessages.poll(POLL_TIMEOUT_SECONDS,
+            TimeUnit.SECONDS);
+        if (null != message) {
+          batch.add(message);
+          pendingMessages.drainTo(batch, MAX_BATCH_SIZE - 1);
+          addAll(batch);
+          batch.clear();
+        }
+        removeRetired();
+        final long now = System.currentTimeMillis();
+        if (DROP_REPORT_INTERVAL_MILLIS <= now - lastDropReportMillis) {
+          reportDroppedMessages(now);
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      }
+    }
+    reportDroppedMessages(System.currentTimeMillis());
+  }
+
+  /**
+   * Logs the number of messages dropped since the last report, if any.
+   */
+  private void reportDroppedMessages(final long now) {
+    final long dropped = droppedMessages.sum();
+    if (reportedDroppedMessages < dropped) {
+      LOGGER.warn("{} messages not indexed in the last {} seconds, the search indexer is not "
+          + "keeping up", dropped - reportedDroppedMessages,
+          TimeUnit.MILLISECONDS.toSeconds(now - lastDropReportMillis));
+      reportedDroppedMessages = dropped;
+    }
+    lastDropReportMillis = now;
+  }
+
+  private void addAll(final List<SimpleMessage> messages) {
+    lock.writeLock().lock();
+    try {
+      for (final SimpleMessage message : messages) {
+        for (final String term : messageTerms(message)) {
+          final PostingList postingList = postingListOf(term);
+          if (null != postingList) {
+            postingList.add(message.sequence());
+          }
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the posting list of a term, creating it unless the vocabulary is full. Must be called
+   * with the write lock held.
+   */
+  @Nullable
+  private PostingList postingListOf(final String term) {
+    PostingList postingList = postings.get(term);
+    if (null == postingList) {
+      if (MAX_TERMS <= postings.size()) {
+        if (!isVocabularyFull) {
+          isVocabularyFull = true;
+          LOGGER.warn("The search index holds {} terms, new terms are not indexed", MAX_TERMS);
+        }
+        return null;
+      }
+      postingList = new PostingList();
+      postings.put(term, postingList);
+    }
+    return postingList;
+  }
+
+  /**
+   * Removes the messages deleted from the history log since the last call from the postings.
+   */
+  private void removeRetired() {
+    final long firstSequence = historyLog.firstOffset();
+    if (firstSequence <= firstRetainedSequence) {
+      return;
+    }
+
+    lock.writeLock().lock();
+    try {
+      final Iterator<PostingList> postingLists = postings.values().iterator();
+      while (postingLists.hasNext()) {
+        final PostingList postingList = postingLists.next();
+        postingList.removeBefore(firstSequence);
+        if (postingList.isEmpty()) {
+          postingLists.remove();
+        }
+      }
+      isVocabularyFull = false;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    firstRetainedSequence = firstSequence;
+    LOGGER.debug("Search index pruned before message {}, {} terms left", firstSequence,
+        postings.size());
+  }
+
+  private static Set<String> messageTerms(final SimpleMessage message) {
+    final Set<String> terms = new HashSet<>();
+    addSenderTerm(message.senderName(), terms);
+    addTerms(message.senderName(), terms);
+    addTerms(message.message(), terms);
+    return terms;
+  }
+
+  private static Set<String> parseQuery(final String query) {
+    final Set<String> terms = new HashSet<>();
+    for (final String word : QUERY_SPLITTER.split(query.strip(), -1)) {
+      if (word.regionMatches(true, 0, SENDER_PREFIX, 0, SENDER_PREFIX.length())
+          && SENDER_PREFIX.length() < word.length()) {
+        addSenderTerm(word.substring(SENDER_PREFIX.length()), terms);
+      } else {
+        addTerms(word, terms);
+      }
+    }
+    return terms;
+  }
+
+  private static void addSenderTerm(final String name, final Set<String> terms) {
+    if (MAX_TERM_LENGTH >= name.length()) {
+      terms.add(SENDER_PREFIX + normalize(name));
+    }
+  }
+
+  private static void addTerms(final String text, final Set<String> terms) {
+    for (final String term : TERM_SPLITTER.split(normalize(text), -1)) {
+      if (!term.isEmpty() && MAX_TERM_LENGTH >= term.length()) {
+        terms.add(term);
+      }
+    }
+  }
+
+  private static String normalize(final String text) {
+    return text.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Intersects the posting lists from their newest sequence numbers, driven by the shortest one,
+   * and stops decoding them once enough matches are found.
+   *
+   * @param termPostings the posting lists of the terms, the shortest first
+   * @param maxResults   the maximum number of matches
+   * @return the newest matching sequence numbers, from the newest to the oldest
+   */
+  private static long[] newestMatches(final List<PostingList> termPostings,
+      final int maxResults) {
+    final List<PostingList.Cursor> cursors = new ArrayList<>(termPostings.size());
+    for (final PostingList postingList : termPostings) {
+      cursors.add(postingList.newestFirst());
+    }
+
+    final PostingList.Cursor shortest = cursors.getFirst();
+    final long[] matches = new long[Math.min(maxResults, termPostings.getFirst().size())];
+    int count = 0;
+    while (count < matches.length && shortest.hasNext()) {
+      final long candidate = shortest.next();
+      if (isInAll(cursors, candidate)) {
+        matches[count++] = candidate;
+      }
+    }
+    return Arrays.copyOf(matches, count);
+  }
+
+  private static boolean isInAll(final List<PostingList.Cursor> cursors, final long sequence) {
+    for (int i = 1; i < cursors.size(); i++) {
+      if (!cursors.get(i).skipTo(sequence)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stops the indexer thread, the queued messages that were not indexed yet are discarded.
+   */
+  @Override
+  public void close() {
+    running = false;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package org.gladiator.server.stats;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Represents the state of a connection when the last snapshot was taken.
+ *
+ * @param name              the name of the user
+ * @param uptime            the time since the user connected
+ * @param idleTime          the time since the user last sent anything
+ * @param roundTripMicros   the round trip of the last heartbeat, or -1 if none was answered yet
+ * @param receivedMessages  the number of messages received from the user
+ * @param sentMessages      the number of messages sent to the user
+ * @param receivedPerSecond the messages received per second since the previous snapshot
+ * @param sentPerSecond     the messages sent per second since the previous snapshot
+ * @param pendingMessages   the messages queued for the user and not written yet
+ */
+public record ConnectionSnapshot(String name, Duration uptime, Duration idleTime,
+                                 long roundTripMicros, long receivedMessages, long sentMessages,
+                                 double receivedPerSecond, double sentPerSecond,
+                                 int pendingMessages) {
+
+  /**
+   * Describes the connection on a single line of the {@code /who} command.
+   *
+   * @return the description of the connection
+   */
+  public String describe() {
+    final String roundTrip = 0 > roundTripMicros ? "-" : roundTripMicros / 1000 + " ms";
+    return String.format(Locale.ROOT,
+        "%-20s up %-10s idle %-8s rtt %-8s in %8.1f/s out %8.1f/s (%d in, %d out, %d queued)",
+        name, ServerSnapshot.format(uptime), ServerSnapshot.format(idleTime), roundTrip,
+        receivedPerSecond, sentPerSecond, receivedMessages, sentMessages, pendingMessages);
+  }
+}
@@ -0,0 +1,102 @@
+package org.gladiator.server.stats;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Represents the state of the server when the last snapshot was taken. The connections are sorted
+ * by name.
+ *
+ * @param age                how long the snapshot was taken after the previous one
+ * @param uptime             the time since the server started
+ * @param connections        the connected users
+ * @param handshakes         the number of successful handshakes
+ * @param handshakeFailures  the number of handshakes that failed or timed out
+ * @param rejected           the number of connections rejected because the server was full
+ * @param received           the number of messages received
+ * @param sent               the number of messages sent
+ * @param receivedPerSecond  the messages received per second since the previous snapshot
+ * @param sentPerSecond      the messages sent per second since the previous snapshot
+ * @param receivedBytes      the number of bytes received
+ * @param sentBytes          the number of bytes sent
+ * @param outboundPending    the number of messages waiting to be written
+ * @param outboundDropped    the number of messages that could not be written
+ * @param rateLimited        the number of messages discarded by the rate limits
+ * @param handshakeP99Micros the 99th percentile of the handshake durations
+ * @param encryptP99Micros   the 99th percentile of the encryption durations
+ * @param decryptP99Micros   the 99th percentile of the decryption durations
+ */
+public record ServerSnapshot(Duration age, Duration uptime, List<ConnectionSnapshot> connections,
+                             long handshakes, long handshakeFailures, long rejected,
+                             long received, long sent, double receivedPerSecond,
+                             double sentPerSecond, long receivedBytes, long sentBytes,
+                             long outboundPending, long outboundDropped, long rateLimited,
+                             long handshakeP99Micros, long encryptP99Micros,
+                             long decryptP99Micros) {
+
+  /**
+   * Constructs a new ServerSnapshot, the list of connections is copied.
+   */
+  public ServerSnapshot {
+    connections = List.copyOf(connections);
+  }
+
+  /**
+   * Describes the server statistics for the {@code /stats} command.
+   *
+   * @return the lines of the description
+   */
+  public String describe() {
+    return String.join(System.lineSeparator(),
+        "Server up " + format(uptime) + ", snapshot of the last " + format(age),
+        String.format(Locale.ROOT, "Connections: %d (handshakes %d, failed %d, rejected %d)",
+            connections.size(), handshakes, handshakeFailures, rejected),
+        String.format(Locale.ROOT, "Messages: in %d (%.1f/s, %d bytes), out %d (%.1f/s, %d bytes)",
+            received, receivedPerSecond, receivedBytes, sent, sentPerSecond, sentBytes),
+        String.format(Locale.ROOT, "Outbound: %d pending, %d dropped, %d rate limited",
+            outboundPending, outboundDropped, rateLimited),
+        String.format(Locale.ROOT, "p99: handshake %d us, encrypt %d us, decrypt %d us",
+            handshakeP99Micros, encryptP99Micros, decryptP99Micros));
+  }
+
+  /**
+   * Describes the connected users whose name starts with a prefix, for the {@code /who} command.
+   *
+   * @param namePrefix the prefix of the names, empty for all the users
+   * @param limit      the maximum number of users described
+   * @return the lines of the description
+   */
+  public String describeConnections(final String namePrefix, final int limit) {
+    final List<ConnectionSnapshot> matching = connections.stream()
+        .filter(connection -> connection.name().startsWith(namePrefix))
+        .toList();
+    final StringBuilder description = new StringBuilder()
+        .append(matching.size()).append(" connected");
+    matching.stream()
+        .limit(limit)
+        .forEach(connection -> description.append(System.lineSeparator())
+            .append(connection.describe()));
+    if (limit < matching.size()) {
+      description.append(System.lineSeparator())
+          .append("... ").append(matching.size() - limit).append(" more, filter with /who <name>");
+    }
+    return description.toString();
+  }
+
+  /**
+   * Formats a duration as hours, minutes and seconds.
+   */
+  static String format(final Duration duration) {
+    if (0 < duration.toHours()) {
+      return String.format(Locale.ROOT, "%dh%02dm%02ds", duration.toHours(),
+          duration.toMinutesPart(), duration.toSecondsPart());
+    }
+    if (0 < duration.toMinutes()) {
+      return String.format(Locale.ROOT, "%dm%02ds", duration.toMinutes(),
+          duration.toSecondsPart());
+    }
+    return String.format(Locale.ROOT, "%d.%01ds", duration.toSeconds(),
+        duration.toMillisPart() / 100);
+  }
+}
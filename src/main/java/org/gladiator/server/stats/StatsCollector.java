@@ -0,0 +1,124 @@
+package org.gladiator.server.stats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.gladiator.server.metrics.ServerMetrics;
+import org.gladiator.util.connection.Connection;
+import org.gladiator.util.timer.HashedTimingWheel;
+
+/**
+ * Takes a snapshot of the server statistics at a fixed interval, so the operator commands read a
+ * ready-made snapshot instead of walking the connections of a busy server.
+ *
+ * <p>The rates are computed from the difference with the previous snapshot. Only the timer
+ * refreshes the snapshots, one at a time, so the totals of the previous snapshot need no
+ * locking.</p>
+ */
+public final class StatsCollector {
+
+  /**
+   * The interval between two snapshots.
+   */
+  public static final Duration REFRESH_INTERVAL = Duration.ofSeconds(2);
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  private final List<Connection> connections;
+  private final ServerMetrics metrics;
+  private final HashedTimingWheel timingWheel;
+  private final long startedNanos = System.nanoTime();
+  private Map<Connection, Totals> previousTotals = Map.of();
+  private Totals previousServerTotals = new Totals(0, 0);
+  private long previousNanos = startedNanos;
+  private volatile ServerSnapshot snapshot;
+
+  /**
+   * Constructs a new StatsCollector and takes its first snapshot.
+   *
+   * @param connections the live connections of the server
+   * @param metrics     the metrics of the server
+   * @param timingWheel the timer the snapshots are refreshed by
+   */
+  public StatsCollector(final List<Connection> connections, final ServerMetrics metrics,
+      final HashedTimingWheel timingWheel) {
+    this.connections = Objects.requireNonNull(connections);
+    this.metrics = Objects.requireNonNull(metrics);
+    this.timingWheel = Objects.requireNonNull(timingWheel);
+    this.snapshot = takeSnapshot();
+  }
+
+  /**
+   * Starts refreshing the snapshot at the fixed interval, until the timer is closed.
+   */
+  public void start() {
+    timingWheel.schedule(this::refresh, REFRESH_INTERVAL);
+  }
+
+  /**
+   * Gets the last snapshot.
+   *
+   * @return the snapshot, at most {@link #REFRESH_INTERVAL} old
+   */
+  public ServerSnapshot snapshot() {
+    return snapshot;
+  }
+
+  private void refresh() {
+    try {
+      snapshot = takeSnapshot();
+    } finally {
+      timingWheel.schedule(this::refresh, REFRESH_INTERVAL);
+    }
+  }
+
+  private ServerSnapshot takeSnapshot() {
+    final long nowNanos = System.nanoTime();
+    final double elapsedSeconds = Math.max(1, nowNanos - previousNanos) / NANOS_PER_SECOND;
+
+    final Map<Connection, Totals> totals = new HashMap<>();
+    final List<ConnectionSnapshot> connectionSnapshots = new ArrayList<>();
+    for (final Connection connection : connections) {
+      final Totals current = new Totals(connection.receivedMessages(),
+          connection.sentMessages());
+      final Totals previous = previousTotals.getOrDefault(connection, new Totals(0, 0));
+      totals.put(connection, current);
+      final long roundTripNanos = connection.roundTripNanos();
+      connectionSnapshots.add(new ConnectionSnapshot(connection.getName(), connection.uptime(),
+          connection.idleTime(), 0 > roundTripNanos ? -1 : roundTripNanos / 1000,
+          current.received(), current.sent(),
+          (current.received() - previous.received()) / elapsedSeconds,
+          (current.sent() - previous.sent()) / elapsedSeconds, connection.pendingOutput()));
+    }
+    connectionSnapshots.sort(Comparator.comparing(ConnectionSnapshot::name));
+
+    final Totals serverTotals = new Totals(metrics.getMessagesReceived(),
+        metrics.getMessagesSent());
+    final ServerSnapshot newSnapshot = new ServerSnapshot(
+        Duration.ofNanos(nowNanos - previousNanos), Duration.ofNanos(nowNanos - startedNanos),
+        connectionSnapshots, metrics.getHandshakes(), metrics.getHandshakeFailures(),
+        metrics.getRejectedConnections(), serverTotals.received(), serverTotals.sent(),
+        (serverTotals.received() - previousServerTotals.received()) / elapsedSeconds,
+        (serverTotals.sent() - previousServerTotals.sent()) / elapsedSeconds,
+        metrics.getBytesReceived(), metrics.getBytesSent(), metrics.getOutboundPending(),
+        metrics.getOutboundDropped(),
+        metrics.getConnectionRateLimited() + metrics.getRoomRateLimited(),
+        metrics.getHandshakeP99Micros(), metrics.getEncryptP99Micros(),
+        metrics.getDecryptP99Micros());
+
+    previousTotals = totals;
+    previousServerTotals = serverTotals;
+    previousNanos = nowNanos;
+    return newSnapshot;
+  }
+
+  /**
+   * The message counts of a connection or of the server when a snapshot was taken.
+   */
+  private record Totals(long received, long sent) {
+
+  }
+}
@@ -2,7 +2,6 @@ package org.gladiator.util.chat;
 
 import java.io.IOException;
 import java.util.Objects;
-import org.gladiator.util.connection.message.ConnectionMessageType;
 import org.gladiator.util.connection.message.model.Message;
 import org.jline.reader.LineReader;
 import org.jline.reader.LineReaderBuilder;
@@ -14,6 +13,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Utility class for handling chat-related operations.
+ *
+ * <p>The received messages are rendered asynchronously by a {@link TerminalRenderer}, which
+ * coalesces bursts of messages into frames drawn at a capped rate.</p>
  */
 public final class ChatUtils implements AutoCloseable {
 
@@ -23,11 +25,13 @@ public final class ChatUtils implements AutoCloseable {
   private final String userPrompt;
   private final Terminal terminal;
   private final LineReader lineReader;
+  private final TerminalRenderer renderer;
 
   private ChatUtils(final String userPrompt, final Terminal terminal, final LineReader lineReader) {
     this.userPrompt = userPrompt;
     this.terminal = terminal;
     this.lineReader = lineReader;
+    this.renderer = new TerminalRenderer(terminal, this::bufferedUserPrompt);
   }
 
   /**
@@ -58,23 +62,13 @@ public final class ChatUtils implements AutoCloseable {
   }
 
   /**
-   * Displays a new chat received message on the screen.
+   * Displays a new chat received message on the screen. The message is only queued, it is
+   * displayed in the next frame of the renderer, so the caller never waits for the terminal.
    *
    * @param message The message to display.
    */
   public void showNewMessage(final Message message) {
-    final String messageContent = message.toString();
-    final ConnectionMessageType messageType = message.getType();
-
-    cleanLine();
-
-    if (ConnectionMessageType.SIMPLE != messageType) {
-      displayBanner(messageContent);
-    } else {
-      displayOnScreen(messageContent);
-    }
-
-    showBufferedUserPrompt();
+    renderer.submit(message);
   }
 
 
@@ -149,30 +143,32 @@ public final class ChatUtils implements AutoCloseable {
    * @param str The string to print.
    */
   public void displayBanner(final String str) {
-    final String division = "=".repeat(str.length());
-
-    displayOnScreen(System.lineSeparator() + division);
-    displayOnScreen(str);
-    displayOnScreen(division + System.lineSeparator());
+    displayOnScreen(formatBanner(str));
   }
 
   /**
-   * Displays the buffered user prompt on the screen.
+   * Formats a string with a decorative border.
+   *
+   * @param str The string to format.
+   * @return The string between two borders, without a trailing line separator.
    */
-  private void showBufferedUserPrompt() {
-    print(userPrompt + " " + lineReader.getBuffer().toString());
-  }
-
-  private void cleanLine() {
-    print("\r\033[K");
+  static String formatBanner(final String str) {
+    final String division = "=".repeat(str.length());
+    final String lineSeparator = System.lineSeparator();
+    return lineSeparator + division + lineSeparator + str + lineSeparator + division
+        + lineSeparator;
   }
 
-  private void print(final String str) {
-    terminal.writer().print(str);
+  /**
+   * Gets the user prompt followed by the text the user is typing.
+   */
+  private String bufferedUserPrompt() {
+    return userPrompt + " " + lineReader.getBuffer().toString();
   }
 
   @Override
   public void close() {
+    renderer.close();
     try {
       terminal.close();
     } catch (final IOException e) {
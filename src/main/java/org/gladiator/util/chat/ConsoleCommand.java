@@ -0,0 +1,58 @@
+package org.gladiator.util.chat;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Represents a command typed on the console, a line starting with {@value #PREFIX} followed by the
+ * command name and, optionally, a space and its argument. This class is immutable and uses the
+ * record feature of Java.
+ *
+ * @param name     The name of the command, without the prefix.
+ * @param argument The rest of the line, empty if there is none.
+ */
+public record ConsoleCommand(String name, String argument) {
+
+  /**
+   * The command used to search the chat history.
+   */
+  public static final String SEARCH = "search";
+
+  /**
+   * The server command showing the statistics of the server.
+   */
+  public static final String STATS = "stats";
+
+  /**
+   * The server command listing the connected users.
+   */
+  public static final String WHO = "who";
+
+  private static final String PREFIX = "/";
+
+  /**
+   * Constructs a new ConsoleCommand.
+   *
+   * @throws NullPointerException if any of the parameters are null.
+   */
+  public ConsoleCommand {
+    Objects.requireNonNull(name);
+    Objects.requireNonNull(argument);
+  }
+
+  /**
+   * Parses a line typed on the console.
+   *
+   * @param line The line typed.
+   * @return The command, or null if the line is not a command.
+   */
+  @Nullable
+  public static ConsoleCommand parse(final String line) {
+    if (!line.startsWith(PREFIX) || PREFIX.length() == line.length()) {
+      return null;
+    }
+
+    final String[] split = line.substring(PREFIX.length()).split("\\s+", 2);
+    return new ConsoleCommand(split[0], 1 < split.length ? split[1].strip() : "");
+  }
+}
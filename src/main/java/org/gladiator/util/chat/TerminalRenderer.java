@@ -0,0 +1,154 @@
+package org.gladiator.util.chat;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
+import org.jline.terminal.Terminal;
+
+/**
+ * Renders the received messages on the terminal from a single thread, so the threads receiving
+ * them never wait for the terminal.
+ *
+ * <p>The messages are queued and rendered in frames, at most {@link #FRAME_INTERVAL} apart: each
+ * frame clears the prompt line once, prints every message queued since the previous frame and
+ * reprints the prompt with the text the user is typing, with a single write to the terminal. When
+ * the terminal cannot keep up and the queue is full, the new messages are dropped and the next
+ * frame tells how many were not displayed.</p>
+ */
+final class TerminalRenderer implements AutoCloseable {
+
+  private static final Duration FRAME_INTERVAL = Duration.ofMillis(33);
+  private static final int MAX_PENDING_MESSAGES = 10_000;
+  private static final long CLOSE_TIMEOUT_SECONDS = 1;
+  private static final String CLEAN_LINE = "\r\033[K";
+
+  private final Terminal terminal;
+  private final Supplier<String> promptSupplier;
+  private final Queue<Message> pendingMessages = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicInteger droppedCount = new AtomicInteger();
+  private final AtomicBoolean isFrameRequested = new AtomicBoolean();
+  private final Semaphore frameRequests = new Semaphore(0);
+  private final ExecutorService executor;
+  private volatile boolean running = true;
+
+  /**
+   * Constructs a new TerminalRenderer and starts its rendering thread.
+   *
+   * @param terminal       the terminal the messages are rendered on
+   * @param promptSupplier supplies the prompt reprinted after the messages
+   */
+  TerminalRenderer(final Terminal terminal, final Supplier<String> promptSupplier) {
+    this.terminal = terminal;
+    this.promptSupplier = promptSupplier;
+    this.executor = NamedVirtualThreadExecutorFactory.create("renderer");
+    executor.execute(this::renderFrames);
+  }
+
+  /**
+   * Queues a message to be rendered in the next frame, without waiting for the terminal.
+   *
+   * @param message the message to render
+   */
+  void submit(final Message message) {
+    if (MAX_PENDING_MESSAGES < pendingCount.incrementAndGet()) {
+      pendingCount.decrementAndGet();
+      droppedCount.incrementAndGet();
+    } else {
+      pendingMessages.offer(message);
+    }
+
+    if (isFrameRequested.compareAndSet(false, true)) {
+      frameRequests.release();
+    }
+  }
+
+  /**
+   * Rendering loop, it waits for a frame to be requested and renders it, no sooner than the frame
+   * interval after the previous one.
+   */
+  private void renderFrames() {
+    long nextFrameNanos = System.nanoTime();
+    while (running) {
+      try {
+        frameRequests.acquire();
+        final long waitNanos = nextFrameNanos - System.nanoTime();
+        if (0 < waitNanos) {
+          TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      isFrameRequested.set(false);
+      renderFrame();
+      nextFrameNanos = System.nanoTime() + FRAME_INTERVAL.toNanos();
+    }
+    renderFrame();
+  }
+
+  /**
+   * Renders the messages queued when the frame starts, the ones queued meanwhile are left for the
+   * next frame.
+   */
+  private void renderFrame() {
+    final int count = pendingCount.get();
+    final int dropped = droppedCount.getAndSet(0);
+    if (0 == count && 0 == dropped) {
+      return;
+    }
+
+    final StringBuilder frame = new StringBuilder(CLEAN_LINE);
+    for (int i = 0; i < count; i++) {
+      final Message message = pendingMessages.poll();
+      if (null == message) {
+        break;
+      }
+      pendingCount.decrementAndGet();
+      appendMessage(frame, message);
+    }
+    if (0 < dropped) {
+      frame.append(dropped).append(" messages were not displayed, the terminal could not keep up")
+          .append(System.lineSeparator());
+    }
+    frame.append(promptSupplier.get());
+
+    terminal.writer().print(frame);
+    terminal.flush();
+  }
+
+  private static void appendMessage(final StringBuilder frame, final Message message) {
+    final String messageContent = message.toString();
+    switch (message.getType()) {
+      case NEW_CONNECTION, DISCONNECTION, PRESENCE ->
+          frame.append(ChatUtils.formatBanner(messageContent));
+      default -> frame.append(messageContent);
+    }
+    frame.append(System.lineSeparator());
+  }
+
+  /**
+   * Renders the messages still queued and stops the rendering thread.
+   */
+  @Override
+  public void close() {
+    running = false;
+    frameRequests.release();
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
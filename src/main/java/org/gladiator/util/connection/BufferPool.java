@@ -0,0 +1,214 @@
+package org.gladiator.util.connection;
+
+import java.lang.ref.Cleaner;
+import java.lang.ref.Cleaner.Cleanable;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lock-free pool of direct {@link ByteBuffer}s of the same size, shared by the readers and writers
+ * of all the connections, so a connection only holds a buffer while data is moving through it.
+ *
+ * <p>The buffers are slices of large direct slabs allocated on demand, so the socket channels
+ * read and write them without copying the data to a temporary native buffer, and the pool does
+ * not allocate a native buffer per message. Once the maximum number of slabs was allocated, the
+ * buffers acquired from an empty pool are standalone heap buffers left to the garbage collector
+ * when released, and counted: the native memory of the pool stays bounded, while the channels copy
+ * these buffers through their own temporary direct buffers.</p>
+ *
+ * <p>With leak detection enabled, the pool records where each buffer was acquired and logs it if
+ * the buffer is garbage collected without being released, then gives its memory back to the pool.
+ * It costs an allocation and a stack trace per buffer, so it is meant for debugging.</p>
+ */
+public final class BufferPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BufferPool.class);
+  private static final Cleaner LEAK_CLEANER = Cleaner.create();
+
+  private final int bufferSize;
+  private final int buffersPerSlab;
+  private final int maxSlabs;
+  private final boolean leakDetection;
+  private final Queue<ByteBuffer> freeBuffers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger slabCount = new AtomicInteger();
+  private final LongAdder fallbackAllocations = new LongAdder();
+
+  /**
+   * Constructs a new empty BufferPool.
+   *
+   * @param bufferSize     the size of the buffers
+   * @param buffersPerSlab the number of buffers of each slab
+   * @param maxSlabs       the maximum number of slabs allocated
+   * @param leakDetection  whether the buffers not released are reported
+   * @throws IllegalArgumentException if any of the values is not positive
+   */
+  public BufferPool(final int bufferSize, final int buffersPerSlab, final int maxSlabs,
+      final boolean leakDetection) {
+    Validate.isTrue(0 < bufferSize, "The buffer size must be positive");
+    Validate.isTrue(0 < buffersPerSlab, "The buffers per slab must be positive");
+    Validate.isTrue(0 < maxSlabs, "The maximum slabs must be positive");
+    this.bufferSize = bufferSize;
+    this.buffersPerSlab = buffersPerSlab;
+    this.maxSlabs = maxSlabs;
+    this.leakDetection = leakDetection;
+  }
+
+  /**
+   * Takes a free buffer from the pool, allocating a new slab if the pool is empty, or a heap
+   * buffer outside the pool if no more slab can be allocated.
+   *
+   * @return a cleared buffer of the pool size, its content is undefined
+   */
+  public PooledBuffer acquire() {
+    ByteBuffer buffer = freeBuffers.poll();
+    boolean pooled = true;
+    if (null == buffer) {
+      buffer = allocateSlab();
+      if (null == buffer) {
+        buffer = ByteBuffer.allocate(bufferSize);
+        pooled = false;
+        fallbackAllocations.increment();
+      }
+    }
+    buffer.clear();
+    return new PooledBuffer(buffer, pooled);
+  }
+
+  /**
+   * Allocates a new slab if the maximum was not reached, keeping all its buffers but one in the
+   * pool.
+   *
+   * @return the buffer not added to the pool, or null if no slab can be allocated
+   */
+  @Nullable
+  private ByteBuffer allocateSlab() {
+    int slabs = slabCount.get();
+    while (slabs < maxSlabs) {
+      if (slabCount.compareAndSet(slabs, slabs + 1)) {
+        final ByteBuffer slab = ByteBuffer.allocateDirect(bufferSize * buffersPerSlab);
+        for (int i = 1; i < buffersPerSlab; i++) {
+          freeBuffers.offer(slab.slice(i * bufferSize, bufferSize));
+        }
+        LOGGER.debug("Allocated buffer slab {} of {} bytes", slabs + 1, slab.capacity());
+        return slab.slice(0, bufferSize);
+      }
+      slabs = slabCount.get();
+    }
+    return null;
+  }
+
+  /**
+   * Gets the number of heap buffers allocated because the pool was empty and could not grow.
+   *
+   * @return the number of fallback allocations
+   */
+  public long fallbackAllocations() {
+    return fallbackAllocations.sum();
+  }
+
+  /**
+   * Gets the number of buffers of the slabs currently acquired, the heap buffers allocated when
+   * the pool is exhausted are not counted. It walks the free buffers, so it is meant for checks
+   * rather than the hot path.
+   *
+   * @return the number of pooled buffers not given back
+   */
+  int acquiredBuffers() {
+    return slabCount.get() * buffersPerSlab - freeBuffers.size();
+  }
+
+  /**
+   * Gets the size of the buffers of the pool.
+   *
+   * @return the buffer size
+   */
+  public int bufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * A buffer taken from the pool, which must be closed to give it back once it is no longer
+   * used.
+   */
+  public final class PooledBuffer implements AutoCloseable {
+
+    private final ByteBuffer buffer;
+    private final boolean pooled;
+    @Nullable
+    private final LeakTracker leakTracker;
+    @Nullable
+    private final Cleanable cleanable;
+    private boolean isReleased;
+
+    private PooledBuffer(final ByteBuffer buffer, final boolean pooled) {
+      this.buffer = buffer;
+      this.pooled = pooled;
+      if (leakDetection && pooled) {
+        leakTracker = new LeakTracker(buffer);
+        cleanable = LEAK_CLEANER.register(this, leakTracker);
+      } else {
+        leakTracker = null;
+        cleanable = null;
+      }
+    }
+
+    /**
+     * Gets the buffer, direct unless the pool could not grow, which must not be used after this
+     * one is closed.
+     *
+     * @return the buffer
+     */
+    public ByteBuffer buffer() {
+      return buffer;
+    }
+
+    /**
+     * Gives the buffer back to the pool.
+     *
+     * @throws IllegalStateException if the buffer was already released
+     */
+    @Override
+    public void close() {
+      Validate.validState(!isReleased, "The buffer was already released");
+      isReleased = true;
+      if (null != leakTracker && null != cleanable) {
+        leakTracker.isReleased = true;
+        cleanable.clean();
+      }
+      if (pooled) {
+        freeBuffers.offer(buffer);
+      }
+    }
+  }
+
+  /**
+   * Cleaning action of a pooled buffer, it must not reference the pooled buffer itself, or the
+   * buffer would never become unreachable.
+   */
+  private final class LeakTracker implements Runnable {
+
+    private final ByteBuffer buffer;
+    private final Exception acquisitionTrace = new Exception("Buffer acquired here");
+    private volatile boolean isReleased;
+
+    private LeakTracker(final ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public void run() {
+      if (!isReleased) {
+        LOGGER.error("A pooled buffer was garbage collected without being released",
+            acquisitionTrace);
+        freeBuffers.offer(buffer);
+      }
+    }
+  }
+}
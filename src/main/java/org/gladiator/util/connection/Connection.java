@@ -1,17 +1,28 @@
 package org.gladiator.util.connection;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.net.InetAddress;
 import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import javax.crypto.SecretKey;
 import org.apache.commons.lang3.Validate;
 import org.gladiator.server.Server;
+import org.gladiator.util.connection.message.model.BatchMessage;
 import org.gladiator.util.connection.message.model.Message;
 import org.gladiator.util.crypto.CryptographyManager;
+import org.gladiator.util.trace.DecryptEvent;
+import org.gladiator.util.trace.MessageTrace;
+import org.gladiator.util.trace.SocketWriteEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,31 +35,44 @@ import org.slf4j.LoggerFactory;
 public final class Connection implements AutoCloseable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(Connection.class);
+  private static final int MAX_BATCH_FRAME_LENGTH = 64 * 1024;
 
   /**
    * The name of the entity this connection is connected to (e.g., server name if this is a client
    * connection).
    */
   private final String name;
-  private final BufferedReader reader;
-  private final PrintWriter writer;
+  private final MessageReader reader;
+  private final MessageWriter writer;
   private final Socket socket;
   private final SecretKey aesKey;
+  private final ConnectionMetrics metrics;
+  private final long createdNanos = System.nanoTime();
+  private final LongAdder receivedMessages = new LongAdder();
+  private final LongAdder sentMessages = new LongAdder();
+  private final AtomicBoolean isClosing = new AtomicBoolean();
+  private volatile long lastReadNanos = createdNanos;
+  private volatile long roundTripNanos = -1;
+  @Nullable
+  private volatile OutboundQueue<QueuedMessage> outboundQueue;
+  private volatile boolean isBatchingFrames;
 
   /**
    * Constructs a new Connection.
    *
    * @param name   The name of the client.
    * @param socket The socket for the connection.
-   * @param reader The BufferedReader for reading input.
-   * @param writer The PrintWriter for writing output.
+   * @param reader The MessageReader for reading input.
+   * @param writer The MessageWriter for writing output.
+   * @param metrics The metrics the traffic is recorded to.
    * @throws NullPointerException     if any of the parameters are null.
    * @throws IllegalArgumentException if the name is blank.
    */
-  private Connection(final String name, final BufferedReader reader, final PrintWriter writer,
-      final Socket socket, final SecretKey aesKey) {
+  private Connection(final String name, final MessageReader reader, final MessageWriter writer,
+      final Socket socket, final SecretKey aesKey, final ConnectionMetrics metrics) {
     Validate.notBlank(name);
     this.aesKey = aesKey;
+    this.metrics = Objects.requireNonNull(metrics);
     this.name = name;
     this.reader = reader;
     this.writer = Objects.requireNonNull(writer, "writer parameter on Connection must not be null");
@@ -61,14 +85,31 @@ public final class Connection implements AutoCloseable {
    *
    * @param name   The name of the client.
    * @param socket The socket for the connection.
+   * @param reader The reader already used by the exchanges on the socket.
+   * @param writer The writer already used by the exchanges on the socket.
    * @param aesKey The AES secret key for encryption and decryption.
    * @return A new Connection instance.
-   * @throws IOException If an I/O error occurs when creating the reader or writer.
    */
   public static Connection create(final String name, final Socket socket,
-      final SecretKey aesKey) throws IOException {
-    return new Connection(name, IoUtils.createReader(socket), IoUtils.createWriter(socket),
-        socket, aesKey);
+      final MessageReader reader, final MessageWriter writer, final SecretKey aesKey) {
+    return create(name, socket, reader, writer, aesKey, ConnectionMetrics.NONE);
+  }
+
+  /**
+   * Creates a new Connection instance that records its traffic.
+   *
+   * @param name    The name of the client.
+   * @param socket  The socket for the connection.
+   * @param reader  The reader already used by the exchanges on the socket.
+   * @param writer  The writer already used by the exchanges on the socket.
+   * @param aesKey  The AES secret key for encryption and decryption.
+   * @param metrics The metrics the traffic is recorded to.
+   * @return A new Connection instance.
+   */
+  public static Connection create(final String name, final Socket socket,
+      final MessageReader reader, final MessageWriter writer, final SecretKey aesKey,
+      final ConnectionMetrics metrics) {
+    return new Connection(name, reader, writer, socket, aesKey, metrics);
   }
 
   /**
@@ -91,13 +132,175 @@ public final class Connection implements AutoCloseable {
     return name;
   }
 
+  /**
+   * Gets the address of the entity this connection is connected to.
+   *
+   * @return the remote address of the socket.
+   */
+  public InetAddress getAddress() {
+    return socket.getInetAddress();
+  }
+
   /**
    * Reads the input stream as a stream of lines.
    *
    * @return a Stream of lines from the input.
    */
   public Stream<String> readStream(final CryptographyManager cryptographyManager) {
-    return reader.lines().map(msg -> cryptographyManager.decrypt(aesKey, msg));
+    return reader.lines()
+        .map(this::recordRead)
+        .map(msg -> decrypt(msg, cryptographyManager));
+  }
+
+  /**
+   * Reads the input stream as a stream of lines, discarding the lines rejected by the filter
+   * before they are decrypted.
+   *
+   * @param cryptographyManager the manager used to decrypt the lines.
+   * @param lineFilter          the filter applied to each encrypted line.
+   * @return a Stream of the accepted lines from the input.
+   */
+  public Stream<String> readStream(final CryptographyManager cryptographyManager,
+      final Predicate<String> lineFilter) {
+    return reader.lines()
+        .map(this::recordRead)
+        .filter(lineFilter)
+        .map(msg -> decrypt(msg, cryptographyManager));
+  }
+
+  /**
+   * Reads a single message from the input stream.
+   *
+   * @param cryptographyManager the manager used to decrypt the message.
+   * @return the decrypted transport message.
+   * @throws EOFException if the input stream ended.
+   * @throws IOException  if an I/O error occurs while reading.
+   */
+  public String readTransportMessage(final CryptographyManager cryptographyManager)
+      throws IOException {
+    final String line = reader.readLine();
+    if (null == line) {
+      throw new EOFException("The connection with " + name + " ended");
+    }
+    return decrypt(recordRead(line), cryptographyManager);
+  }
+
+  /**
+   * Gets the time elapsed since the last line was read from the input stream, or since the
+   * connection was created if no line was read yet.
+   *
+   * @return the time elapsed since the last read.
+   */
+  public Duration idleTime() {
+    return Duration.ofNanos(System.nanoTime() - lastReadNanos);
+  }
+
+  /**
+   * Gets the time elapsed since the connection was created.
+   *
+   * @return the age of the connection.
+   */
+  public Duration uptime() {
+    return Duration.ofNanos(System.nanoTime() - createdNanos);
+  }
+
+  /**
+   * Gets the number of lines read from the input stream.
+   *
+   * @return the number of received messages.
+   */
+  public long receivedMessages() {
+    return receivedMessages.sum();
+  }
+
+  /**
+   * Gets the number of messages written to the output stream.
+   *
+   * @return the number of sent messages.
+   */
+  public long sentMessages() {
+    return sentMessages.sum();
+  }
+
+  /**
+   * Records the round trip of the last heartbeat.
+   *
+   * @param nanos the time between the heartbeat and its answer.
+   */
+  public void recordRoundTrip(final long nanos) {
+    roundTripNanos = nanos;
+  }
+
+  /**
+   * Gets the round trip of the last heartbeat.
+   *
+   * @return the round trip in nanoseconds, or -1 if no heartbeat was answered yet.
+   */
+  public long roundTripNanos() {
+    return roundTripNanos;
+  }
+
+  /**
+   * Checks if the connection was closed.
+   *
+   * @return true if the connection is closing or its socket is closed.
+   */
+  public boolean isClosed() {
+    return isClosing.get() || socket.isClosed();
+  }
+
+  /**
+   * Checks whether a write to the connection failed, in which case the message being written and
+   * the later ones did not reach the other end.
+   *
+   * @return true if an I/O error occurred while writing
+   */
+  public boolean hasWriteFailed() {
+    return writer.hasFailed();
+  }
+
+  private String recordRead(final String line) {
+    lastReadNanos = System.nanoTime();
+    receivedMessages.increment();
+    metrics.recordRead(line.length() + 1);
+    return line;
+  }
+
+  private String decrypt(final String line, final CryptographyManager cryptographyManager) {
+    final DecryptEvent event = DecryptEvent.start();
+    final long startNanos = System.nanoTime();
+    final String transportMessage = cryptographyManager.decrypt(aesKey, line);
+    metrics.recordDecrypt(System.nanoTime() - startNanos);
+    event.finish(name, line.length());
+    return transportMessage;
+  }
+
+  private String encrypt(final String transportMessage,
+      final CryptographyManager cryptographyManager) {
+    final long startNanos = System.nanoTime();
+    final String line = cryptographyManager.encrypt(aesKey, transportMessage);
+    metrics.recordEncrypt(System.nanoTime() - startNanos);
+    return line;
+  }
+
+  /**
+   * Records the lines just written, or drops them if the writer failed. The lines are ASCII, so
+   * their size in bytes is their length.
+   */
+  private void recordWrite(final List<String> lines, final int messages,
+      final SocketWriteEvent event, final long correlationId) {
+    long bytes = 0;
+    for (final String line : lines) {
+      bytes += line.length() + 1;
+    }
+    final boolean hasFailed = writer.hasFailed();
+    if (hasFailed) {
+      metrics.recordDroppedWrite(messages);
+    } else {
+      sentMessages.add(messages);
+      metrics.recordWrite(messages, bytes);
+    }
+    event.finish(name, correlationId, messages, bytes, hasFailed);
   }
 
   /**
@@ -106,9 +309,173 @@ public final class Connection implements AutoCloseable {
    * @param message the message to write to the output stream
    */
   public void writeOutput(final Message message, final CryptographyManager cryptographyManager) {
-    final String encryptedMessage = cryptographyManager.encrypt(aesKey,
-        message.toTransportString());
-    writer.println(encryptedMessage);
+    writeOutput(message, cryptographyManager, MessageTrace.NO_CORRELATION);
+  }
+
+  /**
+   * Writes a traced message to the output stream.
+   *
+   * @param message       the message to write to the output stream
+   * @param correlationId the correlation identifier of the message
+   * @see MessageTrace
+   */
+  public void writeOutput(final Message message, final CryptographyManager cryptographyManager,
+      final long correlationId) {
+    final SocketWriteEvent event = SocketWriteEvent.start();
+    final String encryptedMessage = encrypt(message.toTransportString(), cryptographyManager);
+    writer.writeLine(encryptedMessage);
+    recordWrite(List.of(encryptedMessage), 1, event, correlationId);
+  }
+
+  /**
+   * Starts queueing the messages to write them in batches on the given executor, the control
+   * messages ahead of the others. Until then, the queued messages are written at once by the
+   * calling thread.
+   *
+   * <p>The queued messages are held until {@link #releaseOutboundQueue()} is called, so the
+   * messages written directly meanwhile, such as the missed messages of a new client, go ahead of
+   * them.</p>
+   *
+   * @param executor    the executor the messages are written on
+   * @param flushWindow how long to wait for more messages before writing a batch
+   * @param maxBatch    the maximum number of messages written in one batch
+   * @param batchFrames whether the messages of a batch are packed in {@link BatchMessage} frames,
+   *                    which the peer must accept
+   * @see OutboundQueue
+   */
+  public void startOutboundQueue(final Executor executor, final Duration flushWindow,
+      final int maxBatch, final boolean batchFrames) {
+    isBatchingFrames = batchFrames;
+    outboundQueue = new OutboundQueue<>(executor, flushWindow, maxBatch, this::writeQueued,
+        queued -> queued.message().getType().isControl(), true);
+  }
+
+  /**
+   * Starts writing the messages queued since the outbound queue started.
+   *
+   * @see #startOutboundQueue(Executor, Duration, int, boolean)
+   */
+  public void releaseOutboundQueue() {
+    final OutboundQueue<QueuedMessage> queue = outboundQueue;
+    if (null != queue) {
+      queue.release();
+    }
+  }
+
+  /**
+   * Queues a message to be written with the other messages queued meanwhile. The message is
+   * dropped if the connection is closed.
+   *
+   * @param message       the message to write to the output stream
+   * @param correlationId the correlation identifier of the message
+   * @see #startOutboundQueue(Executor, Duration, int, boolean)
+   */
+  public void queueOutput(final Message message, final CryptographyManager cryptographyManager,
+      final long correlationId) {
+    final OutboundQueue<QueuedMessage> queue = outboundQueue;
+    if (null == queue) {
+      writeOutput(message, cryptographyManager, correlationId);
+      return;
+    }
+    if (isClosed()) {
+      metrics.recordDroppedWrite(1);
+      return;
+    }
+    metrics.recordQueued(1);
+    try {
+      queue.offer(new QueuedMessage(message, cryptographyManager, correlationId));
+    } catch (final RuntimeException e) {
+      metrics.recordDequeued(1);
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the number of messages queued and not written yet.
+   *
+   * @return the depth of the outbound queue.
+   */
+  public int pendingOutput() {
+    final OutboundQueue<QueuedMessage> queue = outboundQueue;
+    return null == queue ? 0 : queue.size();
+  }
+
+  /**
+   * Encrypts and writes a batch of queued messages, flushing the output stream once. The flight
+   * recorder event of the batch has the correlation identifier of its first message.
+   */
+  private void writeQueued(final List<QueuedMessage> batch) {
+    final SocketWriteEvent event = SocketWriteEvent.start();
+    final List<String> encryptedMessages = new ArrayList<>(batch.size());
+    try {
+      if (isBatchingFrames && 1 < batch.size()) {
+        encryptFrames(batch, encryptedMessages);
+      } else {
+        for (final QueuedMessage queued : batch) {
+          encryptedMessages.add(encrypt(queued.message().toTransportString(),
+              queued.cryptographyManager()));
+        }
+      }
+      writer.writeLines(encryptedMessages);
+    } finally {
+      metrics.recordDequeued(batch.size());
+    }
+    recordWrite(encryptedMessages, batch.size(), event, batch.getFirst().correlationId());
+  }
+
+  /**
+   * Packs the queued messages in as few {@link BatchMessage} frames as the maximum frame length
+   * allows, and encrypts each frame as a single line. A frame of a single message is encrypted as
+   * that message.
+   */
+  private void encryptFrames(final List<QueuedMessage> batch,
+      final List<String> encryptedMessages) {
+    final CryptographyManager cryptographyManager = batch.getFirst().cryptographyManager();
+    final List<String> frame = new ArrayList<>(batch.size());
+    int frameLength = 0;
+    for (final QueuedMessage queued : batch) {
+      final String transportMessage = queued.message().toTransportString();
+      if (!frame.isEmpty() && MAX_BATCH_FRAME_LENGTH < frameLength + transportMessage.length()) {
+        encryptedMessages.add(encrypt(toFrame(frame), cryptographyManager));
+        frame.clear();
+        frameLength = 0;
+      }
+      frame.add(transportMessage);
+      frameLength += transportMessage.length();
+    }
+    encryptedMessages.add(encrypt(toFrame(frame), cryptographyManager));
+  }
+
+  private static String toFrame(final List<String> transportMessages) {
+    return 1 == transportMessages.size()
+        ? transportMessages.getFirst()
+        : new BatchMessage(transportMessages).toTransportString();
+  }
+
+  /**
+   * Writes several messages, already encoded as transport strings, flushing the output stream
+   * only once after all of them were written.
+   *
+   * @param transportMessages the messages to write to the output stream
+   */
+  public void writeTransportMessages(final List<String> transportMessages,
+      final CryptographyManager cryptographyManager) {
+    final SocketWriteEvent event = SocketWriteEvent.start();
+    final List<String> encryptedMessages = transportMessages.stream()
+        .map(transportMessage -> encrypt(transportMessage, cryptographyManager))
+        .toList();
+    writer.writeLines(encryptedMessages);
+    recordWrite(encryptedMessages, encryptedMessages.size(), event, MessageTrace.NO_CORRELATION);
+  }
+
+  /**
+   * Gets the time since the write in progress, if any, last made progress. A write stalls when
+   * the peer stops reading and the socket buffers are full.
+   *
+   * @return the duration of the stall, zero if no write is in progress
+   */
+  public Duration writeStall() {
+    return writer.stalledFor();
   }
 
   /**
@@ -118,6 +485,19 @@ public final class Connection implements AutoCloseable {
    */
   @Override
   public void close() {
+    closeIfOpen();
+  }
+
+  /**
+   * Closes the connection unless it is already closing. Closing the socket also ends the read and
+   * the write in progress.
+   *
+   * @return true if this call closed the connection, false if it was already closing
+   */
+  public boolean closeIfOpen() {
+    if (!isClosing.compareAndSet(false, true)) {
+      return false;
+    }
     try {
       writer.close();
       reader.close();
@@ -125,5 +505,14 @@ public final class Connection implements AutoCloseable {
     } catch (final IOException e) {
       LOGGER.error("Error closing the connection: {}", e, e);
     }
+    return true;
+  }
+
+  /**
+   * A message waiting in the outbound queue.
+   */
+  private record QueuedMessage(Message message, CryptographyManager cryptographyManager,
+                               long correlationId) {
+
   }
-}
\ No newline at end of file
+}
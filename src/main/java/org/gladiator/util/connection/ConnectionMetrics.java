@@ -0,0 +1,73 @@
+package org.gladiator.util.connection;
+
+/**
+ * Receives the measurements of the traffic of connections. The methods are called on the reading
+ * and writing threads of every connection, so the implementations must be thread-safe and cheap.
+ *
+ * @see Connection
+ */
+public interface ConnectionMetrics {
+
+  /**
+   * The metrics that discard every measurement, for the connections nobody monitors.
+   */
+  ConnectionMetrics NONE = new ConnectionMetrics() {
+  };
+
+  /**
+   * Records a line read from a connection.
+   *
+   * @param bytes the size of the line, including the line terminator
+   */
+  default void recordRead(final int bytes) {
+  }
+
+  /**
+   * Records the decryption of a line read.
+   *
+   * @param nanos the duration of the decryption
+   */
+  default void recordDecrypt(final long nanos) {
+  }
+
+  /**
+   * Records messages written to a connection.
+   *
+   * @param messages the number of messages written
+   * @param bytes    the size of the written lines, including the line terminators
+   */
+  default void recordWrite(final int messages, final long bytes) {
+  }
+
+  /**
+   * Records the encryption of a message to write.
+   *
+   * @param nanos the duration of the encryption
+   */
+  default void recordEncrypt(final long nanos) {
+  }
+
+  /**
+   * Records messages queued to be written to a connection.
+   *
+   * @param messages the number of messages queued
+   */
+  default void recordQueued(final int messages) {
+  }
+
+  /**
+   * Records queued messages taken from the queue to be written or dropped.
+   *
+   * @param messages the number of messages taken from the queue
+   */
+  default void recordDequeued(final int messages) {
+  }
+
+  /**
+   * Records messages that could not be written, because the connection failed.
+   *
+   * @param messages the number of messages dropped
+   */
+  default void recordDroppedWrite(final int messages) {
+  }
+}
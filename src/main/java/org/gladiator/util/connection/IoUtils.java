@@ -1,15 +1,12 @@
 package org.gladiator.util.connection;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
-import java.io.PrintWriter;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
+import java.nio.channels.SocketChannel;
 
 /**
  * Utility class for creating I/O streams in a default way. This class provides static methods to
@@ -18,6 +15,13 @@ import java.nio.charset.StandardCharsets;
  */
 public final class IoUtils {
 
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int BUFFERS_PER_SLAB = 64;
+  private static final int MAX_SLABS = 16;
+  private static final String LEAK_DETECTION_PROPERTY = "gladiator.bufferLeakDetection";
+  private static final BufferPool BUFFER_POOL = new BufferPool(BUFFER_SIZE, BUFFERS_PER_SLAB,
+      MAX_SLABS, Boolean.getBoolean(LEAK_DETECTION_PROPERTY));
+
   /**
    * Private constructor to prevent instantiation.
    */
@@ -25,25 +29,44 @@ public final class IoUtils {
   }
 
   /**
-   * Creates a PrintWriter for the given socket.
+   * Creates a MessageWriter for the channel of the given socket, sharing the buffer pool of all
+   * connections.
+   *
+   * @param socket The socket for which the MessageWriter is created, opened from a channel.
+   * @return A MessageWriter for the socket.
+   * @throws IOException If the socket has no channel.
+   */
+  public static MessageWriter createWriter(final Socket socket) throws IOException {
+    return new MessageWriter(getChannel(socket), BUFFER_POOL);
+  }
+
+  /**
+   * Creates a MessageReader for the channel of the given socket, sharing the buffer pool of all
+   * connections.
    *
-   * @param socket The socket for which the PrintWriter is created.
-   * @throws IOException If an I/O error occurs when creating the PrintWriter.
+   * @param socket The socket for which the MessageReader is created, opened from a channel.
+   * @return A MessageReader for the socket.
+   * @throws IOException If the socket has no channel.
    */
-  public static PrintWriter createWriter(final Socket socket) throws IOException {
-    return new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+  public static MessageReader createReader(final Socket socket) throws IOException {
+    return new MessageReader(getChannel(socket), BUFFER_POOL);
   }
 
   /**
-   * Creates a BufferedReader for the given socket.
+   * Gets the number of buffers allocated outside the shared buffer pool because it was exhausted.
    *
-   * @param socket The socket for which the BufferedReader is created.
-   * @return A BufferedReader for the socket.
-   * @throws IOException If an I/O error occurs when creating the BufferedReader.
+   * @return the number of fallback allocations of the buffer pool
    */
-  public static BufferedReader createReader(final Socket socket) throws IOException {
-    return new BufferedReader(
-        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+  public static long bufferPoolFallbacks() {
+    return BUFFER_POOL.fallbackAllocations();
+  }
+
+  private static SocketChannel getChannel(final Socket socket) throws IOException {
+    final SocketChannel channel = socket.getChannel();
+    if (null == channel) {
+      throw new IOException("The socket was not opened from a channel");
+    }
+    return channel;
   }
 
   /**
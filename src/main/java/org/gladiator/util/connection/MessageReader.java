@@ -0,0 +1,247 @@
+package org.gladiator.util.connection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.annotation.Nullable;
+import org.gladiator.util.connection.BufferPool.PooledBuffer;
+
+/**
+ * Reads UTF-8 lines from a blocking socket channel.
+ *
+ * <p>Unlike {@link java.io.BufferedReader}, it never blocks while holding a monitor, only a
+ * {@link ReentrantLock}, so a virtual thread waiting for a line does not pin its carrier thread.
+ * The bytes are decoded only once a whole line was read, so no character decoder is kept.</p>
+ *
+ * <p>The channel reads into a direct buffer taken from a {@link BufferPool} only while a line is
+ * being read, and given back once every read byte was consumed. An idle reader waits for the
+ * first byte of the next line in a single byte buffer, so an idle connection holds no pooled
+ * buffer at all. A line longer than the pooled buffer is gathered on the heap.</p>
+ */
+public final class MessageReader implements AutoCloseable {
+
+  private static final int MAX_LINE_LENGTH = 1024 * 1024;
+
+  private final ByteChannel channel;
+  private final BufferPool bufferPool;
+  private final ByteBuffer firstByte = ByteBuffer.allocateDirect(1);
+  private final Lock lock = new ReentrantLock();
+  @Nullable
+  private PooledBuffer pooledBuffer;
+  private int start;
+  private int end;
+  @Nullable
+  private byte[] overflow;
+  private int overflowLength;
+
+  /**
+   * Constructs a new MessageReader.
+   *
+   * @param channel    the blocking channel of the socket
+   * @param bufferPool the pool the buffer is taken from while reading
+   */
+  public MessageReader(final ByteChannel channel, final BufferPool bufferPool) {
+    this.channel = channel;
+    this.bufferPool = bufferPool;
+  }
+
+  /**
+   * Reads a line, which may end with a line feed or a carriage return followed by a line feed.
+   *
+   * @return the line read without the line terminator, or null if the stream ended
+   * @throws IOException if an I/O error occurs or the line is longer than the maximum allowed
+   */
+  @Nullable
+  public String readLine() throws IOException {
+    lock.lock();
+    try {
+      int searchFrom = start;
+      while (true) {
+        final PooledBuffer pooled = pooledBuffer;
+        if (null != pooled) {
+          final ByteBuffer data = pooled.buffer();
+          final int lineFeed = indexOfLineFeed(data, searchFrom);
+          if (0 <= lineFeed) {
+            return takeLine(data, lineFeed);
+          }
+          if (end == data.capacity()) {
+            makeRoom(data);
+          }
+        }
+
+        searchFrom = end;
+        if (!fill()) {
+          return takeRemaining();
+        }
+      }
+    } finally {
+      releaseIfConsumed();
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Reads the stream as a lazily populated stream of lines.
+   *
+   * @return a Stream of the lines, which throws {@link UncheckedIOException} if an I/O error
+   *     occurs
+   */
+  public Stream<String> lines() {
+    final Iterator<String> iterator = new Iterator<>() {
+      @Nullable
+      private String nextLine;
+
+      @Override
+      public boolean hasNext() {
+        if (null != nextLine) {
+          return true;
+        }
+        try {
+          nextLine = readLine();
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return null != nextLine;
+      }
+
+      @Override
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final String line = Objects.requireNonNull(nextLine);
+        nextLine = null;
+        return line;
+      }
+    };
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  private int indexOfLineFeed(final ByteBuffer data, final int from) {
+    for (int i = from; i < end; i++) {
+      if ('\n' == data.get(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Frees the end of a full buffer, by moving the unread bytes to its beginning or, if it holds
+   * the beginning of a single line, by moving the whole buffer to the heap overflow.
+   */
+  private void makeRoom(final ByteBuffer data) throws IOException {
+    if (0 < start) {
+      data.limit(end).position(start);
+      data.compact();
+      end -= start;
+      start = 0;
+      return;
+    }
+
+    if (MAX_LINE_LENGTH < overflowLength + end) {
+      throw new IOException("Line longer than " + MAX_LINE_LENGTH + " bytes");
+    }
+    byte[] bytes = overflow;
+    if (null == bytes) {
+      bytes = new byte[2 * end];
+    } else if (bytes.length < overflowLength + end) {
+      bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, overflowLength + end));
+    }
+    data.get(0, bytes, overflowLength, end);
+    overflow = bytes;
+    overflowLength += end;
+    end = 0;
+  }
+
+  /**
+   * Reads more bytes from the channel. Without a buffer, it blocks for a single byte and only then
+   * takes a buffer from the pool.
+   *
+   * @return false if the stream ended
+   */
+  private boolean fill() throws IOException {
+    final PooledBuffer pooled = pooledBuffer;
+    if (null == pooled) {
+      firstByte.clear();
+      if (0 > channel.read(firstByte)) {
+        return false;
+      }
+      final PooledBuffer acquired = bufferPool.acquire();
+      acquired.buffer().put(0, firstByte.get(0));
+      pooledBuffer = acquired;
+      start = 0;
+      end = 1;
+      return true;
+    }
+
+    final ByteBuffer data = pooled.buffer();
+    data.limit(data.capacity()).position(end);
+    final int read = channel.read(data);
+    if (0 > read) {
+      return false;
+    }
+    end += read;
+    return true;
+  }
+
+  private String takeLine(final ByteBuffer data, final int lineFeed) {
+    final int length = overflowLength + lineFeed - start;
+    final byte[] bytes = null == overflow ? new byte[length] : Arrays.copyOf(overflow, length);
+    data.get(start, bytes, overflowLength, lineFeed - start);
+    final int lineLength = 0 < length && '\r' == bytes[length - 1] ? length - 1 : length;
+    start = lineFeed + 1;
+    overflow = null;
+    overflowLength = 0;
+    return new String(bytes, 0, lineLength, StandardCharsets.UTF_8);
+  }
+
+  @Nullable
+  private String takeRemaining() {
+    final PooledBuffer pooled = pooledBuffer;
+    final int length = overflowLength + end - start;
+    if (0 == length) {
+      return null;
+    }
+    final byte[] bytes = null == overflow ? new byte[length] : Arrays.copyOf(overflow, length);
+    if (null != pooled) {
+      pooled.buffer().get(start, bytes, overflowLength, end - start);
+    }
+    start = end;
+    overflow = null;
+    overflowLength = 0;
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gives the buffer back to the pool when every byte read from the channel was consumed, or when
+   * the channel was closed, as the unread bytes can no longer be used.
+   */
+  private void releaseIfConsumed() {
+    final PooledBuffer pooled = pooledBuffer;
+    if (null != pooled && (start == end || !channel.isOpen())) {
+      pooled.close();
+      pooledBuffer = null;
+      start = 0;
+      end = 0;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,161 @@
+package org.gladiator.util.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.gladiator.util.connection.BufferPool.PooledBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes UTF-8 lines to a blocking socket channel, each call is written with a single write to the
+ * channel unless the lines do not fit in a pooled buffer.
+ *
+ * <p>Unlike {@link java.io.PrintWriter}, it never blocks while holding a monitor, only a
+ * {@link ReentrantLock}, so a virtual thread writing to a slow peer does not pin its carrier
+ * thread. Like {@link java.io.PrintWriter}, it does not throw I/O errors, they are recorded and
+ * can be checked with {@link #hasFailed()}.</p>
+ *
+ * <p>The lines are encoded straight into a direct buffer taken from a {@link BufferPool} for the
+ * duration of each write, so the channel writes it without another copy and an idle writer holds
+ * no buffer.</p>
+ *
+ * <p>A write to a peer that stopped reading blocks once the socket buffers are full. The time since
+ * a write in progress last made progress is reported by {@link #stalledFor()}, so the stalled
+ * writes can be detected and their socket closed, which ends them.</p>
+ */
+public final class MessageWriter implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MessageWriter.class);
+
+  private final ByteChannel channel;
+  private final BufferPool bufferPool;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private final Lock lock = new ReentrantLock();
+  private volatile boolean hasFailed;
+  private volatile boolean isWriting;
+  private volatile long lastProgressNanos;
+
+  /**
+   * Constructs a new MessageWriter.
+   *
+   * @param channel    the blocking channel of the socket
+   * @param bufferPool the pool the buffer is taken from while writing
+   */
+  public MessageWriter(final ByteChannel channel, final BufferPool bufferPool) {
+    this.channel = channel;
+    this.bufferPool = bufferPool;
+  }
+
+  /**
+   * Writes a line followed by a line feed.
+   *
+   * @param line the line to write, without the line terminator
+   */
+  public void writeLine(final String line) {
+    writeLines(List.of(line));
+  }
+
+  /**
+   * Writes several lines, each one followed by a line feed, with as few writes to the channel as
+   * the pooled buffer allows.
+   *
+   * @param lines the lines to write, without the line terminators
+   */
+  public void writeLines(final List<String> lines) {
+    lock.lock();
+    lastProgressNanos = System.nanoTime();
+    isWriting = true;
+    try (PooledBuffer pooledBuffer = bufferPool.acquire()) {
+      final ByteBuffer buffer = pooledBuffer.buffer();
+      for (final String line : lines) {
+        encode(line, buffer);
+        if (!buffer.hasRemaining()) {
+          drain(buffer);
+        }
+        buffer.put((byte) '\n');
+      }
+      drain(buffer);
+    } catch (final IOException e) {
+      hasFailed = true;
+      LOGGER.debug("Error writing to the socket", e);
+    } finally {
+      isWriting = false;
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Encodes a line in the buffer, writing the buffer to the channel whenever it is full.
+   */
+  private void encode(final String line, final ByteBuffer buffer) throws IOException {
+    final CharBuffer chars = CharBuffer.wrap(line);
+    encoder.reset();
+    CoderResult result = encoder.encode(chars, buffer, true);
+    while (!result.isUnderflow()) {
+      throwIfError(result);
+      drain(buffer);
+      result = encoder.encode(chars, buffer, true);
+    }
+    result = encoder.flush(buffer);
+    while (!result.isUnderflow()) {
+      throwIfError(result);
+      drain(buffer);
+      result = encoder.flush(buffer);
+    }
+  }
+
+  private static void throwIfError(final CoderResult result) throws CharacterCodingException {
+    if (result.isError()) {
+      result.throwException();
+    }
+  }
+
+  /**
+   * Writes the content of the buffer to the channel and clears it.
+   */
+  private void drain(final ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      if (0 < channel.write(buffer)) {
+        lastProgressNanos = System.nanoTime();
+      }
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Gets the time since the write in progress last wrote anything to the channel.
+   *
+   * @return the duration of the stall, zero if no write is in progress
+   */
+  public Duration stalledFor() {
+    return isWriting ? Duration.ofNanos(System.nanoTime() - lastProgressNanos) : Duration.ZERO;
+  }
+
+  /**
+   * Checks if any write failed.
+   *
+   * @return true if an I/O error occurred while writing
+   */
+  public boolean hasFailed() {
+    return hasFailed;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
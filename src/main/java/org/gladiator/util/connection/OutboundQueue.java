@@ -0,0 +1,175 @@
+package org.gladiator.util.connection;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Queue of the items to write to a connection, drained by a single task at a time, so everything
+ * queued meanwhile is written in one batch.
+ *
+ * <p>The items are queued in two lanes: the control items, such as heartbeats and presence
+ * updates, are written ahead of the bulk items, such as chat messages, so they stay timely while
+ * the connection is saturated. Each lane keeps its order. A quarter of every batch is kept for the
+ * bulk items waiting, so a flood of control items cannot starve them.</p>
+ *
+ * <p>The drain task starts when the first item is queued. It can wait for a flush window first,
+ * trading a little latency for bigger batches and fewer system calls. Any number of threads can
+ * queue items without locking.</p>
+ *
+ * <p>A queue can start held: its items are kept until it is released, so something written to the
+ * connection meanwhile goes ahead of them.</p>
+ *
+ * @param <T> the type of the queued items
+ */
+public final class OutboundQueue<T> {
+
+  private static final int BULK_SHARE_DIVISOR = 4;
+
+  private final Queue<T> controlItems = new ConcurrentLinkedQueue<>();
+  private final Queue<T> bulkItems = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicBoolean isDraining = new AtomicBoolean();
+  private final AtomicBoolean isHeld;
+  private final Executor executor;
+  private final Duration flushWindow;
+  private final int maxBatch;
+  private final Consumer<List<T>> batchWriter;
+  private final Predicate<? super T> isControl;
+
+  /**
+   * Constructs a new OutboundQueue.
+   *
+   * @param executor    the executor the drain task runs on
+   * @param flushWindow how long the drain task waits for more items before writing, zero to write
+   *                    at once
+   * @param maxBatch    the maximum number of items written in one batch
+   * @param batchWriter writes a batch of items, the control items first
+   * @param isControl   tells the control items from the bulk items
+   * @param isHeld      whether the items are kept until {@link #release()} is called
+   * @throws IllegalArgumentException if the flush window is negative or the maximum batch is not
+   *                                  positive
+   */
+  public OutboundQueue(final Executor executor, final Duration flushWindow, final int maxBatch,
+      final Consumer<List<T>> batchWriter, final Predicate<? super T> isControl,
+      final boolean isHeld) {
+    Validate.isTrue(!flushWindow.isNegative(), "The flush window must not be negative");
+    Validate.isTrue(0 < maxBatch, "The maximum batch must be positive");
+    this.executor = Objects.requireNonNull(executor);
+    this.flushWindow = flushWindow;
+    this.maxBatch = maxBatch;
+    this.batchWriter = Objects.requireNonNull(batchWriter);
+    this.isControl = Objects.requireNonNull(isControl);
+    this.isHeld = new AtomicBoolean(isHeld);
+  }
+
+  /**
+   * Queues an item in its lane and starts the drain task if it is not running, unless the queue
+   * is held.
+   *
+   * @param item the item to write
+   * @throws java.util.concurrent.RejectedExecutionException if the drain task cannot start, the
+   *                                                         item stays queued
+   */
+  public void offer(final T item) {
+    (isControl.test(item) ? controlItems : bulkItems).add(item);
+    size.incrementAndGet();
+    startDrain();
+  }
+
+  /**
+   * Releases a held queue, starting the drain task if items were queued meanwhile.
+   *
+   * @throws java.util.concurrent.RejectedExecutionException if the drain task cannot start, the
+   *                                                         items stay queued
+   */
+  public void release() {
+    if (isHeld.compareAndSet(true, false) && isPending()) {
+      startDrain();
+    }
+  }
+
+  private void startDrain() {
+    if (!isHeld.get() && isDraining.compareAndSet(false, true)) {
+      try {
+        executor.execute(this::drain);
+      } catch (final RuntimeException e) {
+        isDraining.set(false);
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of items waiting to be written.
+   *
+   * @return the depth of the queue
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Writes the queued items in batches until the queue is empty. An item queued after the last
+   * poll but before the task stopped draining is written by this task too, or starts a new one.
+   */
+  private void drain() {
+    if (flushWindow.isPositive()) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(flushWindow.toNanos());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    do {
+      try {
+        List<T> batch = pollBatch();
+        while (!batch.isEmpty()) {
+          batchWriter.accept(batch);
+          batch = pollBatch();
+        }
+      } finally {
+        isDraining.set(false);
+      }
+    } while (isPending() && isDraining.compareAndSet(false, true));
+  }
+
+  private boolean isPending() {
+    return !controlItems.isEmpty() || !bulkItems.isEmpty();
+  }
+
+  /**
+   * Polls the next batch: the control items first, short of the share kept for the bulk items if
+   * any are waiting, then the bulk items, then the control items again if there is room left.
+   */
+  private List<T> pollBatch() {
+    final List<T> batch = new ArrayList<>(Math.min(maxBatch, Math.max(1, size.get())));
+    final int controlLimit = bulkItems.isEmpty()
+        ? maxBatch
+        : maxBatch - maxBatch / BULK_SHARE_DIVISOR;
+    pollInto(batch, controlItems, controlLimit);
+    pollInto(batch, bulkItems, maxBatch);
+    pollInto(batch, controlItems, maxBatch);
+    size.addAndGet(-batch.size());
+    return batch;
+  }
+
+  private static <T> void pollInto(final List<T> batch, final Queue<T> lane, final int limit) {
+    T item = batch.size() < limit ? lane.poll() : null;
+    while (null != item) {
+      batch.add(item);
+      item = batch.size() < limit ? lane.poll() : null;
+    }
+  }
+}
@@ -1,16 +1,15 @@
 package org.gladiator.util.connection.exchange;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.io.UncheckedIOException;
-import java.net.Socket;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 import javax.crypto.SecretKey;
 import org.gladiator.exception.FailedExchangeException;
-import org.gladiator.util.connection.IoUtils;
+import org.gladiator.util.connection.MessageReader;
+import org.gladiator.util.connection.MessageWriter;
 import org.gladiator.util.crypto.CryptographyManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,7 +21,8 @@ public class NameExchange {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NameExchange.class);
 
-  private final Socket socket;
+  private final MessageReader reader;
+  private final MessageWriter writer;
   private final SecretKey aesKey;
   private final CryptographyManager cryptographyManager;
   private final String ownName;
@@ -31,17 +31,23 @@ public class NameExchange {
   /**
    * Constructs a NameExchange with the specified parameters.
    *
-   * @param socket              The socket for the exchange.
+   * <p>The reader and writer must be the same ones used afterward by the connection, so no line
+   * received right after the name is lost in the buffer of a discarded reader.</p>
+   *
+   * @param reader              The reader of the socket for the exchange.
+   * @param writer              The writer of the socket for the exchange.
    * @param aesKey              The AES secret key for encryption/decryption.
    * @param cryptographyManager The manager for cryptographic operations.
    * @param ownName             The name to be sent to the other endpoint.
    * @param executor            The executor service for asynchronous operations.
    */
-  public NameExchange(final Socket socket, final SecretKey aesKey,
-      final CryptographyManager cryptographyManager, final String ownName,
+  public NameExchange(final MessageReader reader, final MessageWriter writer,
+      final SecretKey aesKey, final CryptographyManager cryptographyManager, final String ownName,
       final ExecutorService executor) {
-    this.socket = Objects.requireNonNull(socket,
-        "The socket of the name exchange must not be null");
+    this.reader = Objects.requireNonNull(reader,
+        "The reader of the name exchange must not be null");
+    this.writer = Objects.requireNonNull(writer,
+        "The writer of the name exchange must not be null");
     this.aesKey = aesKey;
     this.cryptographyManager = cryptographyManager;
     this.ownName = ownName;
@@ -56,9 +62,6 @@ public class NameExchange {
    */
   public String exchange() throws FailedExchangeException {
     try {
-      final PrintWriter writer = IoUtils.createWriter(socket);
-      final BufferedReader reader = IoUtils.createReader(socket);
-
       final CompletableFuture<Void> sendOwnNameFuture = CompletableFuture.runAsync(
           () -> sendName(writer), executor);
 
@@ -68,7 +71,7 @@ public class NameExchange {
       CompletableFuture.allOf(sendOwnNameFuture, receiveNameFuture).join();
       return receiveNameFuture.join();
 
-    } catch (final IOException | UncheckedIOException e) {
+    } catch (final CompletionException | UncheckedIOException e) {
       throw new FailedExchangeException(e);
     }
   }
@@ -76,12 +79,12 @@ public class NameExchange {
   /**
    * Sends the own name to the other endpoint.
    *
-   * @param writer The PrintWriter to send the name.
+   * @param writer The MessageWriter to send the name.
    */
-  private void sendName(final PrintWriter writer) {
+  private void sendName(final MessageWriter writer) {
     final String encryptedOwnName = cryptographyManager.encrypt(aesKey,
         ownName);
-    writer.println(encryptedOwnName);
+    writer.writeLine(encryptedOwnName);
     final String logMessage = "Sent name " + ownName;
     LOGGER.debug(logMessage);
   }
@@ -89,10 +92,10 @@ public class NameExchange {
   /**
    * Receives the name from the other endpoint.
    *
-   * @param reader The BufferedReader to read the name.
+   * @param reader The MessageReader to read the name.
    * @return The decrypted name received from the other endpoint.
    */
-  private String receiveName(final BufferedReader reader) {
+  private String receiveName(final MessageReader reader) {
     final String otherEndName;
     try {
       final String encryptedOtherEndName = Objects.requireNonNull(reader.readLine(),
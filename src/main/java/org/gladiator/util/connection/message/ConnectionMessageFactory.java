@@ -2,10 +2,17 @@ package org.gladiator.util.connection.message;
 
 
 import org.gladiator.exception.InvalidMessageException;
+import org.gladiator.util.connection.message.model.BatchMessage;
 import org.gladiator.util.connection.message.model.DisconnectMessage;
 import org.gladiator.util.connection.message.model.Message;
 import org.gladiator.util.connection.message.model.NewConnectionMessage;
+import org.gladiator.util.connection.message.model.PingMessage;
+import org.gladiator.util.connection.message.model.PongMessage;
+import org.gladiator.util.connection.message.model.PresenceMessage;
+import org.gladiator.util.connection.message.model.SearchMessage;
+import org.gladiator.util.connection.message.model.SearchResultMessage;
 import org.gladiator.util.connection.message.model.SimpleMessage;
+import org.gladiator.util.connection.message.model.SyncMessage;
 
 /**
  * Factory class for creating {@link Message} instances from transport messages.
@@ -35,6 +42,13 @@ public final class ConnectionMessageFactory {
         case SIMPLE -> SimpleMessage.fromTransportString(transportMessage);
         case NEW_CONNECTION -> NewConnectionMessage.fromTransportString(transportMessage);
         case DISCONNECTION -> DisconnectMessage.fromTransportString(transportMessage);
+        case PRESENCE -> PresenceMessage.fromTransportString(transportMessage);
+        case SYNC -> SyncMessage.fromTransportString(transportMessage);
+        case SEARCH -> SearchMessage.fromTransportString(transportMessage);
+        case SEARCH_RESULT -> SearchResultMessage.fromTransportString(transportMessage);
+        case PING -> PingMessage.fromTransportString(transportMessage);
+        case PONG -> PongMessage.fromTransportString(transportMessage);
+        case BATCH -> BatchMessage.fromTransportString(transportMessage);
       };
     } catch (final IllegalArgumentException e) {
       throw new InvalidMessageException(transportMessage, e);
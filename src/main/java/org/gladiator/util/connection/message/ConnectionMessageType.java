@@ -1,33 +1,72 @@
 package org.gladiator.util.connection.message;
 
 /**
- * Enum representing the types of connection messages.
+ * Enum representing the types of connection messages. The control messages are written ahead of
+ * the others when a connection has a backlog.
  */
 public enum ConnectionMessageType {
   /**
    * Represents a simple message type.
    */
-  SIMPLE(false),
+  SIMPLE(false, false),
 
   /**
    * Represents a new connection message type.
    */
-  NEW_CONNECTION(true),
+  NEW_CONNECTION(true, true),
 
   /**
    * Represents a disconnection message type.
    */
-  DISCONNECTION(true);
+  DISCONNECTION(true, true),
+
+  /**
+   * Represents a digest of the users who joined or left the chat.
+   */
+  PRESENCE(true, true),
+
+  /**
+   * Represents the message a client sends to receive the chat messages it missed.
+   */
+  SYNC(false, true),
+
+  /**
+   * Represents the message a client sends to search the chat history.
+   */
+  SEARCH(false, false),
+
+  /**
+   * Represents the answer of the server to a search.
+   */
+  SEARCH_RESULT(true, false),
+
+  /**
+   * Represents the heartbeat the server sends to a quiet connection.
+   */
+  PING(true, true),
+
+  /**
+   * Represents the answer of a client to a heartbeat.
+   */
+  PONG(false, true),
+
+  /**
+   * Represents several messages the server sends to a client in a single line.
+   */
+  BATCH(true, false);
 
   private final boolean serverSentOnly;
+  private final boolean control;
 
   /**
    * Constructs a ConnectionMessageType.
    *
    * @param serverSentOnly Indicates if the message type is only sent by the server.
+   * @param control        Indicates if the message type is control traffic rather than chat.
    */
-  ConnectionMessageType(final boolean serverSentOnly) {
+  ConnectionMessageType(final boolean serverSentOnly, final boolean control) {
     this.serverSentOnly = serverSentOnly;
+    this.control = control;
   }
 
   /**
@@ -38,4 +77,14 @@ public enum ConnectionMessageType {
   public boolean isServerSentOnly() {
     return serverSentOnly;
   }
+
+  /**
+   * Checks if the message type is control traffic, such as heartbeats and presence updates,
+   * which is written ahead of the chat messages and search results.
+   *
+   * @return true if the message type is control traffic, false otherwise.
+   */
+  public boolean isControl() {
+    return control;
+  }
 }
\ No newline at end of file
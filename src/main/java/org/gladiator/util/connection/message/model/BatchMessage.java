@@ -0,0 +1,97 @@
+package org.gladiator.util.connection.message.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.ConnectionMessageType;
+
+/**
+ * Represents several messages sent to a client in a single encrypted line, so a burst pays for
+ * the initialization vector, the authentication tag and the Base64 padding once. The server only
+ * sends it to the clients that accept batches in their {@link SyncMessage}. This class is
+ * immutable and uses the record feature of Java.
+ *
+ * <p>The transport string has a header with the length of each transport string, separated by
+ * commas, followed by the transport strings themselves, so they may contain any character.</p>
+ *
+ * @param transportMessages The transport strings of the messages, in the order they were sent.
+ */
+public record BatchMessage(List<String> transportMessages) implements Message {
+
+  private static final ConnectionMessageType TYPE = ConnectionMessageType.BATCH;
+  private static final String LENGTH_SPLITTER = ",";
+  private static final Pattern HEADER_PATTERN = Pattern.compile(
+      TYPE + MESSAGE_SPLITTER + "\\d+(" + LENGTH_SPLITTER + "\\d+)*" + MESSAGE_SPLITTER);
+
+  /**
+   * Constructs a new BatchMessage.
+   *
+   * @throws NullPointerException     if the list is null.
+   * @throws IllegalArgumentException if the list is empty.
+   */
+  public BatchMessage {
+    transportMessages = List.copyOf(Objects.requireNonNull(transportMessages));
+    Validate.notEmpty(transportMessages, "A batch must have at least one message");
+  }
+
+  /**
+   * Creates a BatchMessage from a transport string.
+   *
+   * @param message The transport string.
+   * @return The created BatchMessage.
+   * @throws NullPointerException     if the message is null.
+   * @throws IllegalArgumentException if the message is blank, does not match the expected pattern
+   *                                  or the lengths do not match the messages.
+   */
+  public static Message fromTransportString(final String message) {
+    Validate.notBlank(message);
+    final String[] split = message.split(MESSAGE_SPLITTER, 3);
+    Validate.isTrue(3 == split.length && HEADER_PATTERN.matcher(message).lookingAt(),
+        "The batch header does not match the expected pattern");
+    final String[] lengths = split[1].split(LENGTH_SPLITTER, -1);
+    final String body = split[2];
+
+    final List<String> transportMessages = new ArrayList<>(lengths.length);
+    int start = 0;
+    for (final String length : lengths) {
+      final int end = start + Integer.parseInt(length);
+      Validate.isTrue(start <= end && end <= body.length(),
+          "The lengths of the batch do not match its messages");
+      transportMessages.add(body.substring(start, end));
+      start = end;
+    }
+    Validate.isTrue(body.length() == start, "The lengths of the batch do not match its messages");
+    return new BatchMessage(transportMessages);
+  }
+
+  @Override
+  public ConnectionMessageType getType() {
+    return TYPE;
+  }
+
+  @Override
+  public String toTransportString() {
+    final StringBuilder builder = new StringBuilder().append(TYPE).append(MESSAGE_SPLITTER);
+    for (int i = 0; i < transportMessages.size(); i++) {
+      if (0 < i) {
+        builder.append(LENGTH_SPLITTER);
+      }
+      builder.append(transportMessages.get(i).length());
+    }
+    builder.append(MESSAGE_SPLITTER);
+    transportMessages.forEach(builder::append);
+    return builder.toString();
+  }
+
+  /**
+   * Returns a string representation of the message that is meant to be displayed on the screen.
+   *
+   * @return The string representation of the message.
+   */
+  @Override
+  public String toString() {
+    return "Batch of " + transportMessages.size() + " messages";
+  }
+}
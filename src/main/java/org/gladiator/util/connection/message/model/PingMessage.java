@@ -0,0 +1,51 @@
+package org.gladiator.util.connection.message.model;
+
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.ConnectionMessageType;
+
+/**
+ * Represents the heartbeat the server sends to a connection that has been quiet, which the client
+ * answers with a {@link PongMessage}. This class is immutable and uses the record feature of Java.
+ *
+ * @param timestamp The server time, in nanoseconds, when the heartbeat was sent.
+ */
+public record PingMessage(long timestamp) implements Message {
+
+  private static final ConnectionMessageType TYPE = ConnectionMessageType.PING;
+
+  /**
+   * Creates a PingMessage from a transport string.
+   *
+   * @param message The transport string.
+   * @return The created PingMessage.
+   * @throws NullPointerException     if the message is null.
+   * @throws IllegalArgumentException if the message is blank or does not match the expected
+   *                                  pattern.
+   */
+  public static Message fromTransportString(final String message) {
+    Validate.notBlank(message);
+    Validate.matchesPattern(message, TYPE + MESSAGE_SPLITTER + "(-?\\d+)");
+    final String[] split = message.split(MESSAGE_SPLITTER, 2);
+    return new PingMessage(Long.parseLong(split[1]));
+  }
+
+  @Override
+  public ConnectionMessageType getType() {
+    return TYPE;
+  }
+
+  @Override
+  public String toTransportString() {
+    return TYPE + MESSAGE_SPLITTER + timestamp;
+  }
+
+  /**
+   * Returns a string representation of the message that is meant to be displayed on the screen.
+   *
+   * @return The string representation of the message.
+   */
+  @Override
+  public String toString() {
+    return "Heartbeat " + timestamp;
+  }
+}
@@ -0,0 +1,51 @@
+package org.gladiator.util.connection.message.model;
+
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.ConnectionMessageType;
+
+/**
+ * Represents the answer of a client to a {@link PingMessage}. This class is immutable and uses the
+ * record feature of Java.
+ *
+ * @param timestamp The timestamp of the answered heartbeat.
+ */
+public record PongMessage(long timestamp) implements Message {
+
+  private static final ConnectionMessageType TYPE = ConnectionMessageType.PONG;
+
+  /**
+   * Creates a PongMessage from a transport string.
+   *
+   * @param message The transport string.
+   * @return The created PongMessage.
+   * @throws NullPointerException     if the message is null.
+   * @throws IllegalArgumentException if the message is blank or does not match the expected
+   *                                  pattern.
+   */
+  public static Message fromTransportString(final String message) {
+    Validate.notBlank(message);
+    Validate.matchesPattern(message, TYPE + MESSAGE_SPLITTER + "(-?\\d+)");
+    final String[] split = message.split(MESSAGE_SPLITTER, 2);
+    return new PongMessage(Long.parseLong(split[1]));
+  }
+
+  @Override
+  public ConnectionMessageType getType() {
+    return TYPE;
+  }
+
+  @Override
+  public String toTransportString() {
+    return TYPE + MESSAGE_SPLITTER + timestamp;
+  }
+
+  /**
+   * Returns a string representation of the message that is meant to be displayed on the screen.
+   *
+   * @return The string representation of the message.
+   */
+  @Override
+  public String toString() {
+    return "Heartbeat answer " + timestamp;
+  }
+}
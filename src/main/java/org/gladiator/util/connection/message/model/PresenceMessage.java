@@ -0,0 +1,115 @@
+package org.gladiator.util.connection.message.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.ConnectionMessageType;
+
+/**
+ * Represents a digest of the users who joined or left the chat within a short window, sent
+ * instead of one {@link NewConnectionMessage} or {@link DisconnectMessage} per user. This class is
+ * immutable and uses the record feature of Java.
+ *
+ * <p>The transport string has a header line with the counts and the number of listed joined
+ * users, followed by one line with the name of each listed user, the joined ones first.</p>
+ *
+ * @param joinedCount The number of users who joined.
+ * @param leftCount   The number of users who left.
+ * @param joined      Some of the users who joined, at most the joined count.
+ * @param left        Some of the users who left, at most the left count.
+ */
+public record PresenceMessage(int joinedCount, int leftCount, List<String> joined,
+                              List<String> left) implements Message {
+
+  private static final ConnectionMessageType TYPE = ConnectionMessageType.PRESENCE;
+  private static final String NAME_SPLITTER = "\n";
+
+  /**
+   * Constructs a new PresenceMessage.
+   *
+   * @throws NullPointerException     if any of the lists is null.
+   * @throws IllegalArgumentException if a list has more names than its count.
+   */
+  public PresenceMessage {
+    joined = List.copyOf(Objects.requireNonNull(joined));
+    left = List.copyOf(Objects.requireNonNull(left));
+    Validate.isTrue(joined.size() <= joinedCount, "More joined users listed than counted");
+    Validate.isTrue(left.size() <= leftCount, "More left users listed than counted");
+  }
+
+  /**
+   * Creates a PresenceMessage from a transport string.
+   *
+   * @param message The transport string.
+   * @return The created PresenceMessage.
+   * @throws NullPointerException     if the message is null.
+   * @throws IllegalArgumentException if the message is blank or does not match the expected
+   *                                  pattern.
+   */
+  public static Message fromTransportString(final String message) {
+    Validate.notBlank(message);
+    final String[] lines = message.split(NAME_SPLITTER, -1);
+    Validate.matchesPattern(lines[0], TYPE + MESSAGE_SPLITTER + "(\\d+)" + MESSAGE_SPLITTER
+        + "(\\d+)" + MESSAGE_SPLITTER + "(\\d+)");
+    final String[] header = lines[0].split(MESSAGE_SPLITTER, 4);
+    final int listedJoined = Integer.parseInt(header[3]);
+    Validate.isTrue(listedJoined < lines.length, "The number of listed users does not match");
+
+    final List<String> joined = new ArrayList<>(listedJoined);
+    final List<String> left = new ArrayList<>(lines.length - 1 - listedJoined);
+    for (int i = 1; i < lines.length; i++) {
+      (i <= listedJoined ? joined : left).add(lines[i]);
+    }
+    return new PresenceMessage(Integer.parseInt(header[1]), Integer.parseInt(header[2]), joined,
+        left);
+  }
+
+  @Override
+  public ConnectionMessageType getType() {
+    return TYPE;
+  }
+
+  @Override
+  public String toTransportString() {
+    final StringBuilder builder = new StringBuilder()
+        .append(TYPE).append(MESSAGE_SPLITTER)
+        .append(joinedCount).append(MESSAGE_SPLITTER)
+        .append(leftCount).append(MESSAGE_SPLITTER)
+        .append(joined.size());
+    for (final String name : joined) {
+      builder.append(NAME_SPLITTER).append(name);
+    }
+    for (final String name : left) {
+      builder.append(NAME_SPLITTER).append(name);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns a string representation of the message that is meant to be displayed on the screen,
+   * such as "37 users joined, including alice, bob".
+   *
+   * @return The string representation of the message.
+   */
+  @Override
+  public String toString() {
+    if (0 == leftCount) {
+      return describe(joinedCount, joined, "joined");
+    }
+    if (0 == joinedCount) {
+      return describe(leftCount, left, "left");
+    }
+    return describe(joinedCount, joined, "joined") + ", " + describe(leftCount, left, "left");
+  }
+
+  private static String describe(final int count, final List<String> names, final String verb) {
+    if (count == names.size()) {
+      return String.join(", ", names) + " " + verb;
+    }
+    final String users = 1 == count ? "1 user " : count + " users ";
+    return names.isEmpty()
+        ? users + verb
+        : users + verb + ", including " + String.join(", ", names);
+  }
+}
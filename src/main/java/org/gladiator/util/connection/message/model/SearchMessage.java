@@ -0,0 +1,62 @@
+package org.gladiator.util.connection.message.model;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.ConnectionMessageType;
+
+/**
+ * Represents the message a client sends to search the chat history of the server. This class is
+ * immutable and uses the record feature of Java.
+ *
+ * @param query The terms to search, separated by spaces.
+ */
+public record SearchMessage(String query) implements Message {
+
+  private static final ConnectionMessageType TYPE = ConnectionMessageType.SEARCH;
+
+  /**
+   * Constructs a new SearchMessage.
+   *
+   * @throws NullPointerException     if the query is null.
+   * @throws IllegalArgumentException if the query is blank.
+   */
+  public SearchMessage {
+    Validate.notBlank(query);
+  }
+
+  /**
+   * Creates a SearchMessage from a transport string.
+   *
+   * @param message The transport string.
+   * @return The created SearchMessage.
+   * @throws NullPointerException     if the message is null.
+   * @throws IllegalArgumentException if the message is blank or does not match the expected
+   *                                  pattern.
+   */
+  public static Message fromTransportString(final String message) {
+    Validate.notBlank(message);
+    Validate.matchesPattern(message, TYPE + MESSAGE_SPLITTER + "(.+)");
+    final String[] split = StringUtils.split(message, MESSAGE_SPLITTER, 2);
+    return new SearchMessage(split[1]);
+  }
+
+  @Override
+  public ConnectionMessageType getType() {
+    return TYPE;
+  }
+
+  @Override
+  public String toTransportString() {
+    return TYPE + MESSAGE_SPLITTER + query;
+  }
+
+  /**
+   * Returns a string representation of the message that is meant to be displayed on the screen.
+   *
+   * @return The string representation of the message.
+   */
+  @Override
+  public String toString() {
+    return "Searching for \"" + query + "\"";
+  }
+}
@@ -0,0 +1,103 @@
+package org.gladiator.util.connection.message.model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.ConnectionMessageType;
+
+/**
+ * Represents the answer of the server to a {@link SearchMessage}, carrying the matching chat
+ * messages. This class is immutable and uses the record feature of Java.
+ *
+ * <p>The transport string has a header line with the number of results and the query, followed
+ * by one line with the transport string of each result.</p>
+ *
+ * @param query   The terms searched.
+ * @param results The matching messages, from the oldest to the newest.
+ */
+public record SearchResultMessage(String query, List<SimpleMessage> results) implements Message {
+
+  private static final ConnectionMessageType TYPE = ConnectionMessageType.SEARCH_RESULT;
+  private static final String RESULT_SPLITTER = "\n";
+  private static final DateTimeFormatter TIME_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+  /**
+   * Constructs a new SearchResultMessage.
+   *
+   * @throws NullPointerException     if any of the parameters are null.
+   * @throws IllegalArgumentException if the query is blank.
+   */
+  public SearchResultMessage {
+    Validate.notBlank(query);
+    results = List.copyOf(Objects.requireNonNull(results));
+  }
+
+  /**
+   * Creates a SearchResultMessage from a transport string.
+   *
+   * @param message The transport string.
+   * @return The created SearchResultMessage.
+   * @throws NullPointerException     if the message is null.
+   * @throws IllegalArgumentException if the message is blank, does not match the expected pattern
+   *                                  or any of the results is invalid.
+   */
+  public static Message fromTransportString(final String message) {
+    Validate.notBlank(message);
+    final String[] lines = message.split(RESULT_SPLITTER, -1);
+    Validate.matchesPattern(lines[0], TYPE + MESSAGE_SPLITTER + "(\\d+)" + MESSAGE_SPLITTER
+        + "(.+)");
+    final String[] header = lines[0].split(MESSAGE_SPLITTER, 3);
+    final int resultCount = Integer.parseInt(header[1]);
+    Validate.isTrue(lines.length - 1 == resultCount, "The number of results does not match");
+
+    final List<SimpleMessage> results = new ArrayList<>(resultCount);
+    for (int i = 1; i < lines.length; i++) {
+      results.add((SimpleMessage) SimpleMessage.fromTransportString(lines[i]));
+    }
+    return new SearchResultMessage(header[2], results);
+  }
+
+  @Override
+  public ConnectionMessageType getType() {
+    return TYPE;
+  }
+
+  @Override
+  public String toTransportString() {
+    final StringBuilder builder = new StringBuilder()
+        .append(TYPE).append(MESSAGE_SPLITTER)
+        .append(results.size()).append(MESSAGE_SPLITTER)
+        .append(query);
+    for (final SimpleMessage result : results) {
+      builder.append(RESULT_SPLITTER).append(result.toTransportString());
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns a string representation of the message that is meant to be displayed on the screen,
+   * with one line for each result.
+   *
+   * @return The string representation of the message.
+   */
+  @Override
+  public String toString() {
+    if (results.isEmpty()) {
+      return "No messages found for \"" + query + "\"";
+    }
+
+    final StringBuilder builder = new StringBuilder()
+        .append(results.size()).append(" messages found for \"").append(query).append('"');
+    for (final SimpleMessage result : results) {
+      builder.append(System.lineSeparator())
+          .append('[').append(TIME_FORMATTER.format(Instant.ofEpochMilli(result.timestamp())))
+          .append("] ").append(result);
+    }
+    return builder.toString();
+  }
+}
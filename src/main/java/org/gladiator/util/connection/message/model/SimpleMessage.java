@@ -1,29 +1,48 @@
 package org.gladiator.util.connection.message.model;
 
 import java.util.Objects;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.gladiator.util.connection.message.ConnectionMessageType;
 
 /**
  * Represents a message exchanged between connections. This class is immutable and uses the record
  * feature of Java.
+ *
+ * <p>The sequence number and the timestamp are assigned by the server when it receives the
+ * message, a message that was not stamped yet has both of them set to zero.</p>
+ *
+ * @param sequence   The sequence number given by the server, or zero if not stamped.
+ * @param timestamp  The epoch milliseconds when the server received the message, or zero.
+ * @param senderName The name of the sender.
+ * @param message    The content of the message.
  */
-public record SimpleMessage(String senderName, String message) implements Message {
+public record SimpleMessage(long sequence, long timestamp, String senderName, String message)
+    implements Message {
 
   private static final ConnectionMessageType TYPE = ConnectionMessageType.SIMPLE;
 
   /**
    * Constructs a new ConnectionMessage.
    *
-   * @param senderName The name of the sender.
-   * @param message    The message of the message.
    * @throws NullPointerException     if any of the parameters are null.
-   * @throws IllegalArgumentException if the senderName is blank.
+   * @throws IllegalArgumentException if the senderName is blank or the sequence or timestamp are
+   *                                  negative.
    */
   public SimpleMessage {
     Validate.notBlank(senderName);
     Objects.requireNonNull(message);
+    Validate.isTrue(0 <= sequence, "The sequence must not be negative");
+    Validate.isTrue(0 <= timestamp, "The timestamp must not be negative");
+  }
+
+  /**
+   * Constructs a new ConnectionMessage that was not stamped by the server yet.
+   *
+   * @param senderName The name of the sender.
+   * @param message    The content of the message.
+   */
+  public SimpleMessage(final String senderName, final String message) {
+    this(0, 0, senderName, message);
   }
 
   /**
@@ -37,12 +56,26 @@ public record SimpleMessage(String senderName, String message) implements Messag
    */
   public static Message fromTransportString(final String message) {
     Validate.notBlank(message);
-    Validate.matchesPattern(message, TYPE + MESSAGE_SPLITTER + "(.+)" + MESSAGE_SPLITTER + "(.*)");
-    final String[] split = StringUtils.split(message, MESSAGE_SPLITTER, 3);
-    final String senderName = split[1];
-    final String messageContent =
-        2 < split.length ? split[2] : StringUtils.defaultIfEmpty(null, "");
-    return new SimpleMessage(senderName, messageContent);
+    Validate.matchesPattern(message,
+        TYPE + MESSAGE_SPLITTER + "(\\d+)" + MESSAGE_SPLITTER + "(\\d+)" + MESSAGE_SPLITTER
+            + "([^" + MESSAGE_SPLITTER + "]+)" + MESSAGE_SPLITTER + "(.*)");
+    final String[] split = message.split(MESSAGE_SPLITTER, 5);
+    final long sequence = Long.parseLong(split[1]);
+    final long timestamp = Long.parseLong(split[2]);
+    final String senderName = split[3];
+    final String messageContent = split[4];
+    return new SimpleMessage(sequence, timestamp, senderName, messageContent);
+  }
+
+  /**
+   * Creates a copy of this message stamped with the given sequence number and timestamp.
+   *
+   * @param newSequence  The sequence number given by the server.
+   * @param newTimestamp The epoch milliseconds when the server received the message.
+   * @return The stamped message.
+   */
+  public SimpleMessage withSequence(final long newSequence, final long newTimestamp) {
+    return new SimpleMessage(newSequence, newTimestamp, senderName, message);
   }
 
   @Override
@@ -58,7 +91,8 @@ public record SimpleMessage(String senderName, String message) implements Messag
    */
   @Override
   public String toTransportString() {
-    return TYPE + MESSAGE_SPLITTER + senderName + MESSAGE_SPLITTER + message;
+    return TYPE + MESSAGE_SPLITTER + sequence + MESSAGE_SPLITTER + timestamp + MESSAGE_SPLITTER
+        + senderName + MESSAGE_SPLITTER + message;
   }
 
   /**
@@ -70,4 +104,4 @@ public record SimpleMessage(String senderName, String message) implements Messag
   public String toString() {
     return senderName + ": " + message;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package org.gladiator.util.connection.message.model;
+
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.connection.message.ConnectionMessageType;
+
+/**
+ * Represents the message a client sends right after the handshake, telling the server the
+ * sequence number of the last chat message it received, so the server can send the messages it
+ * missed, and whether it accepts several messages in a {@link BatchMessage}. This class is
+ * immutable and uses the record feature of Java.
+ *
+ * <p>The batch flag is an optional last field of the transport string, so the messages of the
+ * clients that do not know batches are still valid.</p>
+ *
+ * @param lastSequence   The sequence number of the last message received, or zero if none.
+ * @param acceptsBatches Whether the client accepts batches.
+ */
+public record SyncMessage(long lastSequence, boolean acceptsBatches) implements Message {
+
+  private static final ConnectionMessageType TYPE = ConnectionMessageType.SYNC;
+  private static final String BATCH_FLAG = "BATCH";
+
+  /**
+   * Constructs a new SyncMessage.
+   *
+   * @throws IllegalArgumentException if the last sequence is negative.
+   */
+  public SyncMessage {
+    Validate.isTrue(0 <= lastSequence, "The last sequence must not be negative");
+  }
+
+  /**
+   * Constructs a new SyncMessage of a client that does not accept batches.
+   *
+   * @param lastSequence The sequence number of the last message received, or zero if none.
+   * @throws IllegalArgumentException if the last sequence is negative.
+   */
+  public SyncMessage(final long lastSequence) {
+    this(lastSequence, false);
+  }
+
+  /**
+   * Creates a SyncMessage from a transport string.
+   *
+   * @param message The transport string.
+   * @return The created SyncMessage.
+   * @throws NullPointerException     if the message is null.
+   * @throws IllegalArgumentException if the message is blank or does not match the expected
+   *                                  pattern.
+   */
+  public static Message fromTransportString(final String message) {
+    Validate.notBlank(message);
+    Validate.matchesPattern(message,
+        TYPE + MESSAGE_SPLITTER + "(\\d+)(" + MESSAGE_SPLITTER + BATCH_FLAG + ")?");
+    final String[] split = message.split(MESSAGE_SPLITTER, 3);
+    return new SyncMessage(Long.parseLong(split[1]), 3 == split.length);
+  }
+
+  @Override
+  public ConnectionMessageType getType() {
+    return TYPE;
+  }
+
+  @Override
+  public String toTransportString() {
+    return acceptsBatches
+        ? TYPE + MESSAGE_SPLITTER + lastSequence + MESSAGE_SPLITTER + BATCH_FLAG
+        : TYPE + MESSAGE_SPLITTER + lastSequence;
+  }
+
+  /**
+   * Returns a string representation of the message that is meant to be displayed on the screen.
+   *
+   * @return The string representation of the message.
+   */
+  @Override
+  public String toString() {
+    return "Synchronizing after message " + lastSequence;
+  }
+}
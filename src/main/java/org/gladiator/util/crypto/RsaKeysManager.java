@@ -5,9 +5,9 @@ import java.security.Key;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
-import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.util.Base64;
+import java.util.concurrent.CompletableFuture;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
@@ -24,6 +24,9 @@ import org.slf4j.LoggerFactory;
  * <p>The RSA algorithm is used to securely encrypt the AES key, and Base64 encoding is necessary
  * to ensure the encrypted message is not altered during the socket connection.
  * </p>
+ *
+ * <p>The key pair is generated on a background thread, which takes a noticeable time, so it does
+ * not delay the startup. The operations that need it wait for it to be ready.</p>
  */
 public final class RsaKeysManager {
 
@@ -32,17 +35,16 @@ public final class RsaKeysManager {
   private static final String ALGORITHM = "RSA";
   private static final String PADDING = "/ECB/OAEPWithSHA-512AndMGF1Padding";
   private static final int KEY_SIZE = 2048;
+  private static final String KEY_GENERATOR_THREAD = "rsa_key_generator";
 
-  private final PrivateKey privateKey;
-  private final PublicKey publicKey;
+  private final CompletableFuture<KeyPair> keyPair;
 
-  private RsaKeysManager(final PrivateKey privateKey, final PublicKey publicKey) {
-    this.privateKey = privateKey;
-    this.publicKey = publicKey;
+  private RsaKeysManager(final CompletableFuture<KeyPair> keyPair) {
+    this.keyPair = keyPair;
   }
 
   /**
-   * Creates a new RsaKeysManager instance.
+   * Creates a new RsaKeysManager instance and starts generating its key pair.
    *
    * @return A new RsaKeysManager instance.
    * @throws EndApplicationException If an error occurs during creation.
@@ -52,8 +54,8 @@ public final class RsaKeysManager {
     try {
       kpg = KeyPairGenerator.getInstance(ALGORITHM);
       kpg.initialize(KEY_SIZE);
-      final KeyPair kp = kpg.generateKeyPair();
-      return new RsaKeysManager(kp.getPrivate(), kp.getPublic());
+      return new RsaKeysManager(CompletableFuture.supplyAsync(kpg::generateKeyPair,
+          task -> Thread.ofVirtual().name(KEY_GENERATOR_THREAD).start(task)));
     } catch (final NoSuchAlgorithmException e) {
       throw new EndApplicationException(
           "The RSA algorithm: " + ALGORITHM + "is not valid.", e);
@@ -65,12 +67,12 @@ public final class RsaKeysManager {
   }
 
   /**
-   * Gets the RSA public key.
+   * Gets the RSA public key, waiting for the key pair to be generated.
    *
    * @return The RSA public key.
    */
   public PublicKey getPublicKey() {
-    return publicKey;
+    return keyPair.join().getPublic();
   }
 
   /**
@@ -113,7 +115,7 @@ public final class RsaKeysManager {
     final SecretKey encryptedKey = new SecretKeySpec(decodedKeyBytes, "AES");
     try {
       final Cipher cipher = createCipher();
-      cipher.init(Cipher.DECRYPT_MODE, privateKey);
+      cipher.init(Cipher.DECRYPT_MODE, keyPair.join().getPrivate());
       final byte[] decryptedKeyBytes = cipher.doFinal(decodedKeyBytes);
       return new SecretKeySpec(decryptedKeyBytes, "AES");
     } catch (final NoSuchPaddingException | InvalidKeyException | NoSuchAlgorithmException
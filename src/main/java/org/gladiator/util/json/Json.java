@@ -0,0 +1,42 @@
+package org.gladiator.util.json;
+
+import java.util.Locale;
+
+/**
+ * Utility class for writing JSON by hand, for the few machine-readable outputs of the
+ * applications that do not justify a JSON library.
+ */
+public final class Json {
+
+  private Json() {
+  }
+
+  /**
+   * Quotes a string as a JSON string, escaping the quotes, the backslashes and the control
+   * characters.
+   *
+   * @param value the string to quote
+   * @return the JSON string
+   */
+  public static String quote(final String value) {
+    final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char character = value.charAt(i);
+      switch (character) {
+        case '"' -> quoted.append("\\\"");
+        case '\\' -> quoted.append("\\\\");
+        case '\n' -> quoted.append("\\n");
+        case '\r' -> quoted.append("\\r");
+        case '\t' -> quoted.append("\\t");
+        default -> {
+          if (' ' > character) {
+            quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) character));
+          } else {
+            quoted.append(character);
+          }
+        }
+      }
+    }
+    return quoted.append('"').toString();
+  }
+}
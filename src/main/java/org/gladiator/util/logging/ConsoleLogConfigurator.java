@@ -0,0 +1,55 @@
+package org.gladiator.util.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.Configurator;
+import ch.qos.logback.classic.spi.ConfiguratorRank;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.ConsoleAppender;
+import ch.qos.logback.core.joran.spi.ConsoleTarget;
+import ch.qos.logback.core.spi.ContextAwareBase;
+
+/**
+ * Configures Logback to log to the console, without parsing an XML configuration file, which
+ * takes most of the logging initialization time and delays the startup of the applications.
+ *
+ * <p>The logs are written to the standard error, so the standard output of a headless client
+ * only holds the received messages.</p>
+ *
+ * <p>It is found by Logback through the service loader. When a configuration file is given with
+ * the {@value #CONFIGURATION_FILE_PROPERTY} system property, it is left to Logback to load
+ * it.</p>
+ */
+@ConfiguratorRank(ConfiguratorRank.CUSTOM_HIGH_PRIORITY)
+public final class ConsoleLogConfigurator extends ContextAwareBase implements Configurator {
+
+  private static final String CONFIGURATION_FILE_PROPERTY = "logback.configurationFile";
+  private static final String APPENDER_NAME = "CONSOLE";
+  private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss} %-5level %logger{36} - %msg%n";
+
+  @Override
+  public ExecutionStatus configure(final LoggerContext loggerContext) {
+    if (null != System.getProperty(CONFIGURATION_FILE_PROPERTY)) {
+      return ExecutionStatus.INVOKE_NEXT_IF_ANY;
+    }
+
+    final PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+    encoder.setContext(loggerContext);
+    encoder.setPattern(PATTERN);
+    encoder.start();
+
+    final ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+    appender.setContext(loggerContext);
+    appender.setName(APPENDER_NAME);
+    appender.setTarget(ConsoleTarget.SystemErr.getName());
+    appender.setEncoder(encoder);
+    appender.start();
+
+    final Logger rootLogger = loggerContext.getLogger(Logger.ROOT_LOGGER_NAME);
+    rootLogger.setLevel(Level.INFO);
+    rootLogger.addAppender(appender);
+    return ExecutionStatus.DO_NOT_INVOKE_NEXT_IF_ANY;
+  }
+}
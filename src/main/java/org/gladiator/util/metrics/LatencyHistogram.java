@@ -0,0 +1,144 @@
+package org.gladiator.util.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Histogram of latencies, in microseconds, that many threads record into without locking.
+ *
+ * <p>The latencies below {@value #EXACT_LIMIT} microseconds have their own bucket. Above, every
+ * power of two is split in {@value #SUB_BUCKETS} buckets, so a percentile is overestimated by less
+ * than 0.1%. The latencies above {@link #MAX_MICROS} are recorded as this maximum.</p>
+ *
+ * <p>Recording costs a few atomic increments, so it can be left on in production.</p>
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 10;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int EXACT_LIMIT = 2 * SUB_BUCKETS;
+  private static final long MAX_MICROS = TimeUnit.HOURS.toMicros(1);
+
+  private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_MICROS) + 1);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalMicros = new LongAdder();
+  private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos the latency in nanoseconds, negative latencies are recorded as 0
+   */
+  public void record(final long nanos) {
+    final long micros = Math.min(MAX_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    counts.incrementAndGet(indexOf(micros));
+    count.increment();
+    totalMicros.add(micros);
+    maxMicros.accumulate(micros);
+  }
+
+  private static int indexOf(final long micros) {
+    if (EXACT_LIMIT > micros) {
+      return (int) micros;
+    }
+    final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKETS + (int) (micros >>> shift);
+  }
+
+  /**
+   * Gets the highest latency of a bucket.
+   */
+  private static long highestOf(final int index) {
+    if (EXACT_LIMIT > index) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKETS - 1;
+    final long subBucket = index - (long) shift * SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Gets the number of recorded latencies.
+   *
+   * @return the number of recorded latencies
+   */
+  public long count() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the mean of the recorded latencies.
+   *
+   * @return the mean latency in microseconds, 0 if none was recorded
+   */
+  public long meanMicros() {
+    final long recorded = count.sum();
+    return 0 == recorded ? 0 : totalMicros.sum() / recorded;
+  }
+
+  /**
+   * Gets the sum of the recorded latencies.
+   *
+   * @return the sum of the latencies in microseconds
+   */
+  public long totalMicros() {
+    return totalMicros.sum();
+  }
+
+  /**
+   * Counts the recorded latencies that do not exceed a bound, such as for the cumulative buckets
+   * of a Prometheus histogram.
+   *
+   * @param boundMicros the bound in microseconds
+   * @return the number of latencies at most the bound, rounded to the precision of the buckets
+   */
+  public long countAtOrBelow(final long boundMicros) {
+    final int lastIndex = indexOf(Math.min(MAX_MICROS, Math.max(0, boundMicros)));
+    long total = 0;
+    for (int i = 0; i <= lastIndex; i++) {
+      total += counts.get(i);
+    }
+    return total;
+  }
+
+  /**
+   * Gets the highest recorded latency.
+   *
+   * @return the highest latency in microseconds, 0 if none was recorded
+   */
+  public long maxMicros() {
+    return maxMicros.get();
+  }
+
+  /**
+   * Gets a percentile of the recorded latencies.
+   *
+   * @param percentile the percentile, such as 99.9
+   * @return the latency in microseconds that the given percentage of the latencies do not exceed,
+   *     0 if none was recorded
+   * @throws IllegalArgumentException if the percentile is not between 0 and 100
+   */
+  public long percentileMicros(final double percentile) {
+    Validate.inclusiveBetween(0, 100, percentile, "The percentile must be between 0 and 100");
+    long total = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      total += counts.get(i);
+    }
+    if (0 == total) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestOf(i), maxMicros());
+      }
+    }
+    return maxMicros();
+  }
+}
@@ -0,0 +1,176 @@
+package org.gladiator.util.settings;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Settings of an application gathered, from the lowest to the highest precedence, from a
+ * properties file, the environment variables and the command line arguments.
+ *
+ * <p>Every setting has a key, such as {@code log-sample-rate}. On the command line it is given as
+ * {@code --log-sample-rate=0.1}, or as {@code --headless} for a flag set to true. In the
+ * environment it is the key in upper case with a prefix, such as
+ * {@code JMESSENGER_SERVER_LOG_SAMPLE_RATE}. The properties file, if any, is given by the
+ * {@value #CONFIG_KEY} setting on the command line or in the environment.</p>
+ */
+public final class Settings {
+
+  /**
+   * The key of the setting with the path of the properties file.
+   */
+  public static final String CONFIG_KEY = "config";
+  private static final String OPTION_PREFIX = "--";
+
+  private final Map<String, String> values;
+
+  private Settings(final Map<String, String> values) {
+    this.values = values;
+  }
+
+  /**
+   * Loads the settings.
+   *
+   * @param keys        the keys of the known settings
+   * @param envPrefix   the prefix of the environment variables
+   * @param args        the command line arguments
+   * @param environment the environment variables
+   * @return the loaded settings
+   * @throws IllegalArgumentException if an argument or a key of the properties file is not a known
+   *                                  setting
+   * @throws IOException              if the properties file cannot be read
+   */
+  public static Settings load(final Set<String> keys, final String envPrefix,
+      final List<String> args, final Map<String, String> environment) throws IOException {
+    final Map<String, String> arguments = parseArguments(keys, args);
+    final Map<String, String> values = new HashMap<>();
+
+    final String configPath = arguments.getOrDefault(CONFIG_KEY,
+        environment.get(toEnvironmentName(envPrefix, CONFIG_KEY)));
+    if (null != configPath) {
+      loadFile(keys, Path.of(configPath), values);
+    }
+
+    for (final String key : keys) {
+      final String value = environment.get(toEnvironmentName(envPrefix, key));
+      if (null != value) {
+        values.put(key, value);
+      }
+    }
+
+    arguments.remove(CONFIG_KEY);
+    values.putAll(arguments);
+    return new Settings(values);
+  }
+
+  private static Map<String, String> parseArguments(final Set<String> keys,
+      final List<String> args) {
+    final Map<String, String> arguments = new HashMap<>();
+    for (final String arg : args) {
+      Validate.isTrue(arg.startsWith(OPTION_PREFIX), "Unexpected argument: %s", arg);
+      final String option = arg.substring(OPTION_PREFIX.length());
+      final int separator = option.indexOf('=');
+      final String key = 0 > separator ? option : option.substring(0, separator);
+      final String value = 0 > separator ? Boolean.TRUE.toString()
+          : option.substring(separator + 1);
+      Validate.isTrue(keys.contains(key) || CONFIG_KEY.equals(key), "Unknown option: %s", arg);
+      arguments.put(key, value);
+    }
+    return arguments;
+  }
+
+  private static void loadFile(final Set<String> keys, final Path path,
+      final Map<String, String> values) throws IOException {
+    final Properties properties = new Properties();
+    try (final Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    }
+    for (final String key : properties.stringPropertyNames()) {
+      Validate.isTrue(keys.contains(key), "Unknown setting %s in %s", key, path);
+      values.put(key, properties.getProperty(key).trim());
+    }
+  }
+
+  private static String toEnvironmentName(final String envPrefix, final String key) {
+    return envPrefix + key.toUpperCase(Locale.ROOT).replace('-', '_');
+  }
+
+  /**
+   * Gets a text setting.
+   *
+   * @param key          the key of the setting
+   * @param defaultValue the value if the setting is not set
+   * @return the value of the setting
+   */
+  public String getString(final String key, final String defaultValue) {
+    return values.getOrDefault(key, defaultValue);
+  }
+
+  /**
+   * Gets a flag setting, which must be either {@code true} or {@code false}.
+   *
+   * @param key          the key of the setting
+   * @param defaultValue the value if the setting is not set
+   * @return the value of the setting
+   * @throws IllegalArgumentException if the value is not a boolean
+   */
+  public boolean getBoolean(final String key, final boolean defaultValue) {
+    final String value = values.get(key);
+    if (null == value) {
+      return defaultValue;
+    }
+    final String normalizedValue = value.toLowerCase(Locale.ROOT);
+    Validate.isTrue("true".equals(normalizedValue) || "false".equals(normalizedValue),
+        "Invalid value for %s, expected true or false: %s", key, value);
+    return Boolean.parseBoolean(normalizedValue);
+  }
+
+  /**
+   * Gets an integer setting.
+   *
+   * @param key          the key of the setting
+   * @param defaultValue the value if the setting is not set
+   * @return the value of the setting
+   * @throws IllegalArgumentException if the value is not an integer
+   */
+  public int getInt(final String key, final int defaultValue) {
+    final String value = values.get(key);
+    if (null == value) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (final NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+    }
+  }
+
+  /**
+   * Gets a decimal setting.
+   *
+   * @param key          the key of the setting
+   * @param defaultValue the value if the setting is not set
+   * @return the value of the setting
+   * @throws IllegalArgumentException if the value is not a number
+   */
+  public double getDouble(final String key, final double defaultValue) {
+    final String value = values.get(key);
+    if (null == value) {
+      return defaultValue;
+    }
+    try {
+      return Double.parseDouble(value);
+    } catch (final NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+    }
+  }
+}
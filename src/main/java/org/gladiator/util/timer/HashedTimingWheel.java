@@ -0,0 +1,194 @@
+package org.gladiator.util.timer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.commons.lang3.Validate;
+import org.gladiator.util.thread.NamedVirtualThreadExecutorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timer that runs a large number of approximate timeouts with a single thread, as described by
+ * Varghese and Lauck in "Hashed and Hierarchical Timing Wheels".
+ *
+ * <p>The wheel is an array of buckets, each one covering a tick. Scheduling a timeout only places
+ * it in a queue, on every tick the timer thread moves the queued timeouts to the bucket of their
+ * deadline and expires the timeouts of the current bucket whose remaining rounds reached zero, so
+ * scheduling and cancelling cost the same regardless of the number of pending timeouts. The
+ * timeouts expire up to a tick late.</p>
+ *
+ * <p>The expired tasks are run by the given executor, so a slow task does not delay the
+ * timer.</p>
+ */
+public final class HashedTimingWheel implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+  private final long tickNanos;
+  private final List<List<Timeout>> buckets;
+  private final int mask;
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+  private final Executor taskExecutor;
+  private final ExecutorService timerExecutor;
+  private final long startNanos;
+  private volatile boolean running = true;
+
+  /**
+   * Constructs a new HashedTimingWheel and starts its timer thread.
+   *
+   * @param tick         the duration of a tick, which is the precision of the timeouts
+   * @param wheelSize    the number of buckets, must be a power of two
+   * @param taskExecutor the executor that runs the expired tasks
+   * @throws IllegalArgumentException if the tick is not positive or the wheel size is not a power
+   *                                  of two
+   */
+  public HashedTimingWheel(final Duration tick, final int wheelSize,
+      final Executor taskExecutor) {
+    Validate.isTrue(tick.isPositive(), "The tick must be positive");
+    Validate.isTrue(0 < wheelSize && 0 == (wheelSize & (wheelSize - 1)),
+        "The wheel size must be a power of two");
+
+    this.tickNanos = tick.toNanos();
+    this.mask = wheelSize - 1;
+    this.buckets = new ArrayList<>(wheelSize);
+    for (int i = 0; i < wheelSize; i++) {
+      buckets.add(new ArrayList<>());
+    }
+    this.taskExecutor = taskExecutor;
+    this.startNanos = System.nanoTime();
+    this.timerExecutor = NamedVirtualThreadExecutorFactory.create("timer");
+    timerExecutor.execute(this::runTicks);
+  }
+
+  /**
+   * Schedules a task to run once after the given delay.
+   *
+   * @param task  the task to run
+   * @param delay the delay before the task runs
+   * @return the scheduled timeout, which can be cancelled
+   */
+  public Timeout schedule(final Runnable task, final Duration delay) {
+    final long deadline = System.nanoTime() - startNanos + Math.max(0, delay.toNanos());
+    final Timeout timeout = new Timeout(task, deadline);
+    pendingTimeouts.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Timer loop, it runs on a single thread until the wheel is closed.
+   */
+  private void runTicks() {
+    long tick = 0;
+    while (running) {
+      try {
+        waitForTick(tick);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      transferPendingTimeouts(tick);
+      expireTimeouts(buckets.get((int) (tick & mask)));
+      tick++;
+    }
+  }
+
+  private void waitForTick(final long tick) throws InterruptedException {
+    final long tickDeadline = tickNanos * (tick + 1);
+    final long sleepNanos = tickDeadline - (System.nanoTime() - startNanos);
+    if (0 < sleepNanos) {
+      TimeUnit.NANOSECONDS.sleep(sleepNanos);
+    }
+  }
+
+  /**
+   * Moves the scheduled timeouts to the bucket of their deadline.
+   */
+  private void transferPendingTimeouts(final long currentTick) {
+    Timeout timeout = pendingTimeouts.poll();
+    while (null != timeout) {
+      if (!timeout.isCancelled()) {
+        final long deadlineTick = timeout.deadlineNanos / tickNanos;
+        timeout.remainingRounds = Math.max(0, (deadlineTick - currentTick) / buckets.size());
+        final long bucketTick = Math.max(deadlineTick, currentTick);
+        buckets.get((int) (bucketTick & mask)).add(timeout);
+      }
+      timeout = pendingTimeouts.poll();
+    }
+  }
+
+  /**
+   * Runs the timeouts of the bucket that are due and removes them, along with the cancelled
+   * ones.
+   */
+  private void expireTimeouts(final List<Timeout> bucket) {
+    int kept = 0;
+    for (final Timeout timeout : bucket) {
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      if (0 < timeout.remainingRounds) {
+        timeout.remainingRounds--;
+        bucket.set(kept++, timeout);
+      } else {
+        timeout.expire();
+      }
+    }
+    bucket.subList(kept, bucket.size()).clear();
+  }
+
+  /**
+   * Stops the timer thread, the pending timeouts never expire.
+   */
+  @Override
+  public void close() {
+    running = false;
+    timerExecutor.shutdownNow();
+  }
+
+  /**
+   * A task scheduled in the wheel.
+   */
+  public final class Timeout {
+
+    private final Runnable task;
+    private final long deadlineNanos;
+    private final AtomicBoolean isDone = new AtomicBoolean();
+    private long remainingRounds;
+
+    private Timeout(final Runnable task, final long deadlineNanos) {
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Cancels the timeout, its task does not run if it did not start yet.
+     *
+     * @return true if the timeout was cancelled, false if it already expired or was cancelled
+     */
+    public boolean cancel() {
+      return isDone.compareAndSet(false, true);
+    }
+
+    private boolean isCancelled() {
+      return isDone.get();
+    }
+
+    private void expire() {
+      if (isDone.compareAndSet(false, true)) {
+        try {
+          taskExecutor.execute(task);
+        } catch (final RejectedExecutionException e) {
+          LOGGER.debug("Timeout task rejected, the executor is shut down", e);
+        }
+      }
+    }
+  }
+}
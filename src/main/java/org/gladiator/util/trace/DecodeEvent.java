@@ -0,0 +1,60 @@
+package org.gladiator.util.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.gladiator.util.connection.message.model.Message;
+
+/**
+ * Flight recorder event of the decoding of a message received by the server, which assigns the
+ * correlation identifier of the message.
+ */
+@Name("org.gladiator.Decode")
+@Label("Decode")
+@Description("The decoding of a message received from a client")
+@Category({"JMessenger", "Message"})
+@StackTrace(false)
+public final class DecodeEvent extends Event {
+
+  @Label("Connection")
+  String connection = "";
+
+  @Label("Message Type")
+  String messageType = "";
+
+  @Label("Correlation Id")
+  long correlationId;
+
+  private DecodeEvent() {
+  }
+
+  /**
+   * Starts timing a decoding.
+   *
+   * @return the started event
+   */
+  public static DecodeEvent start() {
+    final DecodeEvent event = new DecodeEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Records the decoding, once it succeeded.
+   *
+   * @param connectionName the name of the connection the message was received from
+   * @param message        the decoded message
+   * @param id             the correlation identifier of the message
+   */
+  public void finish(final String connectionName, final Message message, final long id) {
+    if (shouldCommit()) {
+      connection = connectionName;
+      messageType = message.getType().name();
+      correlationId = id;
+      commit();
+    }
+  }
+}
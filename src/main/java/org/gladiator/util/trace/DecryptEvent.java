@@ -0,0 +1,56 @@
+package org.gladiator.util.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of the decryption of a line read from a connection. It precedes, on the
+ * same thread, the {@link DecodeEvent} of the message.
+ */
+@Name("org.gladiator.Decrypt")
+@Label("Decrypt")
+@Description("The decryption of a line read from a connection")
+@Category({"JMessenger", "Message"})
+@StackTrace(false)
+public final class DecryptEvent extends Event {
+
+  @Label("Connection")
+  String connection = "";
+
+  @Label("Size")
+  @DataAmount
+  int bytes;
+
+  private DecryptEvent() {
+  }
+
+  /**
+   * Starts timing a decryption.
+   *
+   * @return the started event
+   */
+  public static DecryptEvent start() {
+    final DecryptEvent event = new DecryptEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Records the decryption.
+   *
+   * @param connectionName the name of the connection the line was read from
+   * @param lineLength     the length of the encrypted line, in bytes
+   */
+  public void finish(final String connectionName, final int lineLength) {
+    if (shouldCommit()) {
+      connection = connectionName;
+      bytes = lineLength;
+      commit();
+    }
+  }
+}
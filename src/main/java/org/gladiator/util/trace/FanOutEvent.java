@@ -0,0 +1,66 @@
+package org.gladiator.util.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.gladiator.util.connection.message.model.Message;
+import org.gladiator.util.connection.message.model.SimpleMessage;
+
+/**
+ * Flight recorder event of the fan-out of a message to the connected clients. The writes to each
+ * recipient are {@link SocketWriteEvent}s with the same correlation identifier.
+ */
+@Name("org.gladiator.FanOut")
+@Label("Fan-out")
+@Description("The dispatch of a message to the connected clients")
+@Category({"JMessenger", "Message"})
+@StackTrace(false)
+public final class FanOutEvent extends Event {
+
+  @Label("Message Type")
+  String messageType = "";
+
+  @Label("Correlation Id")
+  long correlationId;
+
+  @Label("Sequence")
+  @Description("The sequence number of a chat message, 0 for the other messages")
+  long sequence;
+
+  @Label("Recipients")
+  int recipients;
+
+  private FanOutEvent() {
+  }
+
+  /**
+   * Starts timing a fan-out.
+   *
+   * @return the started event
+   */
+  public static FanOutEvent start() {
+    final FanOutEvent event = new FanOutEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Records the fan-out.
+   *
+   * @param message         the message sent
+   * @param id              the correlation identifier of the message
+   * @param recipientsCount the number of clients the message was sent to
+   */
+  public void finish(final Message message, final long id, final int recipientsCount) {
+    if (shouldCommit()) {
+      messageType = message.getType().name();
+      correlationId = id;
+      sequence = message instanceof final SimpleMessage chatMessage ? chatMessage.sequence() : 0;
+      recipients = recipientsCount;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package org.gladiator.util.trace;
+
+import java.net.Socket;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a phase of the handshake with a new client. Only the phases that
+ * succeeded are recorded.
+ */
+@Name("org.gladiator.HandshakePhase")
+@Label("Handshake Phase")
+@Description("A phase of the handshake of the server with a new client")
+@Category({"JMessenger", "Connection"})
+@StackTrace(false)
+public final class HandshakePhaseEvent extends Event {
+
+  @Label("Phase")
+  String phase = "";
+
+  @Label("Remote Address")
+  String remoteAddress = "";
+
+  private HandshakePhaseEvent() {
+  }
+
+  /**
+   * Starts timing a phase of a handshake.
+   *
+   * @param phase the name of the phase
+   * @return the started event
+   */
+  public static HandshakePhaseEvent start(final String phase) {
+    final HandshakePhaseEvent event = new HandshakePhaseEvent();
+    event.phase = phase;
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Records the phase, once it succeeded.
+   *
+   * @param socket the socket connected to the client
+   */
+  public void finish(final Socket socket) {
+    if (shouldCommit()) {
+      remoteAddress = String.valueOf(socket.getRemoteSocketAddress());
+      commit();
+    }
+  }
+}
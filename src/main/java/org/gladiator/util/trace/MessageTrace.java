@@ -0,0 +1,31 @@
+package org.gladiator.util.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Correlation identifiers of the messages handled by the server, which tie together the flight
+ * recorder events of a message, from its decoding to its writes to the recipients.
+ *
+ * <p>The events are recorded with JDK Flight Recorder. They cost almost nothing when the
+ * recording is off, so they are always emitted.</p>
+ */
+public final class MessageTrace {
+
+  /**
+   * The correlation identifier of the messages that are not traced, such as heartbeats.
+   */
+  public static final long NO_CORRELATION = 0;
+  private static final AtomicLong LAST_CORRELATION_ID = new AtomicLong();
+
+  private MessageTrace() {
+  }
+
+  /**
+   * Creates the correlation identifier of a new message.
+   *
+   * @return a positive identifier, unique in this process
+   */
+  public static long nextCorrelationId() {
+    return LAST_CORRELATION_ID.incrementAndGet();
+  }
+}
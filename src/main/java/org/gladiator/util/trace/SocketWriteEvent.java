@@ -0,0 +1,72 @@
+package org.gladiator.util.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of the encryption and the write of messages to a connection.
+ */
+@Name("org.gladiator.SocketWrite")
+@Label("Socket Write")
+@Description("The encryption and the write of messages to a connection")
+@Category({"JMessenger", "Message"})
+@StackTrace(false)
+public final class SocketWriteEvent extends Event {
+
+  @Label("Connection")
+  String connection = "";
+
+  @Label("Correlation Id")
+  @Description("The correlation identifier of the message, 0 for the untraced ones")
+  long correlationId;
+
+  @Label("Messages")
+  int messages;
+
+  @Label("Size")
+  @DataAmount
+  long bytes;
+
+  @Label("Failed")
+  boolean failed;
+
+  private SocketWriteEvent() {
+  }
+
+  /**
+   * Starts timing a write.
+   *
+   * @return the started event
+   */
+  public static SocketWriteEvent start() {
+    final SocketWriteEvent event = new SocketWriteEvent();
+    event.begin();
+    return event;
+  }
+
+  /**
+   * Records the write.
+   *
+   * @param connectionName the name of the connection written to
+   * @param id             the correlation identifier of the message
+   * @param messageCount   the number of messages written
+   * @param size           the size of the written lines, in bytes
+   * @param hasFailed      whether the connection failed
+   */
+  public void finish(final String connectionName, final long id, final int messageCount,
+      final long size, final boolean hasFailed) {
+    if (shouldCommit()) {
+      connection = connectionName;
+      correlationId = id;
+      messages = messageCount;
+      bytes = size;
+      failed = hasFailed;
+      commit();
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package org.gladiator.util.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks the memory held by idle connections, by opening many connections whose reader already
+ * read a line and now waits for the next one.
+ *
+ * <p>An idle reader must not hold a pooled buffer, only its single byte buffer, which the test
+ * checks on the buffer pool. The heap and direct memory used per connection depend on the garbage
+ * collector, so they are only reported. The number of connections is set by the
+ * {@value #CONNECTIONS_PROPERTY} property, such as 10000 to report the footprint of 10k idle
+ * connections.</p>
+ */
+class IdleConnectionFootprintTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(IdleConnectionFootprintTest.class);
+  private static final String CONNECTIONS_PROPERTY = "gladiator.footprintConnections";
+  private static final int DEFAULT_CONNECTIONS = 256;
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int BUFFERS_PER_SLAB = 64;
+  private static final int MAX_SLABS = 16;
+  private static final int GC_ROUNDS = 5;
+  private static final String DIRECT_POOL = "direct";
+
+  @Test
+  void idleConnectionsHoldNoPooledBuffer() throws Exception {
+    final int connections = Integer.getInteger(CONNECTIONS_PROPERTY, DEFAULT_CONNECTIONS);
+    final BufferPool bufferPool = new BufferPool(BUFFER_SIZE, BUFFERS_PER_SLAB, MAX_SLABS, false);
+    final List<AutoCloseable> resources = new ArrayList<>();
+    try (ServerSocketChannel server = ServerSocketChannel.open();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), connections);
+      warmUp(server, bufferPool);
+      final long before = usedMemory();
+      try {
+        final CountDownLatch firstLinesRead = new CountDownLatch(connections);
+        final List<Future<Integer>> idleReads = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+          final SocketChannel clientChannel = SocketChannel.open(server.getLocalAddress());
+          final SocketChannel serverChannel = server.accept();
+          resources.add(clientChannel);
+          resources.add(serverChannel);
+          final MessageReader reader = new MessageReader(serverChannel, bufferPool);
+          resources.add(new MessageWriter(serverChannel, bufferPool));
+          new MessageWriter(clientChannel, bufferPool).writeLine("hello");
+          idleReads.add(executor.submit(() -> readUntilClosed(reader, firstLinesRead)));
+        }
+        firstLinesRead.await();
+        assertTrue(idleReads.stream().noneMatch(Future::isDone));
+        assertEquals(0, bufferPool.acquiredBuffers());
+
+        LOGGER.info("{} idle connections use about {} bytes of heap and direct memory each",
+            connections, (usedMemory() - before) / connections);
+      } finally {
+        for (final AutoCloseable resource : resources) {
+          resource.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Exchanges a line over a first connection, so the first slab of the buffer pool and the
+   * classes it needs are not counted in the reported footprint.
+   */
+  private static void warmUp(final ServerSocketChannel server, final BufferPool bufferPool)
+      throws IOException {
+    try (SocketChannel clientChannel = SocketChannel.open(server.getLocalAddress());
+        SocketChannel serverChannel = server.accept()) {
+      new MessageWriter(clientChannel, bufferPool).writeLine("hello");
+      assertEquals("hello", new MessageReader(serverChannel, bufferPool).readLine());
+    }
+  }
+
+  private static int readUntilClosed(final MessageReader reader, final CountDownLatch firstLineRead)
+      throws IOException {
+    assertEquals("hello", reader.readLine());
+    firstLineRead.countDown();
+    int lines = 0;
+    while (null != reader.readLine()) {
+      lines++;
+    }
+    return lines;
+  }
+
+  /**
+   * Gets the heap used after a few garbage collections plus the direct memory used.
+   *
+   * @return the used heap and direct memory, in bytes
+   */
+  private static long usedMemory() throws InterruptedException {
+    for (int i = 0; i < GC_ROUNDS; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    long direct = 0;
+    for (final BufferPoolMXBean pool
+        : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (DIRECT_POOL.equals(pool.getName())) {
+        direct += pool.getMemoryUsed();
+      }
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() + direct;
+  }
+}
@@ -0,0 +1,125 @@
+package org.gladiator.util.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.Timeout.ThreadMode;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the virtual threads reading and writing the connections never pin their carrier
+ * thread, by recording the {@code jdk.VirtualThreadPinned} JFR events while several virtual
+ * threads contend for the lock of a writer whose peer reads slower than they write.
+ *
+ * <p>With a single carrier thread, a writer pinned while blocked in a write keeps the reader from
+ * running, so the exchange never ends. The test then fails on its timeout.</p>
+ */
+class VirtualThreadPinningTest {
+
+  private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+  private static final String CHECKED_PACKAGE = "org.gladiator.util.connection";
+  private static final int WRITERS = 8;
+  private static final int LINES_PER_WRITER = 200;
+  private static final int LINE_LENGTH = 4 * 1024;
+  private static final int SOCKET_BUFFER_SIZE = 64 * 1024;
+
+  @Test
+  @Timeout(value = 60, threadMode = ThreadMode.SEPARATE_THREAD)
+  void readsAndWritesDoNotPinCarrierThreads(@TempDir final Path recordingDirectory)
+      throws Exception {
+    final Path recordingFile = recordingDirectory.resolve("pinning.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+      recording.start();
+      assertEquals(WRITERS * LINES_PER_WRITER, exchangeLines());
+      recording.stop();
+      recording.dump(recordingFile);
+    }
+
+    final List<String> pinnedStacks = new ArrayList<>();
+    for (final RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+      if (PINNED_EVENT.equals(event.getEventType().getName()) && isInCheckedPackage(event)) {
+        pinnedStacks.add(String.valueOf(event.getStackTrace()));
+      }
+    }
+    assertTrue(pinnedStacks.isEmpty(), () -> "Carrier threads were pinned: " + pinnedStacks);
+  }
+
+  /**
+   * Writes lines from several virtual threads sharing a writer and reads them from another
+   * virtual thread, like the server does. The small socket buffers make the writers block while
+   * holding the lock.
+   *
+   * @return the number of lines read
+   */
+  private static int exchangeLines() throws Exception {
+    try (ServerSocketChannel server = ServerSocketChannel.open()) {
+      server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+      try (SocketChannel clientChannel = SocketChannel.open(server.getLocalAddress());
+          SocketChannel serverChannel = server.accept();
+          ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        final Socket sendingSocket = clientChannel.socket();
+        sendingSocket.setSendBufferSize(SOCKET_BUFFER_SIZE);
+        serverChannel.socket().setReceiveBufferSize(SOCKET_BUFFER_SIZE);
+        final MessageWriter writer = IoUtils.createWriter(sendingSocket);
+        final MessageReader reader = IoUtils.createReader(serverChannel.socket());
+
+        final Future<Integer> readLines = executor.submit(() -> readAll(reader));
+        final String line = "x".repeat(LINE_LENGTH);
+        final List<Future<?>> writes = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+          writes.add(executor.submit(() -> {
+            for (int j = 0; j < LINES_PER_WRITER; j++) {
+              writer.writeLine(line);
+            }
+          }));
+        }
+        for (final Future<?> write : writes) {
+          write.get();
+        }
+        writer.close();
+        return readLines.get();
+      }
+    }
+  }
+
+  private static int readAll(final MessageReader reader) throws IOException {
+    int lines = 0;
+    while (null != reader.readLine()) {
+      lines++;
+    }
+    return lines;
+  }
+
+  private static boolean isInCheckedPackage(final RecordedEvent event) {
+    if (null == event.getStackTrace()) {
+      return false;
+    }
+    for (final RecordedFrame frame : event.getStackTrace().getFrames()) {
+      if (frame.isJavaFrame()
+          && frame.getMethod().getType().getName().startsWith(CHECKED_PACKAGE)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}